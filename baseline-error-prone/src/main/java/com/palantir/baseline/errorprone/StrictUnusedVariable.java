@@ -103,7 +103,6 @@ import com.sun.source.tree.WhileLoopTree;
 import com.sun.source.util.SimpleTreeVisitor;
 import com.sun.source.util.TreePath;
 import com.sun.source.util.TreePathScanner;
-import com.sun.source.util.TreeScanner;
 import com.sun.tools.javac.code.Symbol;
 import com.sun.tools.javac.code.Type;
 import com.sun.tools.javac.tree.JCTree;
@@ -116,7 +115,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nullable;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.Modifier;
@@ -181,16 +179,21 @@ public final class StrictUnusedVariable extends BugChecker implements BugChecker
 
     @Override
     public Description matchCompilationUnit(CompilationUnitTree tree, VisitorState state) {
+        // Index every symbol reference, method declaration and method invocation up front, so that building the
+        // findings and their fixes below never needs to rescan the compilation unit.
+        SymbolIndex symbolIndex = new SymbolIndex();
+        symbolIndex.scan(state.getPath(), null);
+
         // We will skip reporting on the whole compilation if there are any native methods found.
-        // Use a TreeScanner to find all local variables and fields.
-        if (hasNativeMethods(tree)) {
+        if (symbolIndex.hasNativeMethods) {
             return Description.NO_MATCH;
         }
 
+        // Use a TreePathScanner to find all local variables and fields.
         VariableFinder variableFinder = new VariableFinder(state);
         variableFinder.scan(state.getPath(), null);
 
-        checkUsedVariables(state, variableFinder);
+        checkUsedVariables(state, variableFinder, symbolIndex);
 
         // Map of symbols to variable declarations. Initially this is a map of all of the local variable
         // and fields. As we go we remove those variables which are used.
@@ -255,7 +258,7 @@ public final class StrictUnusedVariable extends BugChecker implements BugChecker
                 if (index == -1) {
                     fixes = buildUnusedLambdaParameterFix(symbol, entry.getValue(), state);
                 } else {
-                    fixes = buildUnusedParameterFixes(symbol, methodSymbol, allUsageSites, state);
+                    fixes = buildUnusedParameterFixes(symbol, methodSymbol, allUsageSites, symbolIndex, state);
                 }
             } else {
                 fixes = buildUnusedVarFixes(symbol, allUsageSites, state);
@@ -279,11 +282,9 @@ public final class StrictUnusedVariable extends BugChecker implements BugChecker
         return Description.NO_MATCH;
     }
 
-    private void checkUsedVariables(VisitorState state, VariableFinder variableFinder) {
-        VariableUsage variableUsage = new VariableUsage();
-        variableUsage.scan(state.getPath(), null);
+    private void checkUsedVariables(VisitorState state, VariableFinder variableFinder, SymbolIndex symbolIndex) {
         variableFinder.exemptedVariables.forEach((key, value) -> {
-            List<TreePath> usageSites = variableUsage.usageSites.get(key);
+            List<TreePath> usageSites = symbolIndex.usageSites.get(key);
             if (usageSites.size() <= 1) {
                 return;
             }
@@ -397,20 +398,6 @@ public final class StrictUnusedVariable extends BugChecker implements BugChecker
         }
     }
 
-    private static boolean hasNativeMethods(CompilationUnitTree tree) {
-        AtomicBoolean hasAnyNativeMethods = new AtomicBoolean(false);
-        new TreeScanner<Void, Void>() {
-            @Override
-            public Void visitMethod(MethodTree tree, Void unused) {
-                if (tree.getModifiers().getFlags().contains(Modifier.NATIVE)) {
-                    hasAnyNativeMethods.set(true);
-                }
-                return null;
-            }
-        }.scan(tree, null);
-        return hasAnyNativeMethods.get();
-    }
-
     // https://docs.oracle.com/javase/specs/jls/se11/html/jls-14.html#jls-ExpressionStatement
     private static final ImmutableSet<Tree.Kind> TOP_LEVEL_EXPRESSIONS = ImmutableSet.of(
             Tree.Kind.ASSIGNMENT,
@@ -549,7 +536,11 @@ public final class StrictUnusedVariable extends BugChecker implements BugChecker
     }
 
     private static ImmutableList<SuggestedFix> buildUnusedParameterFixes(
-            Symbol varSymbol, Symbol.MethodSymbol methodSymbol, List<TreePath> usagePaths, VisitorState state) {
+            Symbol varSymbol,
+            Symbol.MethodSymbol methodSymbol,
+            List<TreePath> usagePaths,
+            SymbolIndex symbolIndex,
+            VisitorState state) {
         boolean isPrivateMethod = methodSymbol.getModifiers().contains(Modifier.PRIVATE);
         int index = methodSymbol.params.indexOf(varSymbol);
         Preconditions.checkState(index != -1, "symbol %s must be a parameter to the owning method", varSymbol);
@@ -561,99 +552,92 @@ public final class StrictUnusedVariable extends BugChecker implements BugChecker
         // Remove parameter if the method is private since we can automatically fix all invocation sites
         // Otherwise add `_` prefix to the variable name
         if (isPrivateMethod) {
-            new TreePathScanner<Void, Void>() {
-                @Override
-                public Void visitMethodInvocation(MethodInvocationTree tree, Void unused) {
-                    if (getSymbol(tree).equals(methodSymbol)) {
-                        removeByIndex(tree.getArguments());
-                    }
-                    return super.visitMethodInvocation(tree, null);
-                }
-
-                @Override
-                public Void visitMethod(MethodTree tree, Void unused) {
-                    if (getSymbol(tree).equals(methodSymbol)) {
-                        removeByIndex(tree.getParameters());
-                    }
-                    return super.visitMethod(tree, null);
-                }
+            for (MethodInvocationTree invocation : symbolIndex.methodInvocations.get(methodSymbol)) {
+                removeByIndex(invocation.getArguments(), index, methodSymbol, fix, state);
+            }
+            for (MethodTree method : symbolIndex.methodDeclarations.get(methodSymbol)) {
+                removeByIndex(method.getParameters(), index, methodSymbol, fix, state);
+            }
+        } else {
+            for (MethodTree method : symbolIndex.methodDeclarations.get(methodSymbol)) {
+                renameByIndex(method.getParameters(), index, methodSymbol, fix, state);
+            }
+        }
+        return ImmutableList.of(fix.build());
+    }
 
-                private void removeByIndex(List<? extends Tree> trees) {
-                    if (index >= trees.size()) {
-                        // possible when removing a varargs parameter with no corresponding formal parameters
-                        return;
-                    }
-                    if (trees.size() == 1) {
-                        Tree tree = getOnlyElement(trees);
-                        if (((JCTree) tree).getStartPosition() == -1 || state.getEndPosition(tree) == -1) {
-                            // TODO(b/118437729): handle bogus source positions in enum declarations
-                            return;
-                        }
-                        fix.delete(tree);
-                        return;
-                    }
-                    int startPos;
-                    int endPos;
-                    if (index >= 1) {
-                        startPos = state.getEndPosition(trees.get(index - 1));
-                        endPos = state.getEndPosition(trees.get(index));
-                    } else {
-                        startPos = ((JCTree) trees.get(index)).getStartPosition();
-                        endPos = ((JCTree) trees.get(index + 1)).getStartPosition();
-                    }
-                    if (index == methodSymbol.params().size() - 1 && methodSymbol.isVarArgs()) {
-                        endPos = state.getEndPosition(getLast(trees));
-                    }
-                    if (startPos == Position.NOPOS || endPos == Position.NOPOS) {
-                        // TODO(b/118437729): handle bogus source positions in enum declarations
-                        return;
-                    }
-                    fix.replace(startPos, endPos, "");
-                }
-            }.scan(state.getPath().getCompilationUnit(), null);
+    private static void removeByIndex(
+            List<? extends Tree> trees,
+            int index,
+            Symbol.MethodSymbol methodSymbol,
+            SuggestedFix.Builder fix,
+            VisitorState state) {
+        if (index >= trees.size()) {
+            // possible when removing a varargs parameter with no corresponding formal parameters
+            return;
+        }
+        if (trees.size() == 1) {
+            Tree tree = getOnlyElement(trees);
+            if (((JCTree) tree).getStartPosition() == -1 || state.getEndPosition(tree) == -1) {
+                // TODO(b/118437729): handle bogus source positions in enum declarations
+                return;
+            }
+            fix.delete(tree);
+            return;
+        }
+        int startPos;
+        int endPos;
+        if (index >= 1) {
+            startPos = state.getEndPosition(trees.get(index - 1));
+            endPos = state.getEndPosition(trees.get(index));
         } else {
-            new TreePathScanner<Void, Void>() {
-                @Override
-                public Void visitMethod(MethodTree methodTree, Void unused) {
-                    if (getSymbol(methodTree).equals(methodSymbol)) {
-                        renameByIndex(methodTree.getParameters());
-                    }
-                    return super.visitMethod(methodTree, null);
-                }
+            startPos = ((JCTree) trees.get(index)).getStartPosition();
+            endPos = ((JCTree) trees.get(index + 1)).getStartPosition();
+        }
+        if (index == methodSymbol.params().size() - 1 && methodSymbol.isVarArgs()) {
+            endPos = state.getEndPosition(getLast(trees));
+        }
+        if (startPos == Position.NOPOS || endPos == Position.NOPOS) {
+            // TODO(b/118437729): handle bogus source positions in enum declarations
+            return;
+        }
+        fix.replace(startPos, endPos, "");
+    }
 
-                private void renameByIndex(List<? extends VariableTree> trees) {
-                    if (index >= trees.size()) {
-                        // possible when removing a varargs parameter with no corresponding formal parameters
-                        return;
-                    }
+    private static void renameByIndex(
+            List<? extends VariableTree> trees,
+            int index,
+            Symbol.MethodSymbol methodSymbol,
+            SuggestedFix.Builder fix,
+            VisitorState state) {
+        if (index >= trees.size()) {
+            // possible when removing a varargs parameter with no corresponding formal parameters
+            return;
+        }
 
-                    VariableTree tree = trees.get(index);
-                    int startPos = state.getEndPosition(tree.getType()) + 1;
-                    int endPos = state.getEndPosition(trees.get(index));
-                    if (index == methodSymbol.params().size() - 1 && methodSymbol.isVarArgs()) {
-                        endPos = state.getEndPosition(getLast(trees));
-                    }
-                    if (startPos == Position.NOPOS || endPos == Position.NOPOS) {
-                        // TODO(b/118437729): handle bogus source positions in enum declarations
-                        return;
-                    }
-                    String name = tree.getName().toString();
-                    if (name.startsWith(UNUSED)) {
-                        fix.replace(
-                                startPos,
-                                endPos,
-                                "_"
-                                        + (name.equals(UNUSED)
-                                                ? "value"
-                                                : CaseFormat.UPPER_CAMEL.to(
-                                                        CaseFormat.LOWER_CAMEL, name.substring(UNUSED.length()))));
-                    } else {
-                        fix.replace(startPos, endPos, "_" + tree.getName());
-                    }
-                }
-            }.scan(state.getPath().getCompilationUnit(), null);
+        VariableTree tree = trees.get(index);
+        int startPos = state.getEndPosition(tree.getType()) + 1;
+        int endPos = state.getEndPosition(trees.get(index));
+        if (index == methodSymbol.params().size() - 1 && methodSymbol.isVarArgs()) {
+            endPos = state.getEndPosition(getLast(trees));
+        }
+        if (startPos == Position.NOPOS || endPos == Position.NOPOS) {
+            // TODO(b/118437729): handle bogus source positions in enum declarations
+            return;
+        }
+        String name = tree.getName().toString();
+        if (name.startsWith(UNUSED)) {
+            fix.replace(
+                    startPos,
+                    endPos,
+                    "_"
+                            + (name.equals(UNUSED)
+                                    ? "value"
+                                    : CaseFormat.UPPER_CAMEL.to(
+                                            CaseFormat.LOWER_CAMEL, name.substring(UNUSED.length()))));
+        } else {
+            fix.replace(startPos, endPos, "_" + tree.getName());
         }
-        return ImmutableList.of(fix.build());
     }
 
     private static boolean isEnhancedForLoopVar(TreePath variablePath) {
@@ -1060,8 +1044,21 @@ public final class StrictUnusedVariable extends BugChecker implements BugChecker
         }
     }
 
-    static class VariableUsage extends TreePathScanner<Void, Void> {
-        public final ListMultimap<Symbol, TreePath> usageSites = ArrayListMultimap.create();
+    /**
+     * Indexes a whole compilation unit in a single pass: the paths referencing each symbol (including its declaration),
+     * the declarations and invocations of each method, and whether any native methods are declared.
+     */
+    static final class SymbolIndex extends TreePathScanner<Void, Void> {
+        private final ListMultimap<Symbol, TreePath> usageSites = ArrayListMultimap.create();
+
+        private final ListMultimap<Symbol, MethodTree> methodDeclarations = ArrayListMultimap.create();
+
+        private final ListMultimap<Symbol, MethodInvocationTree> methodInvocations = ArrayListMultimap.create();
+
+        private boolean hasNativeMethods = false;
+
+        // Native methods are only looked for outside of method bodies.
+        private int methodDepth = 0;
 
         @Override
         public Void visitVariable(VariableTree tree, Void unused) {
@@ -1080,6 +1077,27 @@ public final class StrictUnusedVariable extends BugChecker implements BugChecker
             usageSites.put(getSymbol(memberSelectTree), getCurrentPath());
             return super.visitMemberSelect(memberSelectTree, null);
         }
+
+        @Override
+        public Void visitMethod(MethodTree tree, Void unused) {
+            if (methodDepth == 0 && tree.getModifiers().getFlags().contains(Modifier.NATIVE)) {
+                hasNativeMethods = true;
+            }
+            methodDeclarations.put(getSymbol(tree), tree);
+            methodDepth++;
+            super.visitMethod(tree, null);
+            methodDepth--;
+            return null;
+        }
+
+        @Override
+        public Void visitMethodInvocation(MethodInvocationTree tree, Void unused) {
+            Symbol symbol = getSymbol(tree.getMethodSelect());
+            if (symbol != null) {
+                methodInvocations.put(symbol, tree);
+            }
+            return super.visitMethodInvocation(tree, null);
+        }
     }
 
     interface UnusedSpec {
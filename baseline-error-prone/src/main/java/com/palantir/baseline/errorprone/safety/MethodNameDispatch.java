@@ -0,0 +1,90 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.errorprone.safety;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.errorprone.VisitorState;
+import com.google.errorprone.matchers.Matcher;
+import com.google.errorprone.util.ASTHelpers;
+import com.sun.source.tree.ExpressionTree;
+import com.sun.source.tree.MethodInvocationTree;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import javax.annotation.Nullable;
+
+/**
+ * Method matchers indexed by the simple names of the methods they apply to. Method matchers check the owner of a
+ * method, often with a subtype test, before its name, so testing an invocation against a long list of matchers is
+ * expensive even though at most a few of them are for methods with its name.
+ */
+final class MethodNameDispatch<T> {
+    private final ImmutableListMultimap<String, Entry<T>> entriesByName;
+
+    private MethodNameDispatch(ImmutableListMultimap<String, Entry<T>> entriesByName) {
+        this.entriesByName = entriesByName;
+    }
+
+    static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * The value of the first entry, in the order they were added, whose names include the name of the invoked method
+     * and whose matcher matches the invocation, or null if there is none.
+     */
+    @Nullable
+    T match(MethodInvocationTree tree, VisitorState state) {
+        MethodSymbol symbol = ASTHelpers.getSymbol(tree);
+        for (Entry<T> entry : entriesByName.get(symbol.getSimpleName().toString())) {
+            if (entry.matcher.matches(tree, state)) {
+                return entry.value;
+            }
+        }
+        return null;
+    }
+
+    static final class Builder<T> {
+        private final ImmutableListMultimap.Builder<String, Entry<T>> entriesByName = ImmutableListMultimap.builder();
+
+        private Builder() {}
+
+        /**
+         * Adds an entry for methods with any of the given names, which the matcher doesn't need to check again, e.g.
+         * {@code MethodMatchers.staticMethod().onClass(String.class.getName())} with {@code "format", "valueOf"}.
+         */
+        Builder<T> add(T value, Matcher<ExpressionTree> matcher, String... methodNames) {
+            Entry<T> entry = new Entry<>(value, matcher);
+            for (String methodName : methodNames) {
+                entriesByName.put(methodName, entry);
+            }
+            return this;
+        }
+
+        MethodNameDispatch<T> build() {
+            return new MethodNameDispatch<>(entriesByName.build());
+        }
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+        private final Matcher<ExpressionTree> matcher;
+
+        Entry(T value, Matcher<ExpressionTree> matcher) {
+            this.value = value;
+            this.matcher = matcher;
+        }
+    }
+}
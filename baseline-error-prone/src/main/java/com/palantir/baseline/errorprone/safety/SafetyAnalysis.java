@@ -17,23 +17,68 @@
 package com.palantir.baseline.errorprone.safety;
 
 import com.google.errorprone.VisitorState;
-import com.google.errorprone.dataflow.DataFlow;
+import com.google.errorprone.dataflow.AccessPathStore;
 import com.palantir.baseline.errorprone.safety.SafetyPropagationTransfer.ClearVisitorState;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
 import com.sun.source.util.TreePath;
 import com.sun.tools.javac.util.Context;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.checkerframework.errorprone.dataflow.analysis.Analysis;
 
 public final class SafetyAnalysis {
     private static final Context.Key<SafetyPropagationTransfer> SAFETY_PROPAGATION = new Context.Key<>();
+    private static final Context.Key<BodyAnalyses> BODY_ANALYSES = new Context.Key<>();
 
     /**
      * Returns the safety of the item at the current path.
      * Callers may need to use {@link VisitorState#withPath(TreePath)} to provide a more specific path.
      */
     public static Safety of(VisitorState state) {
-        SafetyPropagationTransfer propagation = instance(state.context);
-        try (ClearVisitorState ignored = propagation.setVisitorState(state)) {
-            return Safety.nullToUnknown(DataFlow.expressionDataflow(state.getPath(), state.context, propagation));
+        TreePath bodyPath = enclosingBody(state.getPath());
+        if (bodyPath == null) {
+            return Safety.UNKNOWN;
         }
+        Analysis<Safety, AccessPathStore<Safety>, SafetyPropagationTransfer> analysis =
+                bodyAnalyses(state.context).get(bodyPath, state);
+        return Safety.nullToUnknown(analysis.getValue(state.getPath().getLeaf()));
+    }
+
+    /**
+     * The method, lambda or initializer whose analysis includes the given path, found the same way as
+     * {@link com.google.errorprone.dataflow.DataFlow#expressionDataflow}.
+     */
+    @Nullable
+    private static TreePath enclosingBody(TreePath path) {
+        for (TreePath current = path; current != null; current = current.getParentPath()) {
+            Tree leaf = current.getLeaf();
+            if (leaf instanceof MethodTree) {
+                return ((MethodTree) leaf).getBody() == null ? null : current;
+            }
+            TreePath parent = current.getParentPath();
+            if (parent == null) {
+                return null;
+            }
+            if (parent.getLeaf() instanceof ClassTree) {
+                if (leaf instanceof BlockTree) {
+                    return current;
+                }
+                if (leaf instanceof VariableTree && ((VariableTree) leaf).getInitializer() != null) {
+                    return current;
+                }
+            }
+            if (parent.getLeaf() instanceof LambdaExpressionTree) {
+                return parent;
+            }
+        }
+        return null;
     }
 
     private static SafetyPropagationTransfer instance(Context context) {
@@ -45,5 +90,49 @@ public final class SafetyAnalysis {
         return instance;
     }
 
+    private static BodyAnalyses bodyAnalyses(Context context) {
+        BodyAnalyses instance = context.get(BODY_ANALYSES);
+        if (instance == null) {
+            instance = new BodyAnalyses(instance(context));
+            context.put(BODY_ANALYSES, instance);
+        }
+        return instance;
+    }
+
+    /**
+     * The analyses of each method, lambda and initializer in the current compilation unit. Checks query the safety of
+     * many expressions in the same body, so each body is only analyzed once rather than once per query.
+     */
+    private static final class BodyAnalyses {
+        private final SafetyPropagationTransfer propagation;
+        private final Map<Tree, Analysis<Safety, AccessPathStore<Safety>, SafetyPropagationTransfer>> analysesByBody =
+                new IdentityHashMap<>();
+
+        @Nullable
+        private CompilationUnitTree compilationUnit;
+
+        BodyAnalyses(SafetyPropagationTransfer propagation) {
+            this.propagation = propagation;
+        }
+
+        Analysis<Safety, AccessPathStore<Safety>, SafetyPropagationTransfer> get(
+                TreePath bodyPath, VisitorState state) {
+            if (bodyPath.getCompilationUnit() != compilationUnit) {
+                // Trees of earlier compilation units are never queried again, so their analyses can be dropped
+                analysesByBody.clear();
+                compilationUnit = bodyPath.getCompilationUnit();
+            }
+            Analysis<Safety, AccessPathStore<Safety>, SafetyPropagationTransfer> analysis =
+                    analysesByBody.get(bodyPath.getLeaf());
+            if (analysis == null) {
+                try (ClearVisitorState ignored = propagation.setVisitorState(state)) {
+                    analysis = propagation.analyze(bodyPath);
+                }
+                analysesByBody.put(bodyPath.getLeaf(), analysis);
+            }
+            return analysis;
+        }
+    }
+
     private SafetyAnalysis() {}
 }
@@ -47,6 +47,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.Name;
 import javax.lang.model.element.TypeElement;
 
@@ -123,32 +124,62 @@ public final class SafetyAnnotations {
             if (direct != Safety.UNKNOWN) {
                 return direct;
             }
-            // Check super-methods
-            if (symbol instanceof MethodSymbol) {
-                return getSuperMethodSafety((MethodSymbol) symbol, state);
-            }
             if (symbol instanceof TypeVariableSymbol) {
                 return getTypeVariableSymbolSafety((TypeVariableSymbol) symbol);
             }
-            if (symbol instanceof VarSymbol) {
-                VarSymbol varSymbol = (VarSymbol) symbol;
-                return getSuperMethodParameterSafety(varSymbol, state);
+            // Local variables are cheap to evaluate, and would only fill the cache
+            if (symbol instanceof VarSymbol && symbol.getKind() != ElementKind.PARAMETER) {
+                return getInheritedSafety(symbol, state);
             }
-            if (symbol instanceof ClassSymbol) {
-                ClassSymbol classSymbol = (ClassSymbol) symbol;
-                Safety safety = getSafety(classSymbol.getSuperclass().tsym, state);
-                for (Type type : classSymbol.getInterfaces()) {
-                    safety = Safety.mergeAssumingUnknownIsSame(safety, getSafety(type.tsym, state));
+            SafetyCache cache = SafetyCache.instance(state);
+            Safety safety = cache.getSymbolSafety(symbol);
+            if (safety == null) {
+                // Symbols from the classpath may have been summarized when their module was compiled
+                safety = SafetySummaries.instance(state.context).getSafety(symbol, state);
+                if (safety == null) {
+                    safety = getInheritedSafety(symbol, state);
                 }
-                return safety;
+                cache.putSymbolSafety(symbol, safety);
             }
+            return safety;
+        }
+        return Safety.UNKNOWN;
+    }
+
+    private static Safety getInheritedSafety(Symbol symbol, VisitorState state) {
+        // Check super-methods
+        if (symbol instanceof MethodSymbol) {
+            return getSuperMethodSafety((MethodSymbol) symbol, state);
+        }
+        if (symbol instanceof VarSymbol) {
+            VarSymbol varSymbol = (VarSymbol) symbol;
+            return getSuperMethodParameterSafety(varSymbol, state);
+        }
+        if (symbol instanceof ClassSymbol) {
+            ClassSymbol classSymbol = (ClassSymbol) symbol;
+            Safety safety = getSafety(classSymbol.getSuperclass().tsym, state);
+            for (Type type : classSymbol.getInterfaces()) {
+                safety = Safety.mergeAssumingUnknownIsSame(safety, getSafety(type.tsym, state));
+            }
+            return safety;
         }
         return Safety.UNKNOWN;
     }
 
     public static Safety getSafety(@Nullable Type type, VisitorState state) {
         if (type != null) {
-            return getSafetyInternal(type, state, null);
+            // Only the outermost evaluation is cached: nested evaluations may be cut short by cycle detection
+            SafetyCache cache = SafetyCache.instance(state);
+            String typeKey = cache.typeKey(type);
+            if (typeKey == null) {
+                return getSafetyInternal(type, state, null);
+            }
+            Safety safety = cache.getTypeSafety(typeKey);
+            if (safety == null) {
+                safety = getSafetyInternal(type, state, null);
+                cache.putTypeSafety(typeKey, safety);
+            }
+            return safety;
         }
         return Safety.UNKNOWN;
     }
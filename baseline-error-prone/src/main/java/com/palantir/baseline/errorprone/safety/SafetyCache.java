@@ -0,0 +1,194 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.errorprone.safety;
+
+import com.google.errorprone.VisitorState;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.tools.javac.api.MultiTaskListener;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.code.Type.ArrayType;
+import com.sun.tools.javac.code.Type.WildcardType;
+import com.sun.tools.javac.code.TypeTag;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Log;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * The safety of types and symbols seen so far in the current compilation. Types like {@code Map<String, List<Foo>>}
+ * and overridden interface methods are otherwise evaluated again each time they are encountered.
+ *
+ * <p>The cache is scoped to the javac {@link Context}, which is created for each compilation. Incremental compilation
+ * runs javac again with a new context, so cached results never outlive the symbols they were computed from and
+ * nothing needs to be invalidated explicitly. Error-prone only analyzes a compilation unit once annotation processing
+ * has finished, so the annotations of every symbol are complete by the time they are cached.
+ *
+ * <p>Hit rates are printed at the end of the compilation when {@code -XepOpt:SafetyAnnotations:CacheStats=true} is
+ * passed to javac.
+ */
+final class SafetyCache {
+    static final String CACHE_STATS_FLAG = "SafetyAnnotations:CacheStats";
+
+    private static final Context.Key<SafetyCache> SAFETY_CACHE = new Context.Key<>();
+
+    // Symbols are unique within a compilation, whereas each use of a type may be a distinct instance
+    private final Map<Symbol, Safety> symbols = new IdentityHashMap<>();
+    private final Map<String, Safety> types = new HashMap<>();
+
+    private long symbolHits;
+    private long symbolMisses;
+    private long typeHits;
+    private long typeMisses;
+    private long uncacheableTypes;
+
+    static SafetyCache instance(VisitorState state) {
+        SafetyCache instance = state.context.get(SAFETY_CACHE);
+        if (instance == null) {
+            instance = new SafetyCache();
+            state.context.put(SAFETY_CACHE, instance);
+            if (state.errorProneOptions()
+                    .getFlags()
+                    .getBoolean(CACHE_STATS_FLAG)
+                    .orElse(false)) {
+                MultiTaskListener.instance(state.context).add(new ReportStats(instance, Log.instance(state.context)));
+            }
+        }
+        return instance;
+    }
+
+    @Nullable
+    Safety getSymbolSafety(Symbol symbol) {
+        Safety safety = symbols.get(symbol);
+        if (safety == null) {
+            symbolMisses++;
+        } else {
+            symbolHits++;
+        }
+        return safety;
+    }
+
+    void putSymbolSafety(Symbol symbol, Safety safety) {
+        symbols.put(symbol, safety);
+    }
+
+    /**
+     * The key under which the safety of the given type is cached, or null if the type cannot be cached. The string
+     * form of a type includes its type arguments and type annotations, which is all its safety depends on, as long as
+     * it doesn't refer to type variables or local classes whose names are only meaningful in their scope.
+     */
+    @Nullable
+    String typeKey(Type type) {
+        if (isCacheable(type)) {
+            return type.toString();
+        }
+        uncacheableTypes++;
+        return null;
+    }
+
+    @Nullable
+    Safety getTypeSafety(String typeKey) {
+        Safety safety = types.get(typeKey);
+        if (safety == null) {
+            typeMisses++;
+        } else {
+            typeHits++;
+        }
+        return safety;
+    }
+
+    void putTypeSafety(String typeKey, Safety safety) {
+        types.put(typeKey, safety);
+    }
+
+    String stats() {
+        return String.format(
+                Locale.ROOT,
+                "SafetyAnnotations cache: symbols %s, types %s, %d uncacheable type lookups",
+                hitRate(symbolHits, symbolMisses),
+                hitRate(typeHits, typeMisses),
+                uncacheableTypes);
+    }
+
+    private static String hitRate(long hits, long misses) {
+        long lookups = hits + misses;
+        return String.format(
+                Locale.ROOT,
+                "%d/%d hits (%.1f%%)",
+                hits,
+                lookups,
+                lookups == 0 ? 0.0 : 100.0 * hits / lookups);
+    }
+
+    private static boolean isCacheable(Type type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case CHAR:
+            case FLOAT:
+            case DOUBLE:
+            case VOID:
+                return true;
+            case ARRAY:
+                return isCacheable(((ArrayType) type).elemtype);
+            case WILDCARD:
+                Type bound = ((WildcardType) type).type;
+                return bound == null || isCacheable(bound);
+            case DECLARED:
+                if (type.tsym.isDirectlyOrIndirectlyLocal()) {
+                    return false;
+                }
+                Type enclosingType = type.getEnclosingType();
+                if (enclosingType.hasTag(TypeTag.CLASS) && !isCacheable(enclosingType)) {
+                    return false;
+                }
+                for (Type typeArgument : type.getTypeArguments()) {
+                    if (!isCacheable(typeArgument)) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                // Type variables, captured types, intersections and erroneous types
+                return false;
+        }
+    }
+
+    private static final class ReportStats implements TaskListener {
+        private final SafetyCache cache;
+        private final Log log;
+
+        ReportStats(SafetyCache cache, Log log) {
+            this.cache = cache;
+            this.log = log;
+        }
+
+        @Override
+        public void finished(TaskEvent event) {
+            if (event.getKind() == TaskEvent.Kind.COMPILATION) {
+                log.printRawLines(Log.WriterKind.NOTICE, cache.stats());
+            }
+        }
+    }
+}
@@ -171,140 +171,6 @@ public final class SafetyPropagationTransfer implements ForwardTransferFunction<
     private static final Matcher<ExpressionTree> TO_STRING =
             MethodMatchers.instanceMethod().anyClass().named("toString").withNoParameters();
 
-    private static final Matcher<ExpressionTree> THROWABLE_GET_MESSAGE = MethodMatchers.instanceMethod()
-            .onDescendantOf(Throwable.class.getName())
-            .namedAnyOf("getMessage", "getLocalizedMessage")
-            .withNoParameters();
-
-    private static final Matcher<ExpressionTree> STRING_FORMAT =
-            MethodMatchers.staticMethod().onClass(String.class.getName()).named("format");
-
-    private static final Matcher<ExpressionTree> STRING_VALUE_OF =
-            MethodMatchers.staticMethod().onClass(String.class.getName()).named("valueOf");
-
-    private static final Matcher<ExpressionTree> STRING_COPY_VALUE_OF =
-            MethodMatchers.staticMethod().onClass(String.class.getName()).named("copyValueOf");
-
-    private static final Matcher<ExpressionTree> OBJECTS_TO_STRING =
-            MethodMatchers.staticMethod().onClass(Objects.class.getName()).named("toString");
-
-    private static final Matcher<ExpressionTree> IMMUTABLE_COLLECTION_FACTORY = Matchers.anyOf(
-            MethodMatchers.staticMethod()
-                    .onClassAny(
-                            ImmutableList.class.getName(),
-                            ImmutableSet.class.getName(),
-                            ImmutableSortedSet.class.getName(),
-                            ImmutableMap.class.getName(),
-                            ImmutableListMultimap.class.getName(),
-                            ImmutableSetMultimap.class.getName(),
-                            List.class.getName(),
-                            Set.class.getName(),
-                            Map.class.getName())
-                    .namedAnyOf("of", "copyOf"),
-            MethodMatchers.staticMethod().onClass(Arrays.class.getName()).named("asList"));
-
-    private static final Matcher<ExpressionTree> OPTIONAL_FACTORIES = Matchers.anyOf(
-            MethodMatchers.staticMethod().onClass(Optional.class.getName()).namedAnyOf("of", "ofNullable"),
-            MethodMatchers.staticMethod()
-                    .onClassAny(
-                            OptionalInt.class.getName(), OptionalLong.class.getName(), OptionalDouble.class.getName())
-                    .named("of"));
-
-    private static final Matcher<ExpressionTree> STATIC_STREAM_FACTORIES =
-            MethodMatchers.staticMethod().onClass(Stream.class.getName()).namedAnyOf("of", "ofNullable", "concat");
-
-    private static final Matcher<ExpressionTree> RID_FACTORY = MethodMatchers.staticMethod()
-            .onClass("com.palantir.ri.ResourceIdentifier")
-            // capture all overloads -- in the case of the multi-parameter methods, only the 'locator' components
-            // really matter, however the rest are required to be safe, so they cannot poison results.
-            .namedAnyOf("of", "valueOf");
-
-    private static final Matcher<ExpressionTree> THROWABLES_STACK_TRACE_AS_STRING = MethodMatchers.staticMethod()
-            .onClass("com.google.common.base.Throwables")
-            .named("getStackTraceAsString")
-            .withParameters(Throwable.class.getName());
-
-    private static final Matcher<ExpressionTree> PRIMITIVE_BOXING = Matchers.anyOf(
-            MethodMatchers.staticMethod()
-                    .onClass(Boolean.class.getName())
-                    .named("valueOf")
-                    .withParameters("boolean"),
-            MethodMatchers.staticMethod()
-                    .onClass(Integer.class.getName())
-                    .named("valueOf")
-                    .withParameters("int"),
-            MethodMatchers.staticMethod()
-                    .onClass(Byte.class.getName())
-                    .named("valueOf")
-                    .withParameters("byte"),
-            MethodMatchers.staticMethod()
-                    .onClass(Character.class.getName())
-                    .named("valueOf")
-                    .withParameters("char"),
-            MethodMatchers.staticMethod()
-                    .onClass(Double.class.getName())
-                    .named("valueOf")
-                    .withParameters("double"),
-            MethodMatchers.staticMethod()
-                    .onClass(Float.class.getName())
-                    .named("valueOf")
-                    .withParameters("float"),
-            MethodMatchers.staticMethod()
-                    .onClass(Long.class.getName())
-                    .named("valueOf")
-                    .withParameters("long"),
-            MethodMatchers.staticMethod()
-                    .onClass(Short.class.getName())
-                    .named("valueOf")
-                    .withParameters("short"));
-
-    private static final Matcher<ExpressionTree> PRIMITIVE_UNBOXING = Matchers.anyOf(
-            MethodMatchers.instanceMethod()
-                    .onExactClass(Boolean.class.getName())
-                    .named("booleanValue")
-                    .withNoParameters(),
-            MethodMatchers.instanceMethod()
-                    .onExactClass(Integer.class.getName())
-                    .named("intValue")
-                    .withNoParameters(),
-            MethodMatchers.instanceMethod()
-                    .onExactClass(Byte.class.getName())
-                    .named("byteValue")
-                    .withNoParameters(),
-            MethodMatchers.instanceMethod()
-                    .onExactClass(Character.class.getName())
-                    .named("charValue")
-                    .withNoParameters(),
-            MethodMatchers.instanceMethod()
-                    .onExactClass(Double.class.getName())
-                    .named("doubleValue")
-                    .withNoParameters(),
-            MethodMatchers.instanceMethod()
-                    .onExactClass(Float.class.getName())
-                    .named("floatValue")
-                    .withNoParameters(),
-            MethodMatchers.instanceMethod()
-                    .onExactClass(Long.class.getName())
-                    .named("longValue")
-                    .withNoParameters(),
-            MethodMatchers.instanceMethod()
-                    .onExactClass(Short.class.getName())
-                    .named("shortValue")
-                    .withNoParameters());
-
-    // These methods do not take the receiver (generally a static class) into account, only the inputs.
-    private static final Matcher<ExpressionTree> RETURNS_SAFETY_COMBINATION_OF_ARGS = Matchers.anyOf(
-            STRING_FORMAT,
-            STRING_VALUE_OF,
-            STRING_COPY_VALUE_OF,
-            OBJECTS_TO_STRING,
-            IMMUTABLE_COLLECTION_FACTORY,
-            OPTIONAL_FACTORIES,
-            STATIC_STREAM_FACTORIES,
-            RID_FACTORY,
-            THROWABLES_STACK_TRACE_AS_STRING,
-            PRIMITIVE_BOXING);
-
     private static final Matcher<ExpressionTree> CONSTRUCTOR_SAFETY_COMBINATION_OF_ARGS = Matchers.anyOf(
             MethodMatchers.constructor().forClass(StringBuilder.class.getName()).withParameters(String.class.getName()),
             MethodMatchers.constructor()
@@ -315,89 +181,6 @@ public final class SafetyPropagationTransfer implements ForwardTransferFunction<
                     .forClass(StringBuffer.class.getName())
                     .withParameters(CharSequence.class.getName()));
 
-    private static final Matcher<ExpressionTree> OPTIONAL_ACCESSORS = Matchers.anyOf(
-            MethodMatchers.instanceMethod()
-                    .onDescendantOf(Optional.class.getName())
-                    .namedAnyOf("filter", "get", "orElseThrow", "stream"),
-            MethodMatchers.instanceMethod()
-                    .onDescendantOf(OptionalInt.class.getName())
-                    .namedAnyOf("getAsInt", "orElseThrow"),
-            MethodMatchers.instanceMethod()
-                    .onDescendantOf(OptionalLong.class.getName())
-                    .namedAnyOf("getAsLong", "orElseThrow"),
-            MethodMatchers.instanceMethod()
-                    .onDescendantOf(OptionalDouble.class.getName())
-                    .namedAnyOf("getAsDouble", "orElseThrow"));
-
-    private static final Matcher<ExpressionTree> STREAM_ACCESSORS = Matchers.anyOf(
-            MethodMatchers.instanceMethod()
-                    .onDescendantOf(BaseStream.class.getName())
-                    .namedAnyOf("iterator", "spliterator", "sequential", "parallel", "unordered", "onClose"),
-            MethodMatchers.instanceMethod()
-                    .onDescendantOf(Stream.class.getName())
-                    .namedAnyOf(
-                            "filter",
-                            "distinct",
-                            "sorted",
-                            "peek",
-                            "limit",
-                            "skip",
-                            "takeWhile",
-                            "dropWhile",
-                            "toArray",
-                            "toList",
-                            "min",
-                            "max",
-                            "findFirst",
-                            "findAny"));
-
-    // Returns the safety of the receiver, e.g. myString.getBytes() returns the safety of myString.
-    private static final Matcher<ExpressionTree> RETURNS_SAFETY_OF_RECEIVER = Matchers.anyOf(
-            MethodMatchers.instanceMethod()
-                    .onDescendantOf(CharSequence.class.getName())
-                    .namedAnyOf("charAt", "subSequence", "chars", "codePoints"),
-            MethodMatchers.instanceMethod()
-                    .onExactClass(String.class.getName())
-                    .namedAnyOf("getBytes", "toLowerCase", "toUpperCase", "substring", "split", "toCharArray"),
-            MethodMatchers.instanceMethod()
-                    .onDescendantOf(Collection.class.getName())
-                    .namedAnyOf("toArray", "stream", "parallelStream"),
-            MethodMatchers.instanceMethod()
-                    .onDescendantOf(Iterable.class.getName())
-                    .namedAnyOf("toArray", "iterator", "spliterator"),
-            MethodMatchers.instanceMethod()
-                    .onDescendantOf(Iterator.class.getName())
-                    .named("next")
-                    .withNoParameters(),
-            // Rid components are considered safe, except for 'locator' which inherits the safety of the rid object.
-            MethodMatchers.instanceMethod()
-                    .onDescendantOf("com.palantir.ri.ResourceIdentifier")
-                    .named("getLocator")
-                    .withNoParameters(),
-            OPTIONAL_ACCESSORS,
-            STREAM_ACCESSORS,
-            THROWABLE_GET_MESSAGE,
-            PRIMITIVE_UNBOXING);
-
-    private static final Matcher<ExpressionTree> RETURNS_SAFETY_OF_FIRST_ARG = Matchers.anyOf(
-            MethodMatchers.staticMethod().onClass(Objects.class.getName()).named("requireNonNull"),
-            MethodMatchers.staticMethod()
-                    .onClass("com.google.common.base.Preconditions")
-                    .named("checkNotNull"),
-            MethodMatchers.staticMethod()
-                    .onClass("com.palantir.logsafe.Preconditions")
-                    .namedAnyOf("checkNotNull", "checkArgumentNotNull"));
-
-    // Similar to RETURNS_SAFETY_OF_ARGS_AND_RECEIVER, except the variable itself is assigned the safety result.
-    // For example, the following returns do-not-log due to a mutation on the second line:
-    // StringBuilder sb = new StringBuilder().append(safe);
-    // sb.append(doNotLog);
-    // return sb.append(safe).toString();
-    private static final Matcher<ExpressionTree> MUTABLE_BUILDER_METHODS =
-            Matchers.anyOf(MethodMatchers.instanceMethod()
-                    .onExactClassAny(StringBuilder.class.getName(), StringBuffer.class.getName())
-                    .namedAnyOf("append", "insert", "replace"));
-
     private static final Matcher<ExpressionTree> UNKNOWN_COLLECTORS = Matchers.anyOf(
             MethodMatchers.staticMethod()
                     .onClass(Collectors.class.getName())
@@ -424,13 +207,243 @@ public final class SafetyPropagationTransfer implements ForwardTransferFunction<
             ChildMultiMatcher.MatchType.LAST,
             Matchers.not(UNKNOWN_COLLECTORS));
 
-    private static final Matcher<ExpressionTree> RETURNS_SAFETY_OF_ARGS_AND_RECEIVER = Matchers.anyOf(
-            COLLECT_INCLUDES_STREAM_SAFETY,
-            MethodMatchers.instanceMethod()
-                    .onDescendantOf(Optional.class.getName())
-                    // TODO(ckozak): support 'or' and 'orElseGet' which require lambda support
-                    .named("orElse"),
-            MUTABLE_BUILDER_METHODS);
+    /** How the safety of the result of a well-known method follows from the safety of its receiver and arguments. */
+    private enum KnownMethod {
+        // Similar to ARGS_AND_RECEIVER, except the variable itself is assigned the safety result.
+        // For example, the following returns do-not-log due to a mutation on the second line:
+        // StringBuilder sb = new StringBuilder().append(safe);
+        // sb.append(doNotLog);
+        // return sb.append(safe).toString();
+        MUTABLE_BUILDER,
+        ARGS_AND_RECEIVER,
+        // These methods do not take the receiver (generally a static class) into account, only the inputs.
+        COMBINATION_OF_ARGS,
+        // Returns the safety of the receiver, e.g. myString.getBytes() returns the safety of myString.
+        RECEIVER,
+        FIRST_ARG
+    }
+
+    // Indexed by method name, so that each invocation is only tested against the matchers of methods with its name,
+    // rather than evaluating the owner and subtype checks of every matcher in turn. Earlier entries take precedence.
+    private static final MethodNameDispatch<KnownMethod> KNOWN_METHODS = MethodNameDispatch.<KnownMethod>builder()
+            .add(
+                    KnownMethod.MUTABLE_BUILDER,
+                    MethodMatchers.instanceMethod()
+                            .onExactClassAny(StringBuilder.class.getName(), StringBuffer.class.getName()),
+                    "append",
+                    "insert",
+                    "replace")
+            .add(KnownMethod.ARGS_AND_RECEIVER, COLLECT_INCLUDES_STREAM_SAFETY, "collect")
+            // TODO(ckozak): support 'or' and 'orElseGet' which require lambda support
+            .add(
+                    KnownMethod.ARGS_AND_RECEIVER,
+                    MethodMatchers.instanceMethod().onDescendantOf(Optional.class.getName()),
+                    "orElse")
+            .add(
+                    KnownMethod.COMBINATION_OF_ARGS,
+                    MethodMatchers.staticMethod().onClass(String.class.getName()),
+                    "format",
+                    "valueOf",
+                    "copyValueOf")
+            .add(
+                    KnownMethod.COMBINATION_OF_ARGS,
+                    MethodMatchers.staticMethod().onClass(Objects.class.getName()),
+                    "toString")
+            .add(
+                    KnownMethod.COMBINATION_OF_ARGS,
+                    MethodMatchers.staticMethod()
+                            .onClassAny(
+                                    ImmutableList.class.getName(),
+                                    ImmutableSet.class.getName(),
+                                    ImmutableSortedSet.class.getName(),
+                                    ImmutableMap.class.getName(),
+                                    ImmutableListMultimap.class.getName(),
+                                    ImmutableSetMultimap.class.getName(),
+                                    List.class.getName(),
+                                    Set.class.getName(),
+                                    Map.class.getName()),
+                    "of",
+                    "copyOf")
+            .add(
+                    KnownMethod.COMBINATION_OF_ARGS,
+                    MethodMatchers.staticMethod().onClass(Arrays.class.getName()),
+                    "asList")
+            .add(
+                    KnownMethod.COMBINATION_OF_ARGS,
+                    MethodMatchers.staticMethod().onClass(Optional.class.getName()),
+                    "of",
+                    "ofNullable")
+            .add(
+                    KnownMethod.COMBINATION_OF_ARGS,
+                    MethodMatchers.staticMethod()
+                            .onClassAny(
+                                    OptionalInt.class.getName(),
+                                    OptionalLong.class.getName(),
+                                    OptionalDouble.class.getName()),
+                    "of")
+            .add(
+                    KnownMethod.COMBINATION_OF_ARGS,
+                    MethodMatchers.staticMethod().onClass(Stream.class.getName()),
+                    "of",
+                    "ofNullable",
+                    "concat")
+            // capture all overloads -- in the case of the multi-parameter methods, only the 'locator' components
+            // really matter, however the rest are required to be safe, so they cannot poison results.
+            .add(
+                    KnownMethod.COMBINATION_OF_ARGS,
+                    MethodMatchers.staticMethod().onClass("com.palantir.ri.ResourceIdentifier"),
+                    "of",
+                    "valueOf")
+            .add(
+                    KnownMethod.COMBINATION_OF_ARGS,
+                    MethodMatchers.staticMethod()
+                            .onClass("com.google.common.base.Throwables")
+                            .named("getStackTraceAsString")
+                            .withParameters(Throwable.class.getName()),
+                    "getStackTraceAsString")
+            .add(KnownMethod.COMBINATION_OF_ARGS, boxing(Boolean.class, "boolean"), "valueOf")
+            .add(KnownMethod.COMBINATION_OF_ARGS, boxing(Integer.class, "int"), "valueOf")
+            .add(KnownMethod.COMBINATION_OF_ARGS, boxing(Byte.class, "byte"), "valueOf")
+            .add(KnownMethod.COMBINATION_OF_ARGS, boxing(Character.class, "char"), "valueOf")
+            .add(KnownMethod.COMBINATION_OF_ARGS, boxing(Double.class, "double"), "valueOf")
+            .add(KnownMethod.COMBINATION_OF_ARGS, boxing(Float.class, "float"), "valueOf")
+            .add(KnownMethod.COMBINATION_OF_ARGS, boxing(Long.class, "long"), "valueOf")
+            .add(KnownMethod.COMBINATION_OF_ARGS, boxing(Short.class, "short"), "valueOf")
+            .add(
+                    KnownMethod.RECEIVER,
+                    MethodMatchers.instanceMethod().onDescendantOf(CharSequence.class.getName()),
+                    "charAt",
+                    "subSequence",
+                    "chars",
+                    "codePoints")
+            .add(
+                    KnownMethod.RECEIVER,
+                    MethodMatchers.instanceMethod().onExactClass(String.class.getName()),
+                    "getBytes",
+                    "toLowerCase",
+                    "toUpperCase",
+                    "substring",
+                    "split",
+                    "toCharArray")
+            .add(
+                    KnownMethod.RECEIVER,
+                    MethodMatchers.instanceMethod().onDescendantOf(Collection.class.getName()),
+                    "toArray",
+                    "stream",
+                    "parallelStream")
+            .add(
+                    KnownMethod.RECEIVER,
+                    MethodMatchers.instanceMethod().onDescendantOf(Iterable.class.getName()),
+                    "toArray",
+                    "iterator",
+                    "spliterator")
+            .add(
+                    KnownMethod.RECEIVER,
+                    MethodMatchers.instanceMethod()
+                            .onDescendantOf(Iterator.class.getName())
+                            .named("next")
+                            .withNoParameters(),
+                    "next")
+            // Rid components are considered safe, except for 'locator' which inherits the safety of the rid object.
+            .add(
+                    KnownMethod.RECEIVER,
+                    MethodMatchers.instanceMethod()
+                            .onDescendantOf("com.palantir.ri.ResourceIdentifier")
+                            .named("getLocator")
+                            .withNoParameters(),
+                    "getLocator")
+            .add(
+                    KnownMethod.RECEIVER,
+                    MethodMatchers.instanceMethod().onDescendantOf(Optional.class.getName()),
+                    "filter",
+                    "get",
+                    "orElseThrow",
+                    "stream")
+            .add(
+                    KnownMethod.RECEIVER,
+                    MethodMatchers.instanceMethod().onDescendantOf(OptionalInt.class.getName()),
+                    "getAsInt",
+                    "orElseThrow")
+            .add(
+                    KnownMethod.RECEIVER,
+                    MethodMatchers.instanceMethod().onDescendantOf(OptionalLong.class.getName()),
+                    "getAsLong",
+                    "orElseThrow")
+            .add(
+                    KnownMethod.RECEIVER,
+                    MethodMatchers.instanceMethod().onDescendantOf(OptionalDouble.class.getName()),
+                    "getAsDouble",
+                    "orElseThrow")
+            .add(
+                    KnownMethod.RECEIVER,
+                    MethodMatchers.instanceMethod().onDescendantOf(BaseStream.class.getName()),
+                    "iterator",
+                    "spliterator",
+                    "sequential",
+                    "parallel",
+                    "unordered",
+                    "onClose")
+            .add(
+                    KnownMethod.RECEIVER,
+                    MethodMatchers.instanceMethod().onDescendantOf(Stream.class.getName()),
+                    "filter",
+                    "distinct",
+                    "sorted",
+                    "peek",
+                    "limit",
+                    "skip",
+                    "takeWhile",
+                    "dropWhile",
+                    "toArray",
+                    "toList",
+                    "min",
+                    "max",
+                    "findFirst",
+                    "findAny")
+            .add(
+                    KnownMethod.RECEIVER,
+                    MethodMatchers.instanceMethod()
+                            .onDescendantOf(Throwable.class.getName())
+                            .namedAnyOf("getMessage", "getLocalizedMessage")
+                            .withNoParameters(),
+                    "getMessage",
+                    "getLocalizedMessage")
+            .add(KnownMethod.RECEIVER, unboxing(Boolean.class, "booleanValue"), "booleanValue")
+            .add(KnownMethod.RECEIVER, unboxing(Integer.class, "intValue"), "intValue")
+            .add(KnownMethod.RECEIVER, unboxing(Byte.class, "byteValue"), "byteValue")
+            .add(KnownMethod.RECEIVER, unboxing(Character.class, "charValue"), "charValue")
+            .add(KnownMethod.RECEIVER, unboxing(Double.class, "doubleValue"), "doubleValue")
+            .add(KnownMethod.RECEIVER, unboxing(Float.class, "floatValue"), "floatValue")
+            .add(KnownMethod.RECEIVER, unboxing(Long.class, "longValue"), "longValue")
+            .add(KnownMethod.RECEIVER, unboxing(Short.class, "shortValue"), "shortValue")
+            .add(
+                    KnownMethod.FIRST_ARG,
+                    MethodMatchers.staticMethod().onClass(Objects.class.getName()),
+                    "requireNonNull")
+            .add(
+                    KnownMethod.FIRST_ARG,
+                    MethodMatchers.staticMethod().onClass("com.google.common.base.Preconditions"),
+                    "checkNotNull")
+            .add(
+                    KnownMethod.FIRST_ARG,
+                    MethodMatchers.staticMethod().onClass("com.palantir.logsafe.Preconditions"),
+                    "checkNotNull",
+                    "checkArgumentNotNull")
+            .build();
+
+    private static Matcher<ExpressionTree> boxing(Class<?> boxedType, String primitiveType) {
+        return MethodMatchers.staticMethod()
+                .onClass(boxedType.getName())
+                .named("valueOf")
+                .withParameters(primitiveType);
+    }
+
+    private static Matcher<ExpressionTree> unboxing(Class<?> boxedType, String methodName) {
+        return MethodMatchers.instanceMethod()
+                .onExactClass(boxedType.getName())
+                .named(methodName)
+                .withNoParameters();
+    }
 
     private VisitorState state;
     private final Set<VarSymbol> traversed = new HashSet<>();
@@ -926,6 +939,19 @@ public final class SafetyPropagationTransfer implements ForwardTransferFunction<
         }
     }
 
+    /**
+     * Analyzes the method, lambda or initializer at the given path, which must be in the compilation unit of the
+     * current {@link VisitorState}.
+     */
+    Analysis<Safety, AccessPathStore<Safety>, SafetyPropagationTransfer> analyze(TreePath bodyPath) {
+        JavacProcessingEnvironment javacEnv = JavacProcessingEnvironment.instance(state.context);
+        ControlFlowGraph cfg = CFGBuilder.build(bodyPath, createAst(bodyPath), false, false, javacEnv);
+        Analysis<Safety, AccessPathStore<Safety>, SafetyPropagationTransfer> analysis =
+                new ForwardAnalysisImpl<>(this);
+        analysis.performAnalysis(cfg);
+        return analysis;
+    }
+
     private static UnderlyingAST createAst(TreePath path) {
         Tree tree = path.getLeaf();
         ClassTree enclosingClass = TreePathUtil.enclosingClass(path);
@@ -1190,15 +1216,16 @@ public final class SafetyPropagationTransfer implements ForwardTransferFunction<
     @Override
     public TransferResult<Safety, AccessPathStore<Safety>> visitMethodInvocation(
             MethodInvocationNode node, TransferInput<Safety, AccessPathStore<Safety>> input) {
+        KnownMethod knownMethod = KNOWN_METHODS.match(node.getTree(), state);
         Safety methodSymbolSafety = getMethodSymbolSafety(node, input);
-        Safety knownMethodSafety = getKnownMethodSafety(node, input);
+        Safety knownMethodSafety = getKnownMethodSafety(knownMethod, node, input);
         Safety result = Safety.mergeAssumingUnknownIsSame(methodSymbolSafety, knownMethodSafety);
-        if (MUTABLE_BUILDER_METHODS.matches(node.getTree(), state)) {
+        if (knownMethod == KnownMethod.MUTABLE_BUILDER) {
             ReadableUpdates updates = new ReadableUpdates();
             Node current = node.getTarget().getReceiver();
             while (current instanceof MethodInvocationNode) {
                 MethodInvocationNode currentInvocation = (MethodInvocationNode) current;
-                if (MUTABLE_BUILDER_METHODS.matches(currentInvocation.getTree(), state)) {
+                if (KNOWN_METHODS.match(currentInvocation.getTree(), state) == KnownMethod.MUTABLE_BUILDER) {
                     current = currentInvocation.getTarget().getReceiver();
                 } else {
                     break;
@@ -1212,22 +1239,24 @@ public final class SafetyPropagationTransfer implements ForwardTransferFunction<
     }
 
     private Safety getKnownMethodSafety(
-            MethodInvocationNode node, TransferInput<Safety, AccessPathStore<Safety>> input) {
-        if (RETURNS_SAFETY_OF_ARGS_AND_RECEIVER.matches(node.getTree(), state)) {
+            @Nullable KnownMethod knownMethod,
+            MethodInvocationNode node,
+            TransferInput<Safety, AccessPathStore<Safety>> input) {
+        if (knownMethod == KnownMethod.MUTABLE_BUILDER || knownMethod == KnownMethod.ARGS_AND_RECEIVER) {
             Safety safety = getValueOfSubNode(input, node.getTarget().getReceiver());
             for (Node argument : node.getArguments()) {
                 safety = safety.leastUpperBound(getValueOfSubNode(input, argument));
             }
             return safety;
-        } else if (RETURNS_SAFETY_COMBINATION_OF_ARGS.matches(node.getTree(), state)) {
+        } else if (knownMethod == KnownMethod.COMBINATION_OF_ARGS) {
             Safety safety = Safety.SAFE;
             for (Node argument : node.getArguments()) {
                 safety = safety.leastUpperBound(getValueOfSubNode(input, argument));
             }
             return safety;
-        } else if (RETURNS_SAFETY_OF_RECEIVER.matches(node.getTree(), state)) {
+        } else if (knownMethod == KnownMethod.RECEIVER) {
             return getValueOfSubNode(input, node.getTarget().getReceiver());
-        } else if (RETURNS_SAFETY_OF_FIRST_ARG.matches(node.getTree(), state)) {
+        } else if (knownMethod == KnownMethod.FIRST_ARG) {
             return getValueOfSubNode(input, node.getArguments().get(0));
         }
         return Safety.UNKNOWN;
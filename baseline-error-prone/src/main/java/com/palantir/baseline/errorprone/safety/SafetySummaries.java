@@ -0,0 +1,99 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.errorprone.safety;
+
+import com.google.errorprone.VisitorState;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.util.Context;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLConnection;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.tools.JavaFileObject;
+
+/**
+ * The {@link SafetySummary safety summaries} of the classpath entries of the current compilation, loaded as symbols of
+ * each entry are looked up. Entries without a summary, such as the modules of the JDK, are only checked once.
+ */
+final class SafetySummaries {
+    private static final Context.Key<SafetySummaries> SAFETY_SUMMARIES = new Context.Key<>();
+
+    private final Map<String, SafetySummary> summariesByRoot = new HashMap<>();
+
+    static SafetySummaries instance(Context context) {
+        SafetySummaries instance = context.get(SAFETY_SUMMARIES);
+        if (instance == null) {
+            instance = new SafetySummaries();
+            context.put(SAFETY_SUMMARIES, instance);
+        }
+        return instance;
+    }
+
+    /**
+     * The safety of a symbol loaded from a class file, according to the summary of the classpath entry that contains
+     * it, or null if the symbol wasn't summarized.
+     */
+    @Nullable
+    Safety getSafety(Symbol symbol, VisitorState state) {
+        if (!SafetySummary.isSummarized(symbol)) {
+            return null;
+        }
+        String root = classpathRoot(symbol.enclClass());
+        if (root == null) {
+            return null;
+        }
+        SafetySummary summary = summariesByRoot.get(root);
+        if (summary == null) {
+            summary = load(root);
+            summariesByRoot.put(root, summary);
+        }
+        return summary.getSafety(symbol, state.getTypes());
+    }
+
+    /** The URI of the jar or directory the given class was loaded from, or null if it was compiled from source. */
+    @Nullable
+    private static String classpathRoot(ClassSymbol classSymbol) {
+        if (classSymbol.classfile == null || classSymbol.classfile.getKind() != JavaFileObject.Kind.CLASS) {
+            return null;
+        }
+        String uri = classSymbol.classfile.toUri().toString();
+        String path = classSymbol.flatname.toString().replace('.', '/') + ".class";
+        // e.g. JDK classes read from ct.sym when compiling with --release
+        if (!uri.endsWith(path)) {
+            return null;
+        }
+        return uri.substring(0, uri.length() - path.length());
+    }
+
+    private static SafetySummary load(String root) {
+        try {
+            URLConnection connection = URI.create(root + SafetySummary.RESOURCE).toURL().openConnection();
+            // Don't hold jars open in long-lived compiler daemons once the summary has been read
+            connection.setUseCaches(false);
+            try (InputStream in = connection.getInputStream()) {
+                return SafetySummary.read(in);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // Most classpath entries don't have a summary
+            return SafetySummary.EMPTY;
+        }
+    }
+}
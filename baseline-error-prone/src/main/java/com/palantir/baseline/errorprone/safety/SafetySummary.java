@@ -0,0 +1,160 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.errorprone.safety;
+
+import com.sun.tools.javac.code.Flags;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.code.Type.ArrayType;
+import com.sun.tools.javac.code.Types;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import javax.annotation.Nullable;
+import javax.lang.model.element.ElementKind;
+
+/**
+ * The safety of the public types, methods and method parameters of a module, as computed by
+ * {@link SafetyAnnotations#getSafety(Symbol, com.google.errorprone.VisitorState)} when the module was compiled.
+ * Written to {@link #RESOURCE} by {@link SafetySummaryPlugin}, and read back by {@link SafetySummaries} when the
+ * module is on the classpath of a later compilation.
+ *
+ * <p>Every summarized class is listed, along with the methods and parameters whose safety is known, so the safety of
+ * any other method or parameter of a listed class is {@link Safety#UNKNOWN}.
+ */
+final class SafetySummary {
+    static final String RESOURCE = "META-INF/baseline/safety-summary.txt";
+    static final SafetySummary EMPTY = new SafetySummary(Map.of());
+
+    private static final String HEADER = "# baseline-error-prone safety summary v1";
+
+    private final Map<String, Safety> entries;
+
+    SafetySummary(Map<String, Safety> entries) {
+        this.entries = entries;
+    }
+
+    /** Whether the safety of the given symbol is included in the summary of the module that declares it. */
+    static boolean isSummarized(Symbol symbol) {
+        if (symbol instanceof ClassSymbol) {
+            return isExported(symbol);
+        }
+        if (symbol instanceof MethodSymbol) {
+            return symbol.getKind() == ElementKind.METHOD
+                    && (symbol.flags() & (Flags.SYNTHETIC | Flags.BRIDGE)) == 0
+                    && isExported(symbol)
+                    && isSummarized(symbol.owner);
+        }
+        if (symbol instanceof VarSymbol) {
+            return symbol.getKind() == ElementKind.PARAMETER && isSummarized(symbol.owner);
+        }
+        return false;
+    }
+
+    private static boolean isExported(Symbol symbol) {
+        return (symbol.flags() & (Flags.PUBLIC | Flags.PROTECTED)) != 0;
+    }
+
+    /**
+     * The key of a summarized symbol: the flat name of a class, followed by the name and erased parameter types of a
+     * method, followed by the index of a parameter, e.g. {@code com.palantir.Foo$Bar#baz(java.lang.String,int[])/0}.
+     */
+    static String key(Symbol symbol, Types types) {
+        if (symbol instanceof ClassSymbol) {
+            return ((ClassSymbol) symbol).flatname.toString();
+        }
+        if (symbol instanceof MethodSymbol) {
+            StringBuilder key = new StringBuilder(key(symbol.owner, types))
+                    .append('#')
+                    .append(symbol.name)
+                    .append('(');
+            boolean first = true;
+            for (Type parameterType : types.erasure(symbol.type).getParameterTypes()) {
+                if (!first) {
+                    key.append(',');
+                }
+                appendErasedTypeName(key, parameterType);
+                first = false;
+            }
+            return key.append(')').toString();
+        }
+        MethodSymbol method = (MethodSymbol) symbol.owner;
+        return key(method, types) + '/' + method.getParameters().indexOf(symbol);
+    }
+
+    private static void appendErasedTypeName(StringBuilder key, Type erasedType) {
+        if (erasedType instanceof ArrayType) {
+            appendErasedTypeName(key, ((ArrayType) erasedType).elemtype);
+            key.append("[]");
+        } else {
+            key.append(erasedType.tsym.flatName());
+        }
+    }
+
+    /**
+     * The summarized safety of the given symbol, or null if its class isn't summarized, in which case the safety must
+     * be computed from its annotations and supertypes instead.
+     */
+    @Nullable
+    Safety getSafety(Symbol symbol, Types types) {
+        if (entries.isEmpty() || !entries.containsKey(key(symbol.enclClass(), types))) {
+            return null;
+        }
+        return entries.getOrDefault(key(symbol, types), Safety.UNKNOWN);
+    }
+
+    static void write(SortedMap<String, Safety> entries, Writer writer) throws IOException {
+        writer.write(HEADER);
+        writer.write('\n');
+        for (Map.Entry<String, Safety> entry : entries.entrySet()) {
+            writer.write(entry.getKey());
+            writer.write(' ');
+            writer.write(entry.getValue().name());
+            writer.write('\n');
+        }
+    }
+
+    /** Reads a summary written by {@link #write}, or returns an empty one if it was written in another format. */
+    static SafetySummary read(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        if (!HEADER.equals(reader.readLine())) {
+            return EMPTY;
+        }
+        Map<String, Safety> entries = new HashMap<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int separator = line.lastIndexOf(' ');
+            if (separator > 0) {
+                entries.put(line.substring(0, separator), Safety.valueOf(line.substring(separator + 1)));
+            }
+        }
+        return new SafetySummary(entries);
+    }
+
+    Map<String, Safety> entries() {
+        return entries;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.errorprone.safety;
+
+import com.google.auto.service.AutoService;
+import com.google.errorprone.VisitorState;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.Plugin;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+import com.sun.tools.javac.api.BasicJavacTask;
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.code.Symbol.VarSymbol;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Log;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Writes the {@link SafetySummary} of the classes being compiled to the class output, so that compilations which have
+ * them on their classpath can look up their safety rather than walk their annotations and supertypes again. Enabled
+ * with {@code -Xplugin:BaselineSafetySummary}, with baseline-error-prone on the processor path.
+ *
+ * <p>Gradle's incremental compilation only recompiles the classes affected by a change, so the entries of the other
+ * classes are carried over from the previous summary, as long as their class files still exist.
+ */
+@AutoService(Plugin.class)
+public final class SafetySummaryPlugin implements Plugin {
+    static final String NAME = "BaselineSafetySummary";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void init(JavacTask task, String... _args) {
+        task.addTaskListener(new SummaryWriter(((BasicJavacTask) task).getContext()));
+    }
+
+    private static final class SummaryWriter implements TaskListener {
+        private final Context context;
+        private final SortedMap<String, Safety> entries = new TreeMap<>();
+        private final Set<String> compiledClasses = new HashSet<>();
+
+        @Nullable
+        private VisitorState state;
+
+        SummaryWriter(Context context) {
+            this.context = context;
+        }
+
+        @Override
+        public void finished(TaskEvent event) {
+            if (event.getKind() == TaskEvent.Kind.ANALYZE && event.getTypeElement() != null) {
+                summarize((ClassSymbol) event.getTypeElement());
+            } else if (event.getKind() == TaskEvent.Kind.COMPILATION) {
+                write();
+            }
+        }
+
+        private void summarize(ClassSymbol classSymbol) {
+            if (!compiledClasses.add(classSymbol.flatname.toString())) {
+                return;
+            }
+            if (SafetySummary.isSummarized(classSymbol)) {
+                entries.put(
+                        SafetySummary.key(classSymbol, visitorState().getTypes()),
+                        SafetyAnnotations.getSafety(classSymbol, visitorState()));
+            }
+            for (Symbol member : classSymbol.getEnclosedElements()) {
+                if (member instanceof ClassSymbol) {
+                    summarize((ClassSymbol) member);
+                } else if (member instanceof MethodSymbol && SafetySummary.isSummarized(member)) {
+                    putIfKnown(member);
+                    for (VarSymbol parameter : ((MethodSymbol) member).getParameters()) {
+                        putIfKnown(parameter);
+                    }
+                }
+            }
+        }
+
+        private void putIfKnown(Symbol symbol) {
+            Safety safety = SafetyAnnotations.getSafety(symbol, visitorState());
+            if (safety != Safety.UNKNOWN) {
+                entries.put(SafetySummary.key(symbol, visitorState().getTypes()), safety);
+            }
+        }
+
+        private VisitorState visitorState() {
+            if (state == null) {
+                state = VisitorState.createForUtilityPurposes(context);
+            }
+            return state;
+        }
+
+        private void write() {
+            if (compiledClasses.isEmpty() || Log.instance(context).nerrors > 0) {
+                return;
+            }
+            JavaFileManager fileManager = context.get(JavaFileManager.class);
+            try {
+                SortedMap<String, Safety> summary = new TreeMap<>(entries);
+                Map<String, Boolean> classFileExists = new HashMap<>();
+                for (Map.Entry<String, Safety> entry : previousSummary(fileManager).entries().entrySet()) {
+                    String className = className(entry.getKey());
+                    if (compiledClasses.contains(className)) {
+                        continue;
+                    }
+                    Boolean exists = classFileExists.get(className);
+                    if (exists == null) {
+                        exists = fileManager.getJavaFileForInput(
+                                        StandardLocation.CLASS_OUTPUT, className, JavaFileObject.Kind.CLASS)
+                                != null;
+                        classFileExists.put(className, exists);
+                    }
+                    if (exists) {
+                        summary.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                FileObject output =
+                        fileManager.getFileForOutput(StandardLocation.CLASS_OUTPUT, "", SafetySummary.RESOURCE, null);
+                try (Writer writer = output.openWriter()) {
+                    SafetySummary.write(summary, writer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write " + SafetySummary.RESOURCE, e);
+            }
+        }
+
+        private static SafetySummary previousSummary(JavaFileManager fileManager) throws IOException {
+            FileObject previous =
+                    fileManager.getFileForInput(StandardLocation.CLASS_OUTPUT, "", SafetySummary.RESOURCE);
+            if (previous == null) {
+                return SafetySummary.EMPTY;
+            }
+            try (InputStream in = previous.openInputStream()) {
+                return SafetySummary.read(in);
+            }
+        }
+
+        private static String className(String key) {
+            int methodSeparator = key.indexOf('#');
+            return methodSeparator < 0 ? key : key.substring(0, methodSeparator);
+        }
+    }
+}
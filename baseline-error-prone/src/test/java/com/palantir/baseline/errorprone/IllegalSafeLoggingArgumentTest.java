@@ -2136,6 +2136,91 @@ class IllegalSafeLoggingArgumentTest {
                 .doTest();
     }
 
+    @Test
+    public void testArgumentsInEachKindOfBodyAcrossCompilationUnits() {
+        helper().addSourceLines(
+                        "First.java",
+                        "import com.palantir.logsafe.*;",
+                        "class First {",
+                        "  @Unsafe static final String UNSAFE = System.getProperty(\"unsafe\");",
+                        "  // BUG: Diagnostic contains: Dangerous argument value: arg is 'UNSAFE'",
+                        "  static final Object FIELD = fun(UNSAFE);",
+                        "  {",
+                        "    // BUG: Diagnostic contains: Dangerous argument value: arg is 'UNSAFE'",
+                        "    fun(UNSAFE);",
+                        "  }",
+                        "  void f(@Unsafe String unsafe, @Safe String safe) {",
+                        "    fun(safe);",
+                        "    // BUG: Diagnostic contains: Dangerous argument value: arg is 'UNSAFE'",
+                        "    fun(unsafe);",
+                        "    String copy = safe;",
+                        "    fun(copy);",
+                        "    // BUG: Diagnostic contains: Dangerous argument value: arg is 'UNSAFE'",
+                        "    Runnable runnable = () -> fun(unsafe);",
+                        "    fun(safe);",
+                        "  }",
+                        "  static Object fun(@Safe Object value) {",
+                        "    return value;",
+                        "  }",
+                        "}")
+                .addSourceLines(
+                        "Second.java",
+                        "import com.palantir.logsafe.*;",
+                        "class Second {",
+                        "  void f(@Unsafe String unsafe, @Safe String safe) {",
+                        "    First.fun(safe);",
+                        "    // BUG: Diagnostic contains: Dangerous argument value: arg is 'UNSAFE'",
+                        "    First.fun(unsafe);",
+                        "  }",
+                        "}")
+                .doTest();
+    }
+
+    @Test
+    public void testCachedSafetyIsConsistentAcrossCompilationUnits() {
+        helper().addSourceLines(
+                        "Annotated.java",
+                        "import com.palantir.logsafe.*;",
+                        "interface Annotated {",
+                        "  @Unsafe Object unsafe();",
+                        "}")
+                .addSourceLines(
+                        "Impl.java",
+                        "class Impl implements Annotated {",
+                        "  @Override public Object unsafe() {",
+                        "    return new Object();",
+                        "  }",
+                        "}")
+                .addSourceLines(
+                        "First.java",
+                        "import com.palantir.logsafe.*;",
+                        "import java.util.*;",
+                        "class First {",
+                        "  void f(List<@Unsafe String> unsafe, List<String> unknown, Impl impl) {",
+                        "    // BUG: Diagnostic contains: Dangerous argument value: arg is 'UNSAFE'",
+                        "    fun(unsafe);",
+                        "    fun(unknown);",
+                        "    // BUG: Diagnostic contains: Dangerous argument value: arg is 'UNSAFE'",
+                        "    fun(impl.unsafe());",
+                        "  }",
+                        "  static void fun(@Safe Object value) {}",
+                        "}")
+                .addSourceLines(
+                        "Second.java",
+                        "import com.palantir.logsafe.*;",
+                        "import java.util.*;",
+                        "class Second {",
+                        "  void f(List<String> unknown, List<@Unsafe String> unsafe, Impl impl) {",
+                        "    First.fun(unknown);",
+                        "    // BUG: Diagnostic contains: Dangerous argument value: arg is 'UNSAFE'",
+                        "    First.fun(unsafe);",
+                        "    // BUG: Diagnostic contains: Dangerous argument value: arg is 'UNSAFE'",
+                        "    First.fun(impl.unsafe());",
+                        "  }",
+                        "}")
+                .doTest();
+    }
+
     private CompilationTestHelper helper() {
         return CompilationTestHelper.newInstance(IllegalSafeLoggingArgument.class, getClass());
     }
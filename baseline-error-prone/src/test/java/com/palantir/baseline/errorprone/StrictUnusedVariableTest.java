@@ -169,6 +169,50 @@ public class StrictUnusedVariableTest {
                 .doTest(TestMode.TEXT_MATCH);
     }
 
+    @Test
+    public void removes_unused_params_only_from_matching_invocations() {
+        refactoringTestHelper
+                .addInputLines(
+                        "Test.java",
+                        "class Test {",
+                        "  private int first(int a, int b) { return a; }",
+                        "  private int first(String a) { return a.length(); }",
+                        "  private int second(int a, int b) { return b; }",
+                        "  int run() {",
+                        "    return first(1, 2) + first(\"c\") + second(4, first(5, 6));",
+                        "  }",
+                        "  class Inner {",
+                        "    int run() { return first(7, 8) + second(9, 10); }",
+                        "  }",
+                        "}")
+                .addOutputLines(
+                        "Test.java",
+                        "class Test {",
+                        "  private int first(int a) { return a; }",
+                        "  private int first(String a) { return a.length(); }",
+                        "  private int second(int b) { return b; }",
+                        "  int run() {",
+                        "    return first(1) + first(\"c\") + second(first(5));",
+                        "  }",
+                        "  class Inner {",
+                        "    int run() { return first(7) + second(10); }",
+                        "  }",
+                        "}")
+                .doTest(TestMode.TEXT_MATCH);
+    }
+
+    @Test
+    public void ignores_compilation_units_with_native_methods() {
+        compilationHelper
+                .addSourceLines(
+                        "Test.java",
+                        "class Test {",
+                        "  private void privateMethod(String param) { }",
+                        "  private native void nativeMethod();",
+                        "}")
+                .doTest();
+    }
+
     @Test
     void renames_unused_lambda_params() {
         refactoringTestHelper
@@ -0,0 +1,252 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.errorprone.safety;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.errorprone.CompilationTestHelper;
+import com.palantir.baseline.errorprone.IllegalSafeLoggingArgument;
+import com.sun.source.util.JavacTask;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SafetySummaryTest {
+
+    private static final String CREDENTIALS = String.join(
+            "\n",
+            "package lib;",
+            "import com.palantir.logsafe.DoNotLog;",
+            "public interface Credentials {",
+            "  @DoNotLog String secret();",
+            "}");
+
+    private static final String WIDGET = String.join(
+            "\n",
+            "package lib;",
+            "public class Widget implements Credentials {",
+            "  @Override public String secret() { return \"hunter2\"; }",
+            "  public String name() { return \"widget\"; }",
+            "}");
+
+    private static final String SECRET = String.join(
+            "\n", "package lib;", "import com.palantir.logsafe.DoNotLog;", "@DoNotLog", "public interface Secret {}");
+
+    private static final String TOKEN =
+            String.join("\n", "package lib;", "public final class Token implements Secret {}");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void summary_round_trips() throws IOException {
+        SortedMap<String, Safety> entries = new TreeMap<>();
+        entries.put("com.palantir.Foo", Safety.UNKNOWN);
+        entries.put("com.palantir.Foo$Bar#baz(java.lang.String,int[])", Safety.DO_NOT_LOG);
+        entries.put("com.palantir.Foo$Bar#baz(java.lang.String,int[])/0", Safety.SAFE);
+        entries.put("com.palantir.Foo$Bar", Safety.UNSAFE);
+        StringWriter writer = new StringWriter();
+        SafetySummary.write(entries, writer);
+
+        assertThat(SafetySummary.read(inputStream(writer.toString())).entries()).isEqualTo(entries);
+    }
+
+    @Test
+    void summary_in_another_format_is_empty() throws IOException {
+        String previousVersion = "# baseline-error-prone safety summary v0\ncom.palantir.Foo SAFE\n";
+        assertThat(SafetySummary.read(inputStream(previousVersion)).entries()).isEmpty();
+        assertThat(SafetySummary.read(inputStream("")).entries()).isEmpty();
+    }
+
+    @Test
+    void summarizes_inherited_safety() throws IOException {
+        Path library =
+                compileLibrary(Map.of("Credentials", CREDENTIALS, "Widget", WIDGET, "Secret", SECRET, "Token", TOKEN));
+
+        assertThat(readSummary(library).entries())
+                .containsEntry("lib.Credentials", Safety.UNKNOWN)
+                .containsEntry("lib.Credentials#secret()", Safety.DO_NOT_LOG)
+                .containsEntry("lib.Widget", Safety.UNKNOWN)
+                .containsEntry("lib.Widget#secret()", Safety.DO_NOT_LOG)
+                .containsEntry("lib.Secret", Safety.DO_NOT_LOG)
+                .containsEntry("lib.Token", Safety.DO_NOT_LOG)
+                .doesNotContainKey("lib.Widget#name()");
+    }
+
+    @Test
+    void summarized_method_safety_is_used_from_the_classpath() throws IOException {
+        Path library = compileLibrary(Map.of("Credentials", CREDENTIALS, "Widget", WIDGET));
+
+        consumer(library)
+                .addSourceLines(
+                        "Test.java",
+                        "import com.palantir.logsafe.SafeArg;",
+                        "import lib.Widget;",
+                        "class Test {",
+                        "  void f(Widget widget) {",
+                        "    // BUG: Diagnostic contains: Dangerous argument value: arg is 'DO_NOT_LOG'",
+                        "    SafeArg.of(\"secret\", widget.secret());",
+                        "    SafeArg.of(\"name\", widget.name());",
+                        "  }",
+                        "}")
+                .doTest();
+
+        // Widget is still listed, so its methods without an entry are unknown rather than inherited again
+        SortedMap<String, Safety> entries = new TreeMap<>(readSummary(library).entries());
+        assertThat(entries.remove("lib.Widget#secret()")).isEqualTo(Safety.DO_NOT_LOG);
+        writeSummary(library, entries);
+
+        consumer(library)
+                .addSourceLines(
+                        "Test.java",
+                        "import com.palantir.logsafe.SafeArg;",
+                        "import lib.Widget;",
+                        "class Test {",
+                        "  void f(Widget widget) {",
+                        "    SafeArg.of(\"secret\", widget.secret());",
+                        "  }",
+                        "}")
+                .doTest();
+    }
+
+    @Test
+    void summarized_type_safety_is_used_from_the_classpath() throws IOException {
+        Path library = compileLibrary(Map.of("Secret", SECRET, "Token", TOKEN));
+
+        consumer(library)
+                .addSourceLines(
+                        "Test.java",
+                        "import com.palantir.logsafe.SafeArg;",
+                        "import lib.Token;",
+                        "class Test {",
+                        "  void f(Token token) {",
+                        "    // BUG: Diagnostic contains: Dangerous argument value: arg is 'DO_NOT_LOG'",
+                        "    SafeArg.of(\"token\", token);",
+                        "  }",
+                        "}")
+                .doTest();
+
+        // The summary takes precedence over the annotations of the supertypes of Token
+        SortedMap<String, Safety> entries = new TreeMap<>(readSummary(library).entries());
+        entries.put("lib.Token", Safety.SAFE);
+        writeSummary(library, entries);
+
+        consumer(library)
+                .addSourceLines(
+                        "Test.java",
+                        "import com.palantir.logsafe.SafeArg;",
+                        "import lib.Token;",
+                        "class Test {",
+                        "  void f(Token token) {",
+                        "    SafeArg.of(\"token\", token);",
+                        "  }",
+                        "}")
+                .doTest();
+    }
+
+    @Test
+    void carries_over_entries_of_classes_not_recompiled() throws IOException {
+        Path library =
+                compileLibrary(Map.of("Credentials", CREDENTIALS, "Widget", WIDGET, "Secret", SECRET, "Token", TOKEN));
+
+        // Gradle only recompiles the classes affected by a change, with the previous output on the classpath
+        compile(library, Map.of("Token", TOKEN.replace("public final class Token", "public class Token")));
+        assertThat(readSummary(library).entries())
+                .containsEntry("lib.Widget#secret()", Safety.DO_NOT_LOG)
+                .containsEntry("lib.Secret", Safety.DO_NOT_LOG)
+                .containsEntry("lib.Token", Safety.DO_NOT_LOG);
+
+        // Classes whose class files were removed, e.g. because their source was deleted, are dropped
+        Files.delete(library.resolve("lib/Widget.class"));
+        compile(library, Map.of("Token", TOKEN));
+        assertThat(readSummary(library).entries())
+                .doesNotContainKeys("lib.Widget", "lib.Widget#secret()")
+                .containsEntry("lib.Credentials#secret()", Safety.DO_NOT_LOG)
+                .containsEntry("lib.Token", Safety.DO_NOT_LOG);
+    }
+
+    private Path compileLibrary(Map<String, String> sources) throws IOException {
+        Path output = Files.createDirectories(tempDir.resolve("classes"));
+        compile(output, sources);
+        return output;
+    }
+
+    /** Compiles the given classes of package {@code lib} into the output directory, as Gradle would. */
+    private void compile(Path output, Map<String, String> sources) throws IOException {
+        Path sourceDir = Files.createDirectories(tempDir.resolve("src/lib"));
+        List<Path> sourceFiles = new ArrayList<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            sourceFiles.add(Files.writeString(sourceDir.resolve(source.getKey() + ".java"), source.getValue()));
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            JavacTask task = (JavacTask) compiler.getTask(
+                    null,
+                    fileManager,
+                    diagnostics,
+                    List.of("-d", output.toString(), "-classpath", classpath(output)),
+                    null,
+                    fileManager.getJavaFileObjectsFromPaths(sourceFiles));
+            new SafetySummaryPlugin().init(task);
+            assertThat(task.call()).as("%s", diagnostics.getDiagnostics()).isTrue();
+        }
+    }
+
+    private static CompilationTestHelper consumer(Path library) {
+        return CompilationTestHelper.newInstance(IllegalSafeLoggingArgument.class, SafetySummaryTest.class)
+                .setArgs("-classpath", classpath(library));
+    }
+
+    private static String classpath(Path library) {
+        return library + File.pathSeparator + System.getProperty("java.class.path");
+    }
+
+    private static SafetySummary readSummary(Path library) throws IOException {
+        try (InputStream in = Files.newInputStream(library.resolve(SafetySummary.RESOURCE))) {
+            return SafetySummary.read(in);
+        }
+    }
+
+    private static void writeSummary(Path library, SortedMap<String, Safety> entries) throws IOException {
+        StringWriter writer = new StringWriter();
+        SafetySummary.write(entries, writer);
+        Files.writeString(library.resolve(SafetySummary.RESOURCE), writer.toString());
+    }
+
+    private static InputStream inputStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
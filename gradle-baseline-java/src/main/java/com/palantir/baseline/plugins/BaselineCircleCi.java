@@ -18,6 +18,9 @@ package com.palantir.baseline.plugins;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.palantir.baseline.plugins.testing.CiNodeTestSplit;
 import com.palantir.gradle.utils.environmentvariables.EnvironmentVariables;
 import java.io.File;
 import java.io.IOException;
@@ -28,6 +31,8 @@ import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
@@ -43,6 +48,7 @@ public final class BaselineCircleCi implements Plugin<Project> {
 
         configurePluginsForReports(project, environmentVariables);
         configurePluginsForArtifacts(project, environmentVariables);
+        configureTestSplitting(project, environmentVariables);
         Preconditions.checkState(
                 !project.getName().equals("project"),
                 "Please specify rootProject.name in your settings.gradle, otherwise CircleCI's"
@@ -97,6 +103,38 @@ public final class BaselineCircleCi implements Plugin<Project> {
                 }));
     }
 
+    private void configureTestSplitting(Project project, EnvironmentVariables environmentVariables) {
+        if (!Objects.equals("true", project.findProperty("com.palantir.baseline.split-tests-across-nodes"))) {
+            return;
+        }
+
+        String nodeTotal = environmentVariables
+                .envVarOrFromTestingProperty("CIRCLE_NODE_TOTAL")
+                .getOrNull();
+        String nodeIndex = environmentVariables
+                .envVarOrFromTestingProperty("CIRCLE_NODE_INDEX")
+                .getOrNull();
+        if (nodeTotal == null || nodeIndex == null || Integer.parseInt(nodeTotal) <= 1) {
+            project.getLogger().info("Not running on several CircleCI nodes, not splitting tests");
+            return;
+        }
+
+        Optional<File> timingsDir = Optional.ofNullable(project.findProperty("com.palantir.baseline.test-timings-dir"))
+                .map(project::file)
+                .or(() -> Optional.ofNullable(environmentVariables
+                                .envVarOrFromTestingProperty("CIRCLE_TEST_REPORTS")
+                                .getOrNull())
+                        .map(reportsDir -> Paths.get(reportsDir, "junit").toFile()));
+
+        // Only read the reports once test tasks are configured, and only once for the whole build
+        Supplier<CiNodeTestSplit> testSplit = Suppliers.memoize(() ->
+                CiNodeTestSplit.fromReports(timingsDir, Integer.parseInt(nodeIndex), Integer.parseInt(nodeTotal)));
+        project.getRootProject()
+                .allprojects(proj -> proj.getTasks()
+                        .withType(Test.class)
+                        .configureEach(test -> testSplit.get().configure(test)));
+    }
+
     private static File junitPath(String basePath, String testPath) {
         Path junitReportsDir = Paths.get(basePath, "junit");
         for (String component : Splitter.on(":").split(testPath.substring(1))) {
@@ -0,0 +1,367 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.gradle.api.Action;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.JavaExec;
+import org.gradle.api.tasks.testing.Test;
+import org.gradle.jvm.toolchain.JavaInstallationMetadata;
+import org.gradle.jvm.toolchain.JavaLauncher;
+import org.gradle.process.CommandLineArgumentProvider;
+import org.gradle.process.JavaForkOptions;
+
+/**
+ * Speeds up the startup of {@link Test} and {@link JavaExec} JVMs by loading the classes of their classpath from an
+ * application class data sharing (AppCDS) archive, rather than parsing and verifying them again in every fork.
+ *
+ * <p>The JVM only uses an archive of the jars at the front of its classpath, so only that prefix of the classpath is
+ * archived and the order of the classpath is left alone. Once the jars or JDK of a task change, its next run records
+ * the classes its JVMs load with {@code -XX:DumpLoadedClassList}, and an archive of just those classes is dumped after
+ * the task finished. Later runs then start their JVMs with that archive.
+ */
+public final class BaselineClassDataSharing implements Plugin<Project> {
+    private static final Logger log = Logging.getLogger(BaselineClassDataSharing.class);
+
+    // The first release where application classes can be archived from a class list on every platform
+    private static final int MIN_JAVA_VERSION = 11;
+
+    @Override
+    public void apply(Project project) {
+        project.getTasks().withType(Test.class).configureEach(test -> testWorkerClasspath(project)
+                .ifPresent(workerClasspath -> configureSharedArchive(
+                        project, test, test.getJavaLauncher(), workerClasspath, test.getClasspath())));
+        project.getTasks()
+                .withType(JavaExec.class)
+                .configureEach(javaExec -> configureSharedArchive(
+                        project, javaExec, javaExec.getJavaLauncher(), ImmutableList.of(), javaExec.getClasspath()));
+    }
+
+    private static <T extends Task & JavaForkOptions> void configureSharedArchive(
+            Project project,
+            T task,
+            Provider<JavaLauncher> javaLauncher,
+            List<File> classpathPrefix,
+            FileCollection classpath) {
+        File directory = project.getLayout()
+                .getBuildDirectory()
+                .dir("baseline-class-data-sharing/" + task.getName())
+                .get()
+                .getAsFile();
+        SharedArchive sharedArchive = new SharedArchive(directory, javaLauncher, classpathPrefix, classpath);
+        task.doFirst(new CheckSharedArchiveAction(sharedArchive));
+        task.getJvmArgumentProviders().add(new SharedArchiveArgumentProvider(sharedArchive));
+        task.doLast(new DumpSharedArchiveAction(sharedArchive));
+    }
+
+    /**
+     * Gradle starts test workers with its worker jar in front of the test runtime classpath, so the archive of a test
+     * task has to start with the same jar. Gradle has no public API for this jar, so test JVMs run without an archive
+     * if the internal one isn't available.
+     */
+    @SuppressWarnings("IllegalImports")
+    private static Optional<List<File>> testWorkerClasspath(Project project) {
+        try {
+            return Optional.of(((org.gradle.api.internal.project.ProjectInternal) project)
+                    .getServices()
+                    .get(org.gradle.api.internal.ClassPathRegistry.class)
+                    .getClassPath("WORKER_MAIN")
+                    .getAsFiles());
+        } catch (RuntimeException | LinkageError e) {
+            log.info("Unable to find the test worker classpath, test JVMs will not use a shared archive", e);
+            return Optional.empty();
+        }
+    }
+
+    private static final class SharedArchive {
+        private final File directory;
+        private final Provider<JavaLauncher> javaLauncher;
+        private final List<File> classpathPrefix;
+        private final FileCollection classpath;
+
+        SharedArchive(
+                File directory,
+                Provider<JavaLauncher> javaLauncher,
+                List<File> classpathPrefix,
+                FileCollection classpath) {
+            this.directory = directory;
+            this.javaLauncher = javaLauncher;
+            this.classpathPrefix = classpathPrefix;
+            this.classpath = classpath;
+        }
+
+        File archiveFile() {
+            return new File(directory, "classes.jsa");
+        }
+
+        private File keyFile() {
+            return new File(directory, "classes.key");
+        }
+
+        /** Class lists written by each JVM of a run that records the classes to archive, named after its pid. */
+        private File classListFile() {
+            return new File(directory, "loaded-%p.classlist");
+        }
+
+        /**
+         * Deletes the archive and the classes recorded for it once the jars at the front of the classpath or the JDK
+         * change, so that this run records the classes to archive again.
+         */
+        void deleteIfOutOfDate() {
+            if (!isSupported()) {
+                return;
+            }
+            if (keyFile().isFile() && key().equals(read(keyFile()))) {
+                log.debug("Shared archive {} is up to date", archiveFile());
+                return;
+            }
+            delete(archiveFile());
+            delete(keyFile());
+            classLists().forEach(SharedArchive::delete);
+        }
+
+        /** The arguments to start a JVM with, either using the archive or recording the classes to put in it. */
+        List<String> jvmArguments() {
+            if (archiveFile().isFile()) {
+                // Xshare:auto makes the JVM silently start without the archive if it doesn't match after all
+                return ImmutableList.of("-Xshare:auto", "-XX:SharedArchiveFile=" + archiveFile().getAbsolutePath());
+            }
+            // A key without an archive means that dumping failed for the current inputs
+            if (keyFile().isFile() || !isSupported() || archivedJars().isEmpty()) {
+                return ImmutableList.of();
+            }
+            directory.mkdirs();
+            return ImmutableList.of("-XX:DumpLoadedClassList=" + classListFile().getAbsolutePath());
+        }
+
+        /** Dumps an archive of the classes recorded by this run, if it recorded any. */
+        void dumpIfRecorded() {
+            List<File> classLists = classLists();
+            if (archiveFile().isFile() || keyFile().isFile() || classLists.isEmpty()) {
+                return;
+            }
+
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            List<File> jars = archivedJars();
+            boolean dumped = dump(javaLauncher.get(), jars, loadedClasses(classLists));
+            // The key is written even if the dump failed, so a failing dump is only retried once the inputs change
+            write(keyFile(), key());
+            classLists.forEach(SharedArchive::delete);
+            if (dumped) {
+                log.info(
+                        "Dumped shared archive of {} jars to {} in {}ms",
+                        jars.size(),
+                        archiveFile(),
+                        stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            }
+        }
+
+        private boolean isSupported() {
+            return javaLauncher.get().getMetadata().getLanguageVersion().asInt() >= MIN_JAVA_VERSION;
+        }
+
+        private String key() {
+            return key(javaLauncher.get().getMetadata(), archivedJars());
+        }
+
+        /** The jars at the front of the classpath the JVM will be started with. */
+        private List<File> archivedJars() {
+            List<File> jars = new ArrayList<>(classpathPrefix);
+            for (File file : classpath) {
+                if (!isJar(file)) {
+                    break;
+                }
+                jars.add(file);
+            }
+            return jars;
+        }
+
+        private List<File> classLists() {
+            File[] files =
+                    directory.listFiles((_dir, name) -> name.startsWith("loaded-") && name.endsWith(".classlist"));
+            return files == null ? ImmutableList.of() : ImmutableList.copyOf(files);
+        }
+
+        /**
+         * The classes loaded by any of the recorded JVMs. Only plain class names are kept, as the other lines of a
+         * class list refer to ids that are specific to the JVM that wrote it.
+         */
+        private static Set<String> loadedClasses(List<File> classLists) {
+            Set<String> classes = new LinkedHashSet<>();
+            for (File classList : classLists) {
+                for (String line : readLines(classList)) {
+                    if (line.isEmpty() || line.startsWith("#") || line.startsWith("@") || line.contains(" source: ")) {
+                        continue;
+                    }
+                    int space = line.indexOf(' ');
+                    classes.add(space < 0 ? line : line.substring(0, space));
+                }
+            }
+            return classes;
+        }
+
+        private boolean dump(JavaLauncher launcher, List<File> jars, Set<String> classes) {
+            File classList = new File(directory, "classes.classlist");
+            File argumentsFile = new File(directory, "classes.args");
+            File logFile = new File(directory, "dump.log");
+            // Classes from the rest of the classpath can't be found, and are left out of the archive
+            write(classList, String.join("\n", classes));
+
+            // Classpaths can exceed the maximum command line length, so pass it through an argument file
+            String jarPaths = jars.stream().map(File::getAbsolutePath).collect(Collectors.joining(File.pathSeparator));
+            write(argumentsFile, "-cp " + quote(jarPaths));
+
+            ProcessBuilder processBuilder = new ProcessBuilder(
+                            launcher.getExecutablePath().getAsFile().getAbsolutePath(),
+                            "-Xshare:dump",
+                            "-XX:SharedClassListFile=" + classList.getAbsolutePath(),
+                            "-XX:SharedArchiveFile=" + archiveFile().getAbsolutePath(),
+                            "@" + argumentsFile.getAbsolutePath())
+                    .redirectErrorStream(true)
+                    .redirectOutput(logFile);
+            try {
+                int exitCode = processBuilder.start().waitFor();
+                if (exitCode != 0 || !archiveFile().isFile()) {
+                    log.warn(
+                            "Failed to dump shared archive {}, JVMs will start without it. See {} for details.",
+                            archiveFile(),
+                            logFile);
+                    delete(archiveFile());
+                    return false;
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to dump shared archive " + archiveFile(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while dumping shared archive " + archiveFile(), e);
+            }
+        }
+
+        private static String key(JavaInstallationMetadata jdk, List<File> jars) {
+            Hasher hasher = Hashing.sha256()
+                    .newHasher()
+                    .putString(jdk.getJavaRuntimeVersion(), StandardCharsets.UTF_8)
+                    .putString(jdk.getInstallationPath().getAsFile().getAbsolutePath(), StandardCharsets.UTF_8);
+            // The JVM itself checks the size and modification time of every archived jar, so the key does too
+            for (File jar : jars) {
+                hasher.putString(jar.getAbsolutePath(), StandardCharsets.UTF_8)
+                        .putLong(jar.length())
+                        .putLong(jar.lastModified());
+            }
+            return hasher.hash().toString();
+        }
+
+        private static String quote(String path) {
+            return '"' + path.replace("\\", "\\\\") + '"';
+        }
+
+        private static List<String> readLines(File file) {
+            try {
+                return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + file, e);
+            }
+        }
+
+        private static String read(File file) {
+            return String.join("\n", readLines(file));
+        }
+
+        private static void write(File file, String content) {
+            try {
+                Files.writeString(file.toPath(), content, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write " + file, e);
+            }
+        }
+
+        private static void delete(File file) {
+            try {
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete " + file, e);
+            }
+        }
+    }
+
+    private static boolean isJar(File file) {
+        return file.getName().endsWith(".jar") && file.isFile();
+    }
+
+    // Use classes rather than lambdas, as tasks with lambda actions or inputs cannot be cached
+    private static final class CheckSharedArchiveAction implements Action<Task> {
+        private final SharedArchive sharedArchive;
+
+        CheckSharedArchiveAction(SharedArchive sharedArchive) {
+            this.sharedArchive = sharedArchive;
+        }
+
+        @Override
+        public void execute(Task _task) {
+            sharedArchive.deleteIfOutOfDate();
+        }
+    }
+
+    private static final class DumpSharedArchiveAction implements Action<Task> {
+        private final SharedArchive sharedArchive;
+
+        DumpSharedArchiveAction(SharedArchive sharedArchive) {
+            this.sharedArchive = sharedArchive;
+        }
+
+        @Override
+        public void execute(Task _task) {
+            sharedArchive.dumpIfRecorded();
+        }
+    }
+
+    private static final class SharedArchiveArgumentProvider implements CommandLineArgumentProvider {
+        private final SharedArchive sharedArchive;
+
+        SharedArchiveArgumentProvider(SharedArchive sharedArchive) {
+            this.sharedArchive = sharedArchive;
+        }
+
+        @Override
+        public Iterable<String> asArguments() {
+            return sharedArchive.jvmArguments();
+        }
+    }
+}
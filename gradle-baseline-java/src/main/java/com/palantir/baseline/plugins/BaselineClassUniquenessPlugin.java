@@ -16,8 +16,11 @@
 
 package com.palantir.baseline.plugins;
 
+import com.palantir.baseline.services.ClassUniquenessAnalysisCache;
 import com.palantir.baseline.services.JarClassHasher;
 import com.palantir.baseline.tasks.CheckClassUniquenessLockTask;
+import java.io.File;
+import java.util.Optional;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.plugins.JavaPlugin;
@@ -31,20 +34,67 @@ import org.gradle.language.base.plugins.LifecycleBasePlugin;
  * identical (and therefore safely interchangeable).
  *
  * <p>The task only fails if it finds classes which have the same name but different implementations.
+ *
+ * <p>Class hashes are stored in a persistent index in the Gradle user home, so each jar only needs to be hashed once
+ * per machine. This can be disabled by setting {@code com.palantir.baseline-class-uniqueness.persistent-index=false},
+ * and its size (default 512MB) is limited by {@code com.palantir.baseline-class-uniqueness.persistent-index-max-mb}.
+ *
+ * <p>Jars are hashed concurrently on a pool shared by every project in the build, using up to as many threads as Gradle
+ * has workers. This can be changed by setting {@code com.palantir.baseline-class-uniqueness.parallelism}, where a
+ * value of {@code 1} hashes jars sequentially.
+ *
+ * <p>Setting {@code com.palantir.baseline-class-uniqueness.fast-hashing=true} compares classes using the CRC-32 and
+ * size from each jar's central directory, and only decompresses classes whose fingerprints match in several jars.
+ *
+ * <p>Setting {@code com.palantir.baseline-class-uniqueness.aggregate=true} analyzes each distinct classpath once per
+ * build and shares the result between all projects which resolve it, which helps builds where many subprojects have
+ * the same runtime classpath.
  */
 public class BaselineClassUniquenessPlugin extends AbstractBaselinePlugin {
+    private static final String PERSISTENT_INDEX_PROPERTY = "com.palantir.baseline-class-uniqueness.persistent-index";
+    private static final String PERSISTENT_INDEX_MAX_MB_PROPERTY =
+            "com.palantir.baseline-class-uniqueness.persistent-index-max-mb";
+    private static final long DEFAULT_PERSISTENT_INDEX_MAX_MB = 512;
+    private static final String PARALLELISM_PROPERTY = "com.palantir.baseline-class-uniqueness.parallelism";
+    private static final String FAST_HASHING_PROPERTY = "com.palantir.baseline-class-uniqueness.fast-hashing";
+    private static final String AGGREGATE_PROPERTY = "com.palantir.baseline-class-uniqueness.aggregate";
+
     @Override
     public final void apply(Project project) {
         Provider<JarClassHasher> jarClassHasher = project.getGradle()
                 .getSharedServices()
-                .registerIfAbsent("jarClassHasher", JarClassHasher.class, _spec -> {});
+                .registerIfAbsent("jarClassHasher", JarClassHasher.class, spec -> {
+                    if (!"false".equals(project.findProperty(PERSISTENT_INDEX_PROPERTY))) {
+                        spec.getParameters()
+                                .getIndexDirectory()
+                                .set(new File(
+                                        project.getGradle().getGradleUserHomeDir(),
+                                        "caches/baseline-class-uniqueness/v1"));
+                    }
+                    long maxIndexSizeMb = Optional.ofNullable(project.findProperty(PERSISTENT_INDEX_MAX_MB_PROPERTY))
+                            .map(value -> Long.parseLong(value.toString()))
+                            .orElse(DEFAULT_PERSISTENT_INDEX_MAX_MB);
+                    spec.getParameters().getMaxIndexSizeBytes().set(maxIndexSizeMb * 1024 * 1024);
+                    spec.getParameters().getParallelism().set(parallelism(project));
+                });
         TaskProvider<CheckClassUniquenessLockTask> checkClassUniqueness = project.getTasks()
                 .register("checkClassUniqueness", CheckClassUniquenessLockTask.class, task -> {
                     task.jarClassHasher.set(jarClassHasher);
                     task.shouldFix.convention(
                             project.getGradle().getStartParameter().isWriteDependencyLocks());
+                    task.fastHashing.convention(
+                            project.provider(() -> "true".equals(project.findProperty(FAST_HASHING_PROPERTY))));
                     task.usesService(jarClassHasher);
                 });
+        if ("true".equals(project.findProperty(AGGREGATE_PROPERTY))) {
+            Provider<ClassUniquenessAnalysisCache> analysisCache = project.getGradle()
+                    .getSharedServices()
+                    .registerIfAbsent("classUniquenessAnalysisCache", ClassUniquenessAnalysisCache.class, _spec -> {});
+            checkClassUniqueness.configure(task -> {
+                task.analysisCache.set(analysisCache);
+                task.usesService(analysisCache);
+            });
+        }
         project.getPlugins().apply(LifecycleBasePlugin.class);
         project.getTasks().named(LifecycleBasePlugin.CHECK_TASK_NAME).configure(t -> t.dependsOn(checkClassUniqueness));
 
@@ -52,13 +102,16 @@ public class BaselineClassUniquenessPlugin extends AbstractBaselinePlugin {
             checkClassUniqueness.configure(t -> {
                 Configuration runtimeClasspath =
                         project.getConfigurations().getByName(JavaPlugin.RUNTIME_CLASSPATH_CONFIGURATION_NAME);
-                t.configurations.add(runtimeClasspath);
-
                 // runtimeClasspath might contain jars which are 'builtBy' other tasks, for example conjure-generated
-                // objects. This dependsOn ensures that all those pre-requisite tasks get invoked first, otherwise
-                // we see log.info warnings about missing jars e.g. 'Skipping non-existent jar foo-api-objects.jar'
-                t.dependsOn(runtimeClasspath);
+                // objects. The task's classpath carries those task dependencies, so they are invoked first.
+                t.getConfigurations().add(runtimeClasspath);
             });
         });
     }
+
+    private static int parallelism(Project project) {
+        return Optional.ofNullable(project.findProperty(PARALLELISM_PROPERTY))
+                .map(value -> Integer.parseInt(value.toString()))
+                .orElseGet(() -> project.getGradle().getStartParameter().getMaxWorkerCount());
+    }
 }
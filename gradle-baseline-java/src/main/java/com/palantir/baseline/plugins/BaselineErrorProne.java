@@ -21,14 +21,18 @@ import com.palantir.gradle.suppressibleerrorprone.ConditionalPatchCheck;
 import com.palantir.gradle.suppressibleerrorprone.IfModuleIsUsed;
 import com.palantir.gradle.suppressibleerrorprone.SuppressibleErrorProneExtension;
 import com.palantir.gradle.suppressibleerrorprone.SuppressibleErrorPronePlugin;
+import java.util.Objects;
 import java.util.Optional;
 import net.ltgt.gradle.errorprone.ErrorProneOptions;
 import net.ltgt.gradle.errorprone.ErrorPronePlugin;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.tasks.compile.JavaCompile;
 
 public final class BaselineErrorProne implements Plugin<Project> {
     public static final String EXTENSION_NAME = "baselineErrorProne";
+    private static final String SAFETY_SUMMARY_PLUGIN = "BaselineSafetySummary";
 
     @Override
     public void apply(Project project) {
@@ -65,6 +69,14 @@ public final class BaselineErrorProne implements Plugin<Project> {
 
         suppressibleErrorProneExtension.configureEachErrorProneOptions(BaselineErrorProne::configureErrorProneOptions);
 
+        if (Objects.equals("true", project.findProperty("com.palantir.baseline.safety-summary"))) {
+            // Summarize the safety of the published classes for the compilations of downstream projects
+            project.getTasks()
+                    .named(JavaPlugin.COMPILE_JAVA_TASK_NAME, JavaCompile.class)
+                    .configure(compileJava ->
+                            compileJava.getOptions().getCompilerArgs().add("-Xplugin:" + SAFETY_SUMMARY_PLUGIN));
+        }
+
         project.getPluginManager().withPlugin("java-gradle-plugin", appliedPlugin -> {
             suppressibleErrorProneExtension.configureEachErrorProneOptions(errorProneOptions -> {
                 errorProneOptions.disable("CatchBlockLogException");
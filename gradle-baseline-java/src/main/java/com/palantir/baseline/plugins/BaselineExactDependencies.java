@@ -20,17 +20,21 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
 import com.google.common.collect.ImmutableSet;
+import com.palantir.baseline.services.JarClassLister;
 import com.palantir.baseline.tasks.CheckImplicitDependenciesParentTask;
 import com.palantir.baseline.tasks.CheckImplicitDependenciesTask;
 import com.palantir.baseline.tasks.CheckUnusedDependenciesParentTask;
 import com.palantir.baseline.tasks.CheckUnusedDependenciesTask;
+import com.palantir.baseline.tasks.ReferencedClassesTask;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.concurrent.ThreadSafe;
@@ -39,6 +43,7 @@ import org.apache.maven.shared.dependency.analyzer.ClassAnalyzer;
 import org.apache.maven.shared.dependency.analyzer.DefaultClassAnalyzer;
 import org.apache.maven.shared.dependency.analyzer.DependencyAnalyzer;
 import org.apache.maven.shared.dependency.analyzer.asm.ASMDependencyAnalyzer;
+import org.apache.maven.shared.dependency.analyzer.asm.DependencyClassFileVisitor;
 import org.gradle.api.NamedDomainObjectProvider;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
@@ -52,24 +57,69 @@ import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
 import org.gradle.api.attributes.LibraryElements;
 import org.gradle.api.attributes.Usage;
 import org.gradle.api.plugins.JavaPluginExtension;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.SourceSet;
 import org.gradle.api.tasks.TaskProvider;
 import org.gradle.util.GUtil;
 
-/** Validates that java projects declare exactly the dependencies they rely on, no more and no less. */
+/**
+ * Validates that java projects declare exactly the dependencies they rely on, no more and no less.
+ *
+ * <p>The classes in each dependency are listed once per build and shared between all checks. The heap used by these
+ * listings (default 128MB) is limited by {@code com.palantir.baseline-exact-dependencies.class-listing-cache-max-mb}.
+ *
+ * <p>Class listings are also stored in a persistent index in the Gradle user home, so each jar only needs to be opened
+ * once per machine. This can be disabled by setting
+ * {@code com.palantir.baseline-exact-dependencies.persistent-index=false}, and its size (default 256MB) is limited by
+ * {@code com.palantir.baseline-exact-dependencies.persistent-index-max-mb}.
+ */
 public final class BaselineExactDependencies implements Plugin<Project> {
 
     private static final ClassAnalyzer JAR_ANALYZER = new DefaultClassAnalyzer();
     private static final DependencyAnalyzer CLASS_FILE_ANALYZER = new ASMDependencyAnalyzer();
+    private static final String CLASS_LISTING_CACHE_MAX_MB_PROPERTY =
+            "com.palantir.baseline-exact-dependencies.class-listing-cache-max-mb";
+    private static final long DEFAULT_CLASS_LISTING_CACHE_MAX_MB = 128;
+    private static final String PERSISTENT_INDEX_PROPERTY = "com.palantir.baseline-exact-dependencies.persistent-index";
+    private static final String PERSISTENT_INDEX_MAX_MB_PROPERTY =
+            "com.palantir.baseline-exact-dependencies.persistent-index-max-mb";
+    private static final long DEFAULT_PERSISTENT_INDEX_MAX_MB = 256;
 
-    // All applications of this plugin share a single static 'Indexes' instance, because the classes
-    // contained in a particular jar are immutable.
+    /**
+     * Indexes shared by every application of this plugin in the JVM.
+     *
+     * @deprecated The exact dependency checks no longer use this. Each task invocation creates its own {@link Indexes}
+     *     from the build's {@link JarClassLister}, because this instance grows for as long as the daemon lives.
+     */
+    @Deprecated
     public static final Indexes INDEXES = new Indexes();
+
     public static final ImmutableSet<String> VALID_ARTIFACT_EXTENSIONS = ImmutableSet.of("jar", "");
 
     @Override
     public void apply(Project project) {
         project.getPluginManager().withPlugin("java", plugin -> {
+            Provider<JarClassLister> jarClassLister = project.getGradle()
+                    .getSharedServices()
+                    .registerIfAbsent("jarClassLister", JarClassLister.class, spec -> {
+                        long maxCacheSizeMb = Optional.ofNullable(
+                                        project.findProperty(CLASS_LISTING_CACHE_MAX_MB_PROPERTY))
+                                .map(value -> Long.parseLong(value.toString()))
+                                .orElse(DEFAULT_CLASS_LISTING_CACHE_MAX_MB);
+                        spec.getParameters().getMaxCacheSizeBytes().set(maxCacheSizeMb * 1024 * 1024);
+                        if (!"false".equals(project.findProperty(PERSISTENT_INDEX_PROPERTY))) {
+                            spec.getParameters()
+                                    .getIndexDirectory()
+                                    .set(new File(
+                                            project.getGradle().getGradleUserHomeDir(),
+                                            "caches/baseline-exact-dependencies/v1"));
+                        }
+                        long maxIndexSizeMb = Optional.ofNullable(
+                                        project.findProperty(PERSISTENT_INDEX_MAX_MB_PROPERTY))
+                                .map(value -> Long.parseLong(value.toString()))
+                                .orElse(DEFAULT_PERSISTENT_INDEX_MAX_MB);
+                        spec.getParameters().getMaxIndexSizeBytes().set(maxIndexSizeMb * 1024 * 1024);
+                    });
             TaskProvider<CheckUnusedDependenciesParentTask> checkUnusedDependencies =
                     project.getTasks().register("checkUnusedDependencies", CheckUnusedDependenciesParentTask.class);
             TaskProvider<CheckImplicitDependenciesParentTask> checkImplicitDependencies =
@@ -78,14 +128,15 @@ public final class BaselineExactDependencies implements Plugin<Project> {
             project.getExtensions()
                     .getByType(JavaPluginExtension.class)
                     .getSourceSets()
-                    .configureEach(sourceSet ->
-                            configureSourceSet(project, sourceSet, checkUnusedDependencies, checkImplicitDependencies));
+                    .configureEach(sourceSet -> configureSourceSet(
+                            project, sourceSet, jarClassLister, checkUnusedDependencies, checkImplicitDependencies));
         });
     }
 
     private static void configureSourceSet(
             Project project,
             SourceSet sourceSet,
+            Provider<JarClassLister> jarClassLister,
             TaskProvider<CheckUnusedDependenciesParentTask> checkUnusedDependencies,
             TaskProvider<CheckImplicitDependenciesParentTask> checkImplicitDependencies) {
         NamedDomainObjectProvider<Configuration> implementation =
@@ -182,12 +233,30 @@ public final class BaselineExactDependencies implements Plugin<Project> {
             });
         });
 
+        TaskProvider<ReferencedClassesTask> referencedClasses = project.getTasks()
+                .register(
+                        "computeReferencedClasses" + StringUtils.capitalize(sourceSet.getName()),
+                        ReferencedClassesTask.class,
+                        task -> {
+                            String outputDirectory = "baseline-exact-dependencies/" + sourceSet.getName();
+                            task.getClassesDirs().from(sourceSet.getOutput().getClassesDirs());
+                            task.getReferencedClasses()
+                                    .set(project.getLayout()
+                                            .getBuildDirectory()
+                                            .file(outputDirectory + "/referenced-classes.txt"));
+                            task.getReferenceTable()
+                                    .set(project.getLayout()
+                                            .getBuildDirectory()
+                                            .file(outputDirectory + "/reference-table.bin"));
+                        });
+
         TaskProvider<CheckUnusedDependenciesTask> sourceSetUnusedDependencies = project.getTasks()
                 .register(
                         checkUnusedDependenciesNameForSourceSet(sourceSet), CheckUnusedDependenciesTask.class, task -> {
-                            task.dependsOn(sourceSet.getClassesTaskName());
-                            task.setSourceClasses(sourceSet.getOutput().getClassesDirs());
+                            task.referencedClassesFrom(referencedClasses);
                             task.getDependenciesConfigurations().add(explicitCompile);
+                            task.getJarClassLister().set(jarClassLister);
+                            task.usesService(jarClassLister);
 
                             // ignore intra-project dependencies, which are typically added automatically for things
                             // like test fixtures
@@ -209,9 +278,10 @@ public final class BaselineExactDependencies implements Plugin<Project> {
                         "checkImplicitDependencies" + StringUtils.capitalize(sourceSet.getName()),
                         CheckImplicitDependenciesTask.class,
                         task -> {
-                            task.dependsOn(sourceSet.getClassesTaskName());
-                            task.setSourceClasses(sourceSet.getOutput().getClassesDirs());
+                            task.referencedClassesFrom(referencedClasses);
                             task.getDependenciesConfigurations().add(compileClasspath);
+                            task.getJarClassLister().set(jarClassLister);
+                            task.usesService(jarClassLister);
                             task.suggestionConfigurationName(sourceSet.getImplementationConfigurationName());
 
                             task.ignore("org.slf4j", "slf4j-api");
@@ -261,6 +331,16 @@ public final class BaselineExactDependencies implements Plugin<Project> {
         }
     }
 
+    /**
+     * Given the contents of the class file of {@code className}, e.g. read from a jar entry, what other classes does it
+     * import/reference. Throws an unchecked exception if the contents can't be read or parsed.
+     */
+    public static Stream<String> referencedClasses(String className, InputStream classFile) {
+        DependencyClassFileVisitor visitor = new DependencyClassFileVisitor();
+        visitor.visitClass(className, classFile);
+        return visitor.getDependencies().stream();
+    }
+
     public static String asString(ResolvedArtifact artifact) {
         ModuleVersionIdentifier moduleVersionId = artifact.getModuleVersion().getId();
         StringBuilder builder = new StringBuilder()
@@ -298,12 +378,31 @@ public final class BaselineExactDependencies implements Plugin<Project> {
         return asString(artifact);
     }
 
+    /**
+     * Indexes the dependencies of a single task invocation. Resolved artifacts are specific to the current build, so
+     * only the class listings from {@link JarClassLister} are shared between tasks.
+     */
     @ThreadSafe
     public static final class Indexes {
+        private final Function<File, Set<String>> classLister;
         private final Map<String, Set<ResolvedArtifact>> classToDependency = new ConcurrentHashMap<>();
         private final Map<ResolvedArtifact, Set<String>> classesFromArtifact = new ConcurrentHashMap<>();
         private final Map<ResolvedArtifact, ResolvedDependency> artifactsFromDependency = new ConcurrentHashMap<>();
 
+        public Indexes(JarClassLister jarClassLister) {
+            this.classLister = jarClassLister::classesIn;
+        }
+
+        /**
+         * Lists the classes of every jar again, rather than sharing listings with other tasks in the build.
+         *
+         * @deprecated Use {@link #Indexes(JarClassLister)} with the build's {@link JarClassLister}.
+         */
+        @Deprecated
+        public Indexes() {
+            this.classLister = Indexes::analyze;
+        }
+
         public void populateIndexes(Set<ResolvedDependency> declaredDependencies) {
             Set<ResolvedArtifact> allArtifacts = declaredDependencies.stream()
                     .flatMap(dependency -> dependency.getAllModuleArtifacts().stream())
@@ -311,17 +410,11 @@ public final class BaselineExactDependencies implements Plugin<Project> {
                     .collect(Collectors.toSet());
 
             allArtifacts.forEach(artifact -> {
-                try {
-                    File jar = artifact.getFile();
-                    Set<String> classesInArtifact =
-                            JAR_ANALYZER.analyze(jar.toURI().toURL());
-                    classesFromArtifact.put(artifact, classesInArtifact);
-                    classesInArtifact.forEach(clazz -> classToDependency
-                            .computeIfAbsent(clazz, _ignored -> ConcurrentHashMap.newKeySet())
-                            .add(artifact));
-                } catch (IOException e) {
-                    throw new RuntimeException("Unable to analyze artifact", e);
-                }
+                Set<String> classesInArtifact = classLister.apply(artifact.getFile());
+                classesFromArtifact.put(artifact, classesInArtifact);
+                classesInArtifact.forEach(clazz -> classToDependency
+                        .computeIfAbsent(clazz, _ignored -> ConcurrentHashMap.newKeySet())
+                        .add(artifact));
             });
 
             declaredDependencies.forEach(dependency -> dependency
@@ -345,6 +438,14 @@ public final class BaselineExactDependencies implements Plugin<Project> {
             return Preconditions.checkNotNull(
                     artifactsFromDependency.get(resolvedArtifact), "Unable to find resolved artifact");
         }
+
+        private static Set<String> analyze(File jar) {
+            try {
+                return JAR_ANALYZER.analyze(jar.toURI().toURL());
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to analyze artifact", e);
+            }
+        }
     }
 
     public static String ignoreCoordinate(String group, String name) {
@@ -16,26 +16,44 @@
 
 package com.palantir.baseline.plugins;
 
+import com.palantir.baseline.plugins.heap.AdaptiveCompilerHeap;
+import java.util.Objects;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.tasks.compile.ForkOptions;
 import org.gradle.api.tasks.compile.JavaCompile;
 
 /**
- * Increases the default {@link JavaCompile} task heap from {@code 512m} to {@code 2g}.
+ * Increases the default {@link JavaCompile} task heap from {@code 512m} to {@code 2g}, or sizes it from the task's
+ * sources and observed heap usage with {@code com.palantir.baseline.adaptive-compiler-heap=true}.
  */
 public final class BaselineJavaCompilerHeap implements Plugin<Project> {
 
     private static final String JAVAC_HEAP = "2g";
+    private static final String ADAPTIVE_HEAP_PROPERTY = "com.palantir.baseline.adaptive-compiler-heap";
+    private static final String DEFAULT_MIN_HEAP = "256m";
+    private static final String DEFAULT_MAX_HEAP = "4g";
 
     @Override
     public void apply(Project proj) {
+        boolean adaptive = Objects.equals("true", proj.findProperty(ADAPTIVE_HEAP_PROPERTY));
         proj.afterEvaluate(
                 project -> project.getTasks().withType(JavaCompile.class).configureEach(javaCompileTask -> {
                     ForkOptions options = javaCompileTask.getOptions().getForkOptions();
                     if (options.getMemoryMaximumSize() == null) {
                         options.setMemoryMaximumSize(JAVAC_HEAP);
+                        if (adaptive) {
+                            AdaptiveCompilerHeap.configure(
+                                    javaCompileTask,
+                                    propertyOrDefault(project, ADAPTIVE_HEAP_PROPERTY + ".min", DEFAULT_MIN_HEAP),
+                                    propertyOrDefault(project, ADAPTIVE_HEAP_PROPERTY + ".max", DEFAULT_MAX_HEAP));
+                        }
                     }
                 }));
     }
+
+    private static String propertyOrDefault(Project project, String name, String defaultValue) {
+        Object value = project.findProperty(name);
+        return value == null ? defaultValue : value.toString();
+    }
 }
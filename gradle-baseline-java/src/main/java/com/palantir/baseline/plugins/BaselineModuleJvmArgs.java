@@ -23,15 +23,15 @@ import com.google.common.collect.ImmutableMap;
 import com.palantir.baseline.extensions.BaselineModuleJvmArgsExtension;
 import com.palantir.baseline.plugins.javaversions.BaselineJavaVersion;
 import com.palantir.baseline.plugins.javaversions.BaselineJavaVersionExtension;
-import java.io.IOException;
+import com.palantir.baseline.services.JarManifestCache;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.jar.JarFile;
+import java.util.jar.Attributes;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import javax.annotation.Nullable;
 import org.gradle.api.Action;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
@@ -75,6 +75,9 @@ public final class BaselineModuleJvmArgs implements Plugin<Project> {
         project.getPluginManager().withPlugin("java", unused -> {
             BaselineModuleJvmArgsExtension extension =
                     project.getExtensions().create(EXTENSION_NAME, BaselineModuleJvmArgsExtension.class, project);
+            Provider<JarManifestCache> manifestCache = project.getGradle()
+                    .getSharedServices()
+                    .registerIfAbsent("jarManifestCache", JarManifestCache.class, _spec -> {});
 
             // javac isn't provided `--add-exports` args for the time being due to
             // https://github.com/gradle/gradle/issues/18824
@@ -101,7 +104,7 @@ public final class BaselineModuleJvmArgs implements Plugin<Project> {
                                         return ImmutableList.of();
                                     }
                                     ImmutableList<String> arguments =
-                                            collectCompilationArgs(project, extension, sourceSet);
+                                            collectCompilationArgs(project, extension, manifestCache.get(), sourceSet);
                                     project.getLogger()
                                             .debug(
                                                     "BaselineModuleJvmArgs compiling {} on {} with exports: {}",
@@ -113,6 +116,7 @@ public final class BaselineModuleJvmArgs implements Plugin<Project> {
                             });
 
                     setTaskInputsFromExtension(javaCompile, extension);
+                    javaCompile.usesService(manifestCache);
                 });
 
                 TaskProvider<Task> javadocTaskProvider = null;
@@ -143,7 +147,7 @@ public final class BaselineModuleJvmArgs implements Plugin<Project> {
                                 if (options instanceof CoreJavadocOptions) {
                                     CoreJavadocOptions coreOptions = (CoreJavadocOptions) options;
                                     ImmutableList<JarManifestModuleInfo> info =
-                                            collectClasspathInfo(project, sourceSet);
+                                            collectClasspathInfo(project, manifestCache.get(), sourceSet);
                                     List<String> exportValues = Stream.concat(
                                                     // Compilation only supports exports, so we union with opens.
                                                     Stream.concat(
@@ -179,6 +183,7 @@ public final class BaselineModuleJvmArgs implements Plugin<Project> {
                         });
 
                         setTaskInputsFromExtension(javadocTask, extension);
+                        javadocTask.usesService(manifestCache);
                     });
                 }
             });
@@ -191,8 +196,8 @@ public final class BaselineModuleJvmArgs implements Plugin<Project> {
 
                         @Override
                         public Iterable<String> asArguments() {
-                            ImmutableList<String> arguments =
-                                    collectClasspathArgs(project, extension, test.getClasspath(), OpensMode.RUNTIME);
+                            ImmutableList<String> arguments = collectClasspathArgs(
+                                    project, extension, manifestCache.get(), test.getClasspath(), OpensMode.RUNTIME);
                             project.getLogger()
                                     .debug(
                                             "BaselineModuleJvmArgs executing {} on {} with exports: {}",
@@ -204,6 +209,7 @@ public final class BaselineModuleJvmArgs implements Plugin<Project> {
                     });
 
                     setTaskInputsFromExtension(test, extension);
+                    test.usesService(manifestCache);
                 }
             });
 
@@ -216,7 +222,11 @@ public final class BaselineModuleJvmArgs implements Plugin<Project> {
                         @Override
                         public Iterable<String> asArguments() {
                             ImmutableList<String> arguments = collectClasspathArgs(
-                                    project, extension, javaExec.getClasspath(), OpensMode.RUNTIME);
+                                    project,
+                                    extension,
+                                    manifestCache.get(),
+                                    javaExec.getClasspath(),
+                                    OpensMode.RUNTIME);
                             project.getLogger()
                                     .debug(
                                             "BaselineModuleJvmArgs executing {} on {} with exports: {}",
@@ -228,6 +238,7 @@ public final class BaselineModuleJvmArgs implements Plugin<Project> {
                     });
 
                     setTaskInputsFromExtension(javaExec, extension);
+                    javaExec.usesService(manifestCache);
                 }
             });
 
@@ -302,17 +313,25 @@ public final class BaselineModuleJvmArgs implements Plugin<Project> {
     }
 
     private static ImmutableList<String> collectCompilationArgs(
-            Project project, BaselineModuleJvmArgsExtension extension, SourceSet sourceSet) {
+            Project project,
+            BaselineModuleJvmArgsExtension extension,
+            JarManifestCache manifestCache,
+            SourceSet sourceSet) {
         return collectClasspathArgs(
                 project,
                 extension,
+                manifestCache,
                 project.getConfigurations().getByName(sourceSet.getAnnotationProcessorConfigurationName()),
                 OpensMode.COMPILATION);
     }
 
     private static ImmutableList<String> collectClasspathArgs(
-            Project project, BaselineModuleJvmArgsExtension extension, FileCollection classpath, OpensMode mode) {
-        ImmutableList<JarManifestModuleInfo> classpathInfo = collectClasspathInfo(project, classpath);
+            Project project,
+            BaselineModuleJvmArgsExtension extension,
+            JarManifestCache manifestCache,
+            FileCollection classpath,
+            OpensMode mode) {
+        ImmutableList<JarManifestModuleInfo> classpathInfo = collectClasspathInfo(project, manifestCache, classpath);
         Stream<String> allExports = Stream.concat(
                 extension.exports().get().stream(), classpathInfo.stream().flatMap(info -> info.exports().stream()));
         Stream<String> allOpens = Stream.concat(
@@ -332,27 +351,27 @@ public final class BaselineModuleJvmArgs implements Plugin<Project> {
         throw new IllegalStateException("unknown mode: " + mode);
     }
 
-    private static ImmutableList<JarManifestModuleInfo> collectClasspathInfo(Project project, SourceSet sourceSet) {
+    private static ImmutableList<JarManifestModuleInfo> collectClasspathInfo(
+            Project project, JarManifestCache manifestCache, SourceSet sourceSet) {
         return collectClasspathInfo(
-                project, project.getConfigurations().getByName(sourceSet.getAnnotationProcessorConfigurationName()));
+                project,
+                manifestCache,
+                project.getConfigurations().getByName(sourceSet.getAnnotationProcessorConfigurationName()));
     }
 
     private static ImmutableList<JarManifestModuleInfo> collectClasspathInfo(
-            Project project, FileCollection classpath) {
+            Project project, JarManifestCache manifestCache, FileCollection classpath) {
         return classpath.getFiles().stream()
                 .map(file -> {
                     try {
                         if (file.getName().endsWith(".jar") && file.isFile()) {
-                            try (JarFile jar = new JarFile(file)) {
-                                java.util.jar.Manifest maybeJarManifest = jar.getManifest();
-                                Optional<JarManifestModuleInfo> parsedModuleInfo = parseModuleInfo(maybeJarManifest);
-                                project.getLogger()
-                                        .debug("Jar '{}' produced manifest info: {}", file, parsedModuleInfo);
-                                return parsedModuleInfo.orElse(null);
-                            }
+                            Optional<JarManifestModuleInfo> parsedModuleInfo =
+                                    parseModuleInfo(manifestCache.mainAttributes(file));
+                            project.getLogger().debug("Jar '{}' produced manifest info: {}", file, parsedModuleInfo);
+                            return parsedModuleInfo.orElse(null);
                         }
                         return null;
-                    } catch (IOException e) {
+                    } catch (UncheckedIOException e) {
                         project.getLogger().warn("Failed to check jar {} for manifest attributes", file, e);
                         return null;
                     }
@@ -361,18 +380,16 @@ public final class BaselineModuleJvmArgs implements Plugin<Project> {
                 .collect(ImmutableList.toImmutableList());
     }
 
-    private static Optional<JarManifestModuleInfo> parseModuleInfo(@Nullable java.util.jar.Manifest jarManifest) {
-        return Optional.ofNullable(jarManifest)
-                .<JarManifestModuleInfo>map(manifest -> JarManifestModuleInfo.builder()
-                        .exports(readManifestAttribute(manifest, ADD_EXPORTS_ATTRIBUTE))
-                        .opens(readManifestAttribute(manifest, ADD_OPENS_ATTRIBUTE))
-                        .build())
-                .filter(JarManifestModuleInfo::isPresent);
+    private static Optional<JarManifestModuleInfo> parseModuleInfo(Attributes mainAttributes) {
+        JarManifestModuleInfo info = JarManifestModuleInfo.builder()
+                .exports(readManifestAttribute(mainAttributes, ADD_EXPORTS_ATTRIBUTE))
+                .opens(readManifestAttribute(mainAttributes, ADD_OPENS_ATTRIBUTE))
+                .build();
+        return info.isPresent() ? Optional.of(info) : Optional.empty();
     }
 
-    private static List<String> readManifestAttribute(java.util.jar.Manifest jarManifest, String attribute) {
-        return Optional.ofNullable(
-                        Strings.emptyToNull(jarManifest.getMainAttributes().getValue(attribute)))
+    private static List<String> readManifestAttribute(Attributes mainAttributes, String attribute) {
+        return Optional.ofNullable(Strings.emptyToNull(mainAttributes.getValue(attribute)))
                 .map(ENTRY_SPLITTER::splitToList)
                 .orElseGet(ImmutableList::of);
     }
@@ -16,24 +16,58 @@
 
 package com.palantir.baseline.plugins;
 
+import com.palantir.baseline.plugins.heap.AdaptiveTestHeap;
+import com.palantir.baseline.plugins.heap.TestHeapReport;
+import java.util.Objects;
+import java.util.Optional;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.tasks.testing.Test;
 
 /**
- * Increases the default {@code test} task heap from {@code 512m} to {@code 2g}.
+ * Increases the default {@code test} task heap from {@code 512m} to {@code 2g}, or sizes it from the task's observed
+ * heap usage with {@code com.palantir.baseline.adaptive-test-heap=true}.
  */
 public final class BaselineTestHeap implements Plugin<Project> {
 
     private static final String TEST_HEAP = "2g";
+    private static final String ADAPTIVE_HEAP_PROPERTY = "com.palantir.baseline.adaptive-test-heap";
+    private static final String DEFAULT_MIN_HEAP = "256m";
+    private static final String DEFAULT_MAX_HEAP = "4g";
+    private static final String DEFAULT_HEADROOM = "2";
 
     @Override
     public void apply(Project project) {
+        boolean adaptive = Objects.equals("true", project.findProperty(ADAPTIVE_HEAP_PROPERTY));
+        String minHeap = propertyOrDefault(project, ADAPTIVE_HEAP_PROPERTY + ".min", DEFAULT_MIN_HEAP);
+        String maxHeap = propertyOrDefault(project, ADAPTIVE_HEAP_PROPERTY + ".max", DEFAULT_MAX_HEAP);
+        double headroom =
+                Double.parseDouble(propertyOrDefault(project, ADAPTIVE_HEAP_PROPERTY + ".headroom", DEFAULT_HEADROOM));
+
         project.getTasks().withType(Test.class).configureEach(testTask -> {
             String currentValue = testTask.getMaxHeapSize();
             if (currentValue == null) {
                 testTask.setMaxHeapSize(TEST_HEAP);
             }
+            if (adaptive) {
+                Optional<String> defaultHeap = currentValue == null ? Optional.of(TEST_HEAP) : Optional.empty();
+                AdaptiveTestHeap.configure(testTask, defaultHeap, minHeap, maxHeap, headroom);
+            }
         });
+
+        if (adaptive) {
+            project.getTasks().register("testHeapReport", TestHeapReport.class, report -> {
+                report.getMinHeap().set(minHeap);
+                report.getMaxHeap().set(maxHeap);
+                report.getHeadroom().set(headroom);
+                report.getReportFile()
+                        .set(project.getLayout().getBuildDirectory().file("reports/test-heap/report.txt"));
+            });
+        }
+    }
+
+    private static String propertyOrDefault(Project project, String name, String defaultValue) {
+        Object value = project.findProperty(name);
+        return value == null ? defaultValue : value.toString();
     }
 }
@@ -18,6 +18,8 @@ package com.palantir.baseline.plugins;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableSet;
+import com.palantir.baseline.plugins.testing.AffectedTests;
+import com.palantir.baseline.plugins.testing.BalanceTestForksAction;
 import com.palantir.baseline.tasks.CheckJUnitDependencies;
 import com.palantir.baseline.util.VersionUtils;
 import java.lang.reflect.Method;
@@ -55,6 +57,17 @@ public final class BaselineTesting implements Plugin<Project> {
                 task.getOutputs().cacheIf(t -> false);
             }
 
+            if (Objects.equals("true", project.findProperty("com.palantir.baseline.balance-test-forks"))) {
+                task.doFirst(new BalanceTestForksAction());
+            }
+
+            if (Objects.equals("true", project.findProperty("com.palantir.baseline.affected-tests"))) {
+                AffectedTests.configure(
+                        task,
+                        Optional.ofNullable(project.findProperty("com.palantir.baseline.affected-tests.since"))
+                                .map(Object::toString));
+            }
+
             // repos that use 'snapshot' style testing should all use one convenient task to refresh the snapshots,
             // ./gradlew test -Drecreate=true
             boolean shouldRecreate = Boolean.getBoolean("recreate");
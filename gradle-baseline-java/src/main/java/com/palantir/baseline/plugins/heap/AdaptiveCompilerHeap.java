@@ -0,0 +1,178 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.heap;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CharStreams;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.gradle.api.Action;
+import org.gradle.api.JavaVersion;
+import org.gradle.api.Task;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.compile.ForkOptions;
+import org.gradle.api.tasks.compile.JavaCompile;
+import org.gradle.jvm.toolchain.JavaCompiler;
+import org.gradle.jvm.toolchain.JavaInstallationMetadata;
+
+/**
+ * Sizes the heap of a {@link JavaCompile} task's compiler daemon from the peak heap usage observed in its last
+ * successful run, or estimates it from the size of its sources and number of annotation processors until then.
+ *
+ * <p>Heap sizes are rounded up to a power of two, as Gradle only reuses compiler daemons with the same heap size.
+ * Runs which measure their heap usage need a compiler daemon of their own, so a task is only measured again once its
+ * sources grew by a quarter, or after a failed run. Only full compiles are measured, as an incremental compile of a few
+ * classes peaks far below what compiling all of them needs.
+ */
+public final class AdaptiveCompilerHeap {
+    private static final Logger log = Logging.getLogger(AdaptiveCompilerHeap.class);
+
+    // Unobserved tasks get at least the fixed heap size every compiler daemon used to get
+    private static final long UNOBSERVED_MIN_BYTES = 2048 * HeapSizes.MEGABYTE;
+    private static final long BASE_BYTES = 256 * HeapSizes.MEGABYTE;
+    private static final long BYTES_PER_SOURCE_BYTE = 64;
+    private static final long BYTES_PER_PROCESSOR = 64 * HeapSizes.MEGABYTE;
+
+    // Usage after collections leaves out short-lived garbage, which the heap also needs room for
+    private static final double HEADROOM = 2;
+    private static final double REMEASURE_GROWTH = 1.25;
+
+    private static final String PROCESSOR_SERVICE = "META-INF/services/javax.annotation.processing.Processor";
+
+    private AdaptiveCompilerHeap() {}
+
+    /** Sizes the heap of the given task within the given bounds, in the notation of {@code -Xmx}. */
+    public static void configure(JavaCompile task, String minHeap, String maxHeap) {
+        long minBytes = HeapSizes.parse(minHeap);
+        long maxBytes = HeapSizes.parse(maxHeap);
+        Preconditions.checkArgument(
+                minBytes <= maxBytes, "Minimum heap %s is larger than maximum heap %s", minHeap, maxHeap);
+        task.doFirst(new SizeCompilerHeapAction(minBytes, maxBytes));
+        task.doLast(new RecordHeapUsageAction());
+    }
+
+    private static final class SizeCompilerHeapAction implements Action<Task> {
+        private final long minBytes;
+        private final long maxBytes;
+
+        SizeCompilerHeapAction(long minBytes, long maxBytes) {
+            this.minBytes = minBytes;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public void execute(Task task) {
+            JavaCompile javaCompile = (JavaCompile) task;
+            ForkOptions forkOptions = javaCompile.getOptions().getForkOptions();
+            HeapMeasurement measurement = HeapMeasurement.of(task);
+            long sourceBytes = javaCompile.getSource().getFiles().stream()
+                    .mapToLong(File::length)
+                    .sum();
+
+            Optional<HeapObservation> observation = measurement
+                    .previous()
+                    .filter(previous -> sourceBytes <= previous.inputBytes() * REMEASURE_GROWTH);
+            long heapBytes;
+            if (observation.isPresent()) {
+                heapBytes = HeapSizes.round((long) (observation.get().peakBytes() * HEADROOM), minBytes, maxBytes);
+                measurement.begin(sourceBytes);
+            } else {
+                long estimatedBytes = BASE_BYTES
+                        + sourceBytes * BYTES_PER_SOURCE_BYTE
+                        + annotationProcessors(javaCompile) * BYTES_PER_PROCESSOR;
+                heapBytes = HeapSizes.round(Math.max(estimatedBytes, UNOBSERVED_MIN_BYTES), minBytes, maxBytes);
+                if (supportsUnifiedLogging(javaCompile) && isFullCompile(javaCompile)) {
+                    String gcLogArg = measurement.beginMeasuring(sourceBytes);
+                    List<String> jvmArgs = forkOptions.getJvmArgs();
+                    forkOptions.setJvmArgs(ImmutableList.<String>builder()
+                            .addAll(jvmArgs == null ? ImmutableList.of() : jvmArgs)
+                            .add(gcLogArg)
+                            .build());
+                } else {
+                    measurement.begin(sourceBytes);
+                }
+            }
+
+            log.info(
+                    "Compiling {} with a {} heap, {}",
+                    task.getPath(),
+                    HeapSizes.format(heapBytes),
+                    observation.isPresent() ? "based on its last run" : "estimated from its sources");
+            forkOptions.setMemoryMaximumSize(HeapSizes.format(heapBytes));
+        }
+    }
+
+    private static boolean supportsUnifiedLogging(JavaCompile javaCompile) {
+        return javaCompile
+                .getJavaCompiler()
+                .map(JavaCompiler::getMetadata)
+                .map(JavaInstallationMetadata::getLanguageVersion)
+                .map(version -> JavaVersion.toVersion(version.asInt()))
+                .getOrElse(JavaVersion.current())
+                .isJava9Compatible();
+    }
+
+    /** Whether the task compiles all of its sources, as it is not incremental or has not compiled any classes yet. */
+    private static boolean isFullCompile(JavaCompile javaCompile) {
+        if (!javaCompile.getOptions().isIncremental()) {
+            return true;
+        }
+        String[] classes = javaCompile.getDestinationDirectory().get().getAsFile().list();
+        return classes == null || classes.length == 0;
+    }
+
+    private static long annotationProcessors(JavaCompile javaCompile) {
+        FileCollection processorPath = javaCompile.getOptions().getAnnotationProcessorPath();
+        if (processorPath == null || javaCompile.getOptions().getCompilerArgs().contains("-proc:none")) {
+            return 0;
+        }
+        return processorPath.getFiles().stream()
+                .filter(File::isFile)
+                .mapToLong(AdaptiveCompilerHeap::annotationProcessors)
+                .sum();
+    }
+
+    private static long annotationProcessors(File jar) {
+        try (ZipFile zipFile = new ZipFile(jar)) {
+            ZipEntry services = zipFile.getEntry(PROCESSOR_SERVICE);
+            if (services == null) {
+                return 0;
+            }
+            try (InputStream inputStream = zipFile.getInputStream(services);
+                    Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+                return CharStreams.readLines(reader).stream()
+                        .map(line -> line.replaceFirst("#.*", "").trim())
+                        .filter(line -> !line.isEmpty())
+                        .count();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read annotation processors in " + jar, e);
+        }
+    }
+}
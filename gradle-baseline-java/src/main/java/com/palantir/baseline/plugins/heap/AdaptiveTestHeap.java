@@ -0,0 +1,105 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.heap;
+
+import com.google.common.base.Preconditions;
+import java.util.Objects;
+import java.util.Optional;
+import javax.annotation.Nullable;
+import org.gradle.api.Action;
+import org.gradle.api.JavaVersion;
+import org.gradle.api.Task;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.testing.Test;
+import org.gradle.jvm.toolchain.JavaInstallationMetadata;
+import org.gradle.jvm.toolchain.JavaLauncher;
+
+/**
+ * Records the peak heap usage of a {@link Test} task's forks in every run, and sizes the heap of later runs from it.
+ *
+ * <p>Unlike compiler daemons, test JVMs are never shared between tasks, so every run can log its garbage collections.
+ * Tasks with an explicitly configured heap keep it, but are still measured for {@link TestHeapReport}.
+ */
+public final class AdaptiveTestHeap {
+    private static final Logger log = Logging.getLogger(AdaptiveTestHeap.class);
+
+    private AdaptiveTestHeap() {}
+
+    /**
+     * Measures the given task, and sizes its heap within the given bounds if it still has the given default heap when
+     * it runs.
+     */
+    public static void configure(
+            Test task, Optional<String> defaultHeap, String minHeap, String maxHeap, double headroom) {
+        long minBytes = HeapSizes.parse(minHeap);
+        long maxBytes = HeapSizes.parse(maxHeap);
+        Preconditions.checkArgument(
+                minBytes <= maxBytes, "Minimum heap %s is larger than maximum heap %s", minHeap, maxHeap);
+        task.doFirst(new SizeTestHeapAction(defaultHeap.orElse(null), minBytes, maxBytes, headroom));
+        task.doLast(new RecordHeapUsageAction());
+    }
+
+    /** The heap to give a task which used the given peak heap after garbage collections. */
+    static long suggestedHeapBytes(long peakBytes, long minBytes, long maxBytes, double headroom) {
+        return HeapSizes.round((long) (peakBytes * headroom), minBytes, maxBytes);
+    }
+
+    private static final class SizeTestHeapAction implements Action<Task> {
+        @Nullable
+        private final String defaultHeap;
+
+        private final long minBytes;
+        private final long maxBytes;
+        private final double headroom;
+
+        SizeTestHeapAction(@Nullable String defaultHeap, long minBytes, long maxBytes, double headroom) {
+            this.defaultHeap = defaultHeap;
+            this.minBytes = minBytes;
+            this.maxBytes = maxBytes;
+            this.headroom = headroom;
+        }
+
+        @Override
+        public void execute(Task task) {
+            Test test = (Test) task;
+            HeapMeasurement measurement = HeapMeasurement.of(task);
+            Optional<HeapObservation> observation = measurement.previous();
+            if (defaultHeap != null && Objects.equals(defaultHeap, test.getMaxHeapSize()) && observation.isPresent()) {
+                String heap = HeapSizes.format(
+                        suggestedHeapBytes(observation.get().peakBytes(), minBytes, maxBytes, headroom));
+                log.info("Running {} with a {} heap, based on its last run", task.getPath(), heap);
+                test.setMaxHeapSize(heap);
+            }
+
+            if (supportsUnifiedLogging(test)) {
+                test.jvmArgs(measurement.beginMeasuring(0));
+            } else {
+                measurement.begin(0);
+            }
+        }
+    }
+
+    private static boolean supportsUnifiedLogging(Test test) {
+        return test.getJavaLauncher()
+                .map(JavaLauncher::getMetadata)
+                .map(JavaInstallationMetadata::getLanguageVersion)
+                .map(version -> JavaVersion.toVersion(version.asInt()))
+                .getOrElse(JavaVersion.current())
+                .isJava9Compatible();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.heap;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.OptionalLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+/**
+ * Reads the peak heap usage of a JVM from its garbage collection log, as written with {@code -Xlog:gc}.
+ *
+ * <p>Only the heap usage after each collection is used, which is the live data plus whatever a young collection did not
+ * reclaim. The usage before a collection mostly depends on how large the heap was allowed to be.
+ */
+final class GcLogs {
+    private static final Logger log = Logging.getLogger(GcLogs.class);
+
+    // e.g. '[0.532s][info][gc] GC(3) Pause Young (Normal) (G1 Evacuation Pause) 24M->3M(256M) 3.456ms'
+    private static final Pattern COLLECTION = Pattern.compile("\\d+[KMG]->(\\d+)([KMG])\\(\\d+[KMG]\\)");
+
+    private GcLogs() {}
+
+    /**
+     * The JVM argument to log collections to the given file, which requires Java 9 or later. Any {@code %p} in the file
+     * name is replaced with the process id, so that several JVMs can log to the same directory.
+     */
+    static String jvmArg(File logFile) {
+        // Quoted, as unified logging options are separated by colons which also appear in Windows paths
+        return "-Xlog:gc:file=\"" + logFile.getAbsolutePath() + "\"";
+    }
+
+    /**
+     * The largest heap usage after a collection in the given log, or empty if there is no log or the JVM never
+     * collected garbage. A JVM that never collected may have had anything up to its whole young generation live, so no
+     * usage is known.
+     */
+    static OptionalLong peakBytesAfterGc(File logFile) {
+        if (!logFile.isFile()) {
+            return OptionalLong.empty();
+        }
+        OptionalLong peakBytes = OptionalLong.empty();
+        try (BufferedReader reader = Files.newBufferedReader(logFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = COLLECTION.matcher(line);
+                if (matcher.find()) {
+                    long bytes = bytes(Long.parseLong(matcher.group(1)), matcher.group(2));
+                    peakBytes = OptionalLong.of(Math.max(peakBytes.orElse(0), bytes));
+                }
+            }
+        } catch (IOException e) {
+            log.info("Unable to read garbage collection log {}", logFile, e);
+            return OptionalLong.empty();
+        }
+        return peakBytes;
+    }
+
+    private static long bytes(long value, String unit) {
+        switch (unit) {
+            case "K":
+                return value * 1024;
+            case "M":
+                return value * HeapSizes.MEGABYTE;
+            default:
+                return value * 1024 * HeapSizes.MEGABYTE;
+        }
+    }
+}
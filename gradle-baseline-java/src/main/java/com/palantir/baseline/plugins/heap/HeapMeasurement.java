@@ -0,0 +1,150 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.heap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Properties;
+import org.gradle.api.Task;
+
+/**
+ * Tracks the heap usage of the JVMs a task forks between its runs, using files in the task's temporary directory.
+ *
+ * <p>A run that measures its heap usage logs garbage collections to a new file, so that it doesn't reuse a JVM forked
+ * by an earlier run which still logs to a previous file. Observations are only kept once a run succeeds, and none is
+ * used after a run that failed, in case it failed because its heap was too small.
+ */
+final class HeapMeasurement {
+    private static final String INPUT_BYTES = "inputBytes";
+    private static final String GC_LOG_PREFIX = "gcLogPrefix";
+
+    private final File directory;
+
+    private HeapMeasurement(File directory) {
+        this.directory = directory;
+    }
+
+    static HeapMeasurement of(Task task) {
+        return new HeapMeasurement(task.getTemporaryDir());
+    }
+
+    File observationFile() {
+        return new File(directory, "heap.properties");
+    }
+
+    private File pendingFile() {
+        return new File(directory, "heap.pending");
+    }
+
+    /** The observation of the last run, if that run succeeded. */
+    Optional<HeapObservation> previous() {
+        if (pendingFile().exists()) {
+            return Optional.empty();
+        }
+        return HeapObservation.read(observationFile());
+    }
+
+    /** Starts a run that measures its heap usage, returning the JVM argument which enables garbage collection logs. */
+    String beginMeasuring(long inputBytes) {
+        deleteGcLogs();
+        String gcLogPrefix = "gc-" + System.currentTimeMillis();
+        writePending(inputBytes, Optional.of(gcLogPrefix));
+        return GcLogs.jvmArg(new File(directory, gcLogPrefix + "-%p.log"));
+    }
+
+    /** Starts a run that is sized from a previous observation without measuring it. */
+    void begin(long inputBytes) {
+        writePending(inputBytes, Optional.empty());
+    }
+
+    /**
+     * Records the peak heap usage of a successful run, if it was measured. Otherwise the observation of an earlier run
+     * is kept, or the default heap is used again.
+     */
+    void succeeded() {
+        Properties pending = readProperties(pendingFile());
+        String gcLogPrefix = pending.getProperty(GC_LOG_PREFIX);
+        if (gcLogPrefix != null) {
+            OptionalLong peakBytes = peakBytesAfterGc(gcLogPrefix);
+            if (peakBytes.isPresent()) {
+                long inputBytes = Long.parseLong(pending.getProperty(INPUT_BYTES, "0"));
+                new HeapObservation(peakBytes.getAsLong(), inputBytes).write(observationFile());
+            }
+        }
+        pendingFile().delete();
+    }
+
+    /**
+     * The largest peak of all JVMs that logged with the given prefix, e.g. several forks of a test task. This is empty
+     * unless every one of them collected garbage, as the peak of a JVM that never collected is unknown.
+     */
+    private OptionalLong peakBytesAfterGc(String gcLogPrefix) {
+        File[] gcLogs = directory.listFiles(file -> file.getName().startsWith(gcLogPrefix + "-"));
+        if (gcLogs == null) {
+            return OptionalLong.empty();
+        }
+        OptionalLong peakBytes = OptionalLong.empty();
+        for (File gcLog : gcLogs) {
+            OptionalLong logPeakBytes = GcLogs.peakBytesAfterGc(gcLog);
+            if (logPeakBytes.isEmpty()) {
+                return OptionalLong.empty();
+            }
+            peakBytes = OptionalLong.of(Math.max(peakBytes.orElse(0), logPeakBytes.getAsLong()));
+        }
+        return peakBytes;
+    }
+
+    private void deleteGcLogs() {
+        File[] gcLogs = directory.listFiles(file -> file.getName().startsWith("gc-"));
+        if (gcLogs != null) {
+            for (File gcLog : gcLogs) {
+                // Fails on Windows while an idle JVM of an earlier run still has the log open
+                gcLog.delete();
+            }
+        }
+    }
+
+    private void writePending(long inputBytes, Optional<String> gcLogPrefix) {
+        Properties pending = new Properties();
+        pending.setProperty(INPUT_BYTES, Long.toString(inputBytes));
+        gcLogPrefix.ifPresent(prefix -> pending.setProperty(GC_LOG_PREFIX, prefix));
+        directory.mkdirs();
+        try (OutputStream outputStream = Files.newOutputStream(pendingFile().toPath())) {
+            pending.store(outputStream, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + pendingFile(), e);
+        }
+    }
+
+    private static Properties readProperties(File file) {
+        Properties properties = new Properties();
+        if (file.isFile()) {
+            try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+                properties.load(inputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + file, e);
+            }
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.heap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * The peak heap usage observed in a task's last successful run, along with the size of the inputs it processed so that
+ * later runs can scale it as their inputs grow.
+ */
+final class HeapObservation {
+    private static final String PEAK_BYTES = "peakBytes";
+    private static final String INPUT_BYTES = "inputBytes";
+
+    private final long peakBytes;
+    private final long inputBytes;
+
+    HeapObservation(long peakBytes, long inputBytes) {
+        this.peakBytes = peakBytes;
+        this.inputBytes = inputBytes;
+    }
+
+    long peakBytes() {
+        return peakBytes;
+    }
+
+    long inputBytes() {
+        return inputBytes;
+    }
+
+    static Optional<HeapObservation> read(File file) {
+        if (!file.isFile()) {
+            return Optional.empty();
+        }
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            properties.load(inputStream);
+            return Optional.of(new HeapObservation(
+                    Long.parseLong(properties.getProperty(PEAK_BYTES)),
+                    Long.parseLong(properties.getProperty(INPUT_BYTES))));
+        } catch (IOException | NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    void write(File file) {
+        Properties properties = new Properties();
+        properties.setProperty(PEAK_BYTES, Long.toString(peakBytes));
+        properties.setProperty(INPUT_BYTES, Long.toString(inputBytes));
+        file.getParentFile().mkdirs();
+        try (OutputStream outputStream = Files.newOutputStream(file.toPath())) {
+            properties.store(outputStream, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write heap observation " + file, e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.heap;
+
+import com.google.common.base.Preconditions;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Converts between heap sizes in bytes and the notation of {@code -Xmx}, e.g. {@code 512m}. */
+final class HeapSizes {
+    static final long MEGABYTE = 1024 * 1024;
+
+    private static final Pattern NOTATION = Pattern.compile("(\\d+)([kmgt]?)");
+
+    private HeapSizes() {}
+
+    static long parse(String notation) {
+        Matcher matcher = NOTATION.matcher(notation.trim().toLowerCase(Locale.ROOT));
+        Preconditions.checkArgument(
+                matcher.matches(), "Invalid heap size '%s', expected e.g. '512m' or '2g'", notation);
+        long value = Long.parseLong(matcher.group(1));
+        switch (matcher.group(2)) {
+            case "k":
+                return value * 1024;
+            case "m":
+                return value * MEGABYTE;
+            case "g":
+                return value * 1024 * MEGABYTE;
+            case "t":
+                return value * 1024 * 1024 * MEGABYTE;
+            default:
+                return value;
+        }
+    }
+
+    /** Formats the given size in whole megabytes, rounding up. */
+    static String format(long bytes) {
+        return ((bytes + MEGABYTE - 1) / MEGABYTE) + "m";
+    }
+
+    /**
+     * Rounds the given size up to a power of two number of megabytes, and then into the given bounds. Forked JVMs with
+     * the same heap size can be shared between tasks, so this keeps the number of distinct sizes small.
+     */
+    static long round(long bytes, long minBytes, long maxBytes) {
+        long megabytes = Math.max(1, (bytes + MEGABYTE - 1) / MEGABYTE);
+        long rounded = megabytes == 1 ? MEGABYTE : Long.highestOneBit(megabytes - 1) * 2 * MEGABYTE;
+        return Math.min(Math.max(rounded, minBytes), maxBytes);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.heap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.testing.Test;
+
+/**
+ * Lists the {@link Test} tasks of a project whose heap is larger than their last successful run suggests, based on the
+ * peak heap usage recorded by {@link AdaptiveTestHeap}.
+ */
+public abstract class TestHeapReport extends DefaultTask {
+
+    @Input
+    public abstract Property<String> getMinHeap();
+
+    @Input
+    public abstract Property<String> getMaxHeap();
+
+    @Input
+    public abstract Property<Double> getHeadroom();
+
+    @OutputFile
+    public abstract RegularFileProperty getReportFile();
+
+    public TestHeapReport() {
+        setGroup("Help");
+        setDescription("Lists test tasks whose heap could be reduced, based on their observed peak heap usage");
+        // The observations are written by test tasks as they run, outside of Gradle's knowledge
+        getOutputs().upToDateWhen(_task -> false);
+    }
+
+    @TaskAction
+    public final void report() {
+        long minBytes = HeapSizes.parse(getMinHeap().get());
+        long maxBytes = HeapSizes.parse(getMaxHeap().get());
+        List<String> reducible = new ArrayList<>();
+        getProject().getTasks().withType(Test.class).stream()
+                .sorted(Comparator.comparing(Test::getPath))
+                .forEach(test -> {
+                    Optional<HeapObservation> observation =
+                            HeapObservation.read(HeapMeasurement.of(test).observationFile());
+                    if (observation.isEmpty() || test.getMaxHeapSize() == null) {
+                        return;
+                    }
+                    long configuredBytes = HeapSizes.parse(test.getMaxHeapSize());
+                    long suggestedBytes = AdaptiveTestHeap.suggestedHeapBytes(
+                            observation.get().peakBytes(), minBytes, maxBytes, getHeadroom().get());
+                    if (suggestedBytes < configuredBytes) {
+                        reducible.add(String.format(
+                                "%s: maxHeapSize %s could be %s, as its peak heap usage after GC was %s",
+                                test.getPath(),
+                                test.getMaxHeapSize(),
+                                HeapSizes.format(suggestedBytes),
+                                HeapSizes.format(observation.get().peakBytes())));
+                    }
+                });
+
+        File reportFile = getReportFile().get().getAsFile();
+        try {
+            Files.createDirectories(reportFile.getParentFile().toPath());
+            Files.write(reportFile.toPath(), reducible, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + reportFile, e);
+        }
+        if (reducible.isEmpty()) {
+            getLogger().lifecycle("No test task heaps of {} could be reduced", getProject().getPath());
+        } else {
+            reducible.forEach(getLogger()::lifecycle);
+        }
+    }
+}
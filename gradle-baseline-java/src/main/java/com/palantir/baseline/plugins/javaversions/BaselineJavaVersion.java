@@ -16,7 +16,10 @@
 
 package com.palantir.baseline.plugins.javaversions;
 
+import com.google.common.base.Stopwatch;
+import com.palantir.baseline.services.JdkMetadataCache;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import org.gradle.api.Action;
 import org.gradle.api.DefaultTask;
@@ -59,6 +62,7 @@ public final class BaselineJavaVersion implements Plugin<Project> {
                 project.getExtensions().create(EXTENSION_NAME, BaselineJavaVersionExtension.class, project);
 
         project.getPluginManager().withPlugin("java", unused -> {
+            Stopwatch stopwatch = Stopwatch.createStarted();
             JavaPluginExtension javaPluginExtension = project.getExtensions().getByType(JavaPluginExtension.class);
 
             JavaToolchainService toolchainService = project.getExtensions().getByType(JavaToolchainService.class);
@@ -78,7 +82,11 @@ public final class BaselineJavaVersion implements Plugin<Project> {
             BaselineJavaVersionsExtension rootExtension =
                     project.getRootProject().getExtensions().getByType(BaselineJavaVersionsExtension.class);
 
-            JavaToolchains baselineConfiguredJavaToolchains = new JavaToolchains(project, rootExtension);
+            Provider<JdkMetadataCache> jdkMetadataCache = project.getGradle()
+                    .getSharedServices()
+                    .registerIfAbsent("baselineJdkMetadataCache", JdkMetadataCache.class, _spec -> {});
+            JavaToolchains baselineConfiguredJavaToolchains =
+                    new JavaToolchains(project, rootExtension, jdkMetadataCache);
 
             // Compilation tasks (using target version)
             configureCompilationTasks(
@@ -89,6 +97,7 @@ public final class BaselineJavaVersion implements Plugin<Project> {
                     project, extension.runtime(), baselineConfiguredJavaToolchains, rootExtension, toolchainService);
 
             // Validation
+            MaxBytecodeVersionTransform.register(project);
             TaskProvider<CheckJavaVersionsTask> checkJavaVersions = project.getTasks()
                     .register("checkJavaVersions", CheckJavaVersionsTask.class, task -> {
                         task.getTargetVersion().set(extension.target());
@@ -99,12 +108,15 @@ public final class BaselineJavaVersion implements Plugin<Project> {
                     .register("checkRuntimeClasspathCompatible", CheckClasspathCompatible.class, task -> {
                         task.getClasspathName().set("runtime");
                         task.getJavaVersion().set(extension.runtime());
-                        task.getClasspath().setFrom(project.getConfigurations().getByName("runtimeClasspath"));
+                        task.getMaxBytecodeVersions()
+                                .setFrom(MaxBytecodeVersionTransform.maxBytecodeVersions(
+                                        project.getConfigurations().getByName("runtimeClasspath")));
                     });
 
             project.getTasks().named("check").configure(check -> {
                 check.dependsOn(checkJavaVersions, checkRuntimeClasspathCompatible);
             });
+            log.debug("Configured java versions for {} in {}ms", project, stopwatch.elapsed(TimeUnit.MILLISECONDS));
         });
     }
 
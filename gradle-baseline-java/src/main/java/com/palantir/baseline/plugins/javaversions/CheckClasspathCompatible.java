@@ -16,28 +16,29 @@
 
 package com.palantir.baseline.plugins.javaversions;
 
-import com.google.common.io.ByteStreams;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Shorts;
-import java.io.BufferedInputStream;
+import com.google.common.base.Splitter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
 import java.util.Optional;
-import java.util.jar.JarEntry;
-import java.util.jar.JarInputStream;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.Classpath;
 import org.gradle.api.tasks.Console;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
 
 public abstract class CheckClasspathCompatible extends DefaultTask {
-    private static final int BYTECODE_IDENTIFIER = 0xCAFEBABE;
+    private static final Splitter VERSION_SPLITTER = Splitter.on(' ').limit(2);
 
     @Console
     public abstract Property<String> getClasspathName();
@@ -45,18 +46,39 @@ public abstract class CheckClasspathCompatible extends DefaultTask {
     @Input
     public abstract Property<ChosenJavaVersion> getJavaVersion();
 
+    /**
+     * The highest bytecode major version of each jar on the classpath, as computed by
+     * {@link MaxBytecodeVersionTransform}.
+     */
+    @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    public abstract ConfigurableFileCollection getMaxBytecodeVersions();
+
+    /**
+     * Jars to check directly.
+     *
+     * @deprecated Use {@link #getMaxBytecodeVersions()}, which reuses the result for each jar between builds and
+     *     projects. Jars added here are read in full every time this task runs.
+     */
+    @Deprecated
     @Classpath
     public abstract ConfigurableFileCollection getClasspath();
 
     @TaskAction
     public final void action() {
-        String exampleBadClassesPerJar = getClasspath().getFiles().stream()
+        Stream<String> fromMaxBytecodeVersions = getMaxBytecodeVersions().getFiles().stream()
+                .filter(file -> file.getName().endsWith(MaxBytecodeVersionTransform.OUTPUT_SUFFIX))
+                .flatMap(file -> tooHighBytecodeMajorVersion(readMaxBytecodeVersion(file))
+                        .map(exampleClassInJar -> jarName(file) + ": " + exampleClassInJar)
+                        .stream());
+        Stream<String> fromClasspath = getClasspath().getFiles().stream()
                 .filter(file -> file.getName().endsWith(".jar"))
-                .flatMap(file ->
-                        tooHighBytecodeMajorVersionInJar(file)
-                                .map(exampleClassInJar -> file.getAbsolutePath() + ": " + exampleClassInJar)
-                                .stream())
-                .collect(Collectors.joining("\n"));
+                .flatMap(file -> MaxBytecodeVersionTransform.maxBytecodeVersionOf(file)
+                        .flatMap(this::tooHighBytecodeMajorVersion)
+                        .map(exampleClassInJar -> file.getAbsolutePath() + ": " + exampleClassInJar)
+                        .stream());
+        String exampleBadClassesPerJar =
+                Stream.concat(fromMaxBytecodeVersions, fromClasspath).collect(Collectors.joining("\n"));
 
         if (exampleBadClassesPerJar.isEmpty()) {
             return;
@@ -74,53 +96,29 @@ public abstract class CheckClasspathCompatible extends DefaultTask {
                 exampleBadClassesPerJar));
     }
 
-    private Optional<String> tooHighBytecodeMajorVersionInJar(File file) {
-        try (JarInputStream jarInputStream = new JarInputStream(new BufferedInputStream(new FileInputStream(file)))) {
-            JarEntry entry;
-            while ((entry = jarInputStream.getNextJarEntry()) != null) {
-                String entryName = entry.getName();
-                // We don't care about higher versions of classes in multi-release jars as JVMs will only
-                // load classes from here that match or are higher than their current version
-                boolean isMultiReleaseClass = entryName.contains("META-INF/versions");
-                boolean isntClassFile = !entryName.endsWith(".class");
-
-                if (isMultiReleaseClass || isntClassFile) {
-                    continue;
-                }
-
-                Optional<String> bytecodeMajorVersionTooHigh = bytecodeMajorVersionForClassFile(jarInputStream)
-                        .filter(bytecodeMajorVersion ->
-                                bytecodeMajorVersion > getJavaVersion().get().asBytecodeMajorVersion())
-                        .map(bytecodeMajorVersion -> entryName + " has bytecode major version " + bytecodeMajorVersion);
-
-                if (bytecodeMajorVersionTooHigh.isPresent()) {
-                    return bytecodeMajorVersionTooHigh;
-                }
-            }
+    private static String readMaxBytecodeVersion(File maxBytecodeVersion) {
+        try {
+            return Files.readString(maxBytecodeVersion.toPath(), StandardCharsets.UTF_8);
         } catch (IOException e) {
-            throw new RuntimeException("Failed when checking classpath compatibility of: " + file, e);
+            throw new UncheckedIOException(e);
         }
-
-        return Optional.empty();
     }
 
-    private static Optional<Integer> bytecodeMajorVersionForClassFile(InputStream classFile) throws IOException {
-        // Avoid DataInputStream as it allocates 240+ bytes on construction
-        byte[] buf = new byte[4];
-        ByteStreams.readFully(classFile, buf);
-        int magic = Ints.fromByteArray(buf);
-
-        if (magic != BYTECODE_IDENTIFIER) {
-            // Skip as it's not a class file
+    private Optional<String> tooHighBytecodeMajorVersion(String contents) {
+        if (contents.isEmpty()) {
             return Optional.empty();
         }
 
-        // Read the minor and major version (both u16s)
-        ByteStreams.readFully(classFile, buf);
-
-        // The first two bytes make up the minor version, so take the second
-        int majorBytecodeVersion = 0xFFFF & Shorts.fromBytes(buf[2], buf[3]);
+        List<String> versionAndEntry = VERSION_SPLITTER.splitToList(contents);
+        int bytecodeMajorVersion = Integer.parseInt(versionAndEntry.get(0));
+        if (bytecodeMajorVersion <= getJavaVersion().get().asBytecodeMajorVersion()) {
+            return Optional.empty();
+        }
+        return Optional.of(versionAndEntry.get(1) + " has bytecode major version " + bytecodeMajorVersion);
+    }
 
-        return Optional.of(majorBytecodeVersion);
+    private static String jarName(File maxBytecodeVersion) {
+        String fileName = maxBytecodeVersion.getName();
+        return fileName.substring(0, fileName.length() - MaxBytecodeVersionTransform.OUTPUT_SUFFIX.length());
     }
 }
@@ -16,37 +16,50 @@
 
 package com.palantir.baseline.plugins.javaversions;
 
+import com.palantir.baseline.services.JdkMetadataCache;
 import org.gradle.api.Project;
 import org.gradle.api.provider.Provider;
 import org.gradle.jvm.toolchain.JavaInstallationMetadata;
+import org.gradle.jvm.toolchain.JavaLanguageVersion;
 import org.gradle.jvm.toolchain.JavaToolchainService;
 
 public final class JavaToolchains {
     private final Project project;
     private final BaselineJavaVersionsExtension baselineJavaVersionsExtension;
+    private final Provider<JdkMetadataCache> jdkMetadataCache;
 
-    public JavaToolchains(Project project, BaselineJavaVersionsExtension baselineJavaVersionsExtension) {
+    public JavaToolchains(
+            Project project,
+            BaselineJavaVersionsExtension baselineJavaVersionsExtension,
+            Provider<JdkMetadataCache> jdkMetadataCache) {
         this.project = project;
         this.baselineJavaVersionsExtension = baselineJavaVersionsExtension;
+        this.jdkMetadataCache = jdkMetadataCache;
     }
 
     public Provider<BaselineJavaToolchain> forVersion(Provider<ChosenJavaVersion> javaLanguageVersionProvider) {
         return javaLanguageVersionProvider.map(chosenJavaVersion -> {
-            Provider<JavaInstallationMetadata> configuredJdkMetadata =
-                    project.provider(() -> baselineJavaVersionsExtension
-                            .jdkMetadataFor(chosenJavaVersion.javaLanguageVersion(), project)
-                            .orElseGet(() -> project.getExtensions()
+            JavaLanguageVersion javaLanguageVersion = chosenJavaVersion.javaLanguageVersion();
+            Provider<JavaInstallationMetadata> configuredJdkMetadata = project.provider(() -> jdkMetadataCache
+                    .get()
+                    .configuredMetadataFor(
+                            javaLanguageVersion,
+                            project.getPath(),
+                            () -> baselineJavaVersionsExtension.jdkMetadataFor(javaLanguageVersion, project))
+                    .orElseGet(() -> jdkMetadataCache
+                            .get()
+                            .toolchainMetadataFor(javaLanguageVersion, () -> project.getExtensions()
                                     .getByType(JavaToolchainService.class)
                                     .launcherFor(javaToolchainSpec -> javaToolchainSpec
                                             .getLanguageVersion()
-                                            .set(chosenJavaVersion.javaLanguageVersion()))
+                                            .set(javaLanguageVersion))
                                     .get()
-                                    .getMetadata()));
+                                    .getMetadata())));
 
             return new ConfiguredJavaToolchain(
                     project.getObjects(),
                     project.provider(() -> JavaInstallationMetadataProxy.proxyForVersion(
-                            chosenJavaVersion.javaLanguageVersion(), configuredJdkMetadata)));
+                            javaLanguageVersion, configuredJdkMetadata)));
         });
     }
 }
@@ -0,0 +1,152 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.javaversions;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Shorts;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.transform.InputArtifact;
+import org.gradle.api.artifacts.transform.TransformAction;
+import org.gradle.api.artifacts.transform.TransformOutputs;
+import org.gradle.api.artifacts.transform.TransformParameters;
+import org.gradle.api.artifacts.type.ArtifactTypeDefinition;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileSystemLocation;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.work.DisableCachingByDefault;
+
+/**
+ * Records the highest bytecode major version of the classes in a jar, along with an example class which has that
+ * version, so that {@link CheckClasspathCompatible} only needs to compare precomputed values. Gradle caches the
+ * result for each distinct jar and runs transforms for different jars in parallel.
+ *
+ * <p>The output is a single line of the form {@code <major version> <class entry>}, or an empty file if the jar
+ * contains no classes. Classes under {@code META-INF/versions} are ignored, as JVMs only load them when they match or
+ * are higher than the running version.
+ */
+@DisableCachingByDefault(because = "Cheaper to recompute than to download from the build cache")
+public abstract class MaxBytecodeVersionTransform implements TransformAction<TransformParameters.None> {
+    private static final String ARTIFACT_TYPE = "baseline-max-bytecode-version";
+    static final String OUTPUT_SUFFIX = ".max-bytecode-version";
+
+    private static final int BYTECODE_IDENTIFIER = 0xCAFEBABE;
+
+    @InputArtifact
+    @Classpath
+    public abstract Provider<FileSystemLocation> getInputArtifact();
+
+    static void register(Project project) {
+        project.getDependencies().registerTransform(MaxBytecodeVersionTransform.class, spec -> {
+            spec.getFrom().attribute(ArtifactTypeDefinition.ARTIFACT_TYPE_ATTRIBUTE, ArtifactTypeDefinition.JAR_TYPE);
+            spec.getTo().attribute(ArtifactTypeDefinition.ARTIFACT_TYPE_ATTRIBUTE, ARTIFACT_TYPE);
+        });
+    }
+
+    /** The outputs of this transform for every jar in the given configuration. */
+    static FileCollection maxBytecodeVersions(Configuration configuration) {
+        return configuration
+                .getIncoming()
+                .artifactView(view ->
+                        view.getAttributes().attribute(ArtifactTypeDefinition.ARTIFACT_TYPE_ATTRIBUTE, ARTIFACT_TYPE))
+                .getFiles();
+    }
+
+    @Override
+    public final void transform(TransformOutputs outputs) {
+        File jar = getInputArtifact().get().getAsFile();
+        if (!jar.isFile()) {
+            return;
+        }
+
+        String maxVersion = maxBytecodeVersionOf(jar).orElse("");
+        try {
+            Files.writeString(outputs.file(jar.getName() + OUTPUT_SUFFIX).toPath(), maxVersion, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** The highest bytecode major version in the given jar and an example class, in the format of the output. */
+    static Optional<String> maxBytecodeVersionOf(File jar) {
+        return maxBytecodeVersion(jar).map(version -> version.majorVersion + " " + version.entryName);
+    }
+
+    private static Optional<ClassVersion> maxBytecodeVersion(File jar) {
+        ClassVersion max = null;
+        // ZipFile reads entries through the central directory, so only the header of each class is inflated
+        try (ZipFile zipFile = new ZipFile(jar)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String entryName = entry.getName();
+                boolean isMultiReleaseClass = entryName.contains("META-INF/versions");
+                if (entry.isDirectory() || isMultiReleaseClass || !entryName.endsWith(".class")) {
+                    continue;
+                }
+
+                try (InputStream classFile = zipFile.getInputStream(entry)) {
+                    Optional<Integer> majorVersion = bytecodeMajorVersionForClassFile(classFile);
+                    if (majorVersion.isPresent() && (max == null || majorVersion.get() > max.majorVersion)) {
+                        max = new ClassVersion(majorVersion.get(), entryName);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed when checking classpath compatibility of: " + jar, e);
+        }
+        return Optional.ofNullable(max);
+    }
+
+    private static Optional<Integer> bytecodeMajorVersionForClassFile(InputStream classFile) throws IOException {
+        // Avoid DataInputStream as it allocates 240+ bytes on construction
+        byte[] buf = new byte[8];
+        if (ByteStreams.read(classFile, buf, 0, buf.length) < buf.length) {
+            return Optional.empty();
+        }
+
+        if (Ints.fromBytes(buf[0], buf[1], buf[2], buf[3]) != BYTECODE_IDENTIFIER) {
+            // Skip as it's not a class file
+            return Optional.empty();
+        }
+
+        // The minor version (u16) comes before the major version (u16)
+        return Optional.of(0xFFFF & Shorts.fromBytes(buf[6], buf[7]));
+    }
+
+    private static final class ClassVersion {
+        private final int majorVersion;
+        private final String entryName;
+
+        ClassVersion(int majorVersion, String entryName) {
+            this.majorVersion = majorVersion;
+            this.entryName = entryName;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.testing;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.palantir.baseline.util.GitUtils;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.testing.Test;
+import org.gradle.api.tasks.testing.TestFilter;
+
+/**
+ * Restricts a {@link Test} task to the test classes affected by the classes which changed since its last successful
+ * run, or since a git ref.
+ *
+ * <p>A test class is affected if it directly or transitively references a changed class, where references are read
+ * from the compiled classes of every project on the test runtime classpath. All tests run when anything else changed,
+ * such as resources, third-party jars or build scripts. Classes which are only used through reflection, e.g. by
+ * {@link java.util.ServiceLoader}, are not known to be referenced.
+ */
+public final class AffectedTests {
+    private static final Logger log = Logging.getLogger(AffectedTests.class);
+
+    private static final Pattern SOURCE_FILE =
+            Pattern.compile("(?:^|/)src/[^/]+/(?:java|groovy)/(.+)\\.(?:java|groovy)$");
+    private static final ImmutableSet<String> BUILD_FILE_EXTENSIONS =
+            ImmutableSet.of(".gradle", ".gradle.kts", ".properties", ".props", ".lock");
+
+    private AffectedTests() {}
+
+    /** Restricts the given task to affected tests, relative to its last successful run or to the given git ref. */
+    public static void configure(Test test, Optional<String> sinceRef) {
+        Project project = test.getProject();
+        test.getOutputs().doNotCacheIf("Only affected tests run", t -> true);
+        // Selecting before any action runs means the task is skipped as a whole when no tests are affected, so that
+        // actions added by other plugins don't leave state behind for a run that never happened
+        test.onlyIf(new SelectAffectedTests(
+                project.getRootDir(),
+                buildFiles(project.getRootProject()),
+                sinceRef.orElse(null),
+                hasCommandLineTestPatterns(project)));
+        test.doLast(new RecordSuccessfulRunAction());
+    }
+
+    private static boolean hasCommandLineTestPatterns(Project project) {
+        // Patterns passed with `--tests` are not visible through the public TestFilter API
+        return project.getGradle().getStartParameter().getTaskRequests().stream()
+                .flatMap(request -> request.getArgs().stream())
+                .anyMatch(arg -> arg.equals("--tests") || arg.startsWith("--tests="));
+    }
+
+    private static ImmutableList<File> buildFiles(Project rootProject) {
+        ImmutableList.Builder<File> buildFiles = ImmutableList.builder();
+        rootProject.getAllprojects().forEach(project -> buildFiles.add(project.getBuildFile()));
+        for (File directory : List.of(rootProject.getRootDir(), new File(rootProject.getRootDir(), "gradle"))) {
+            File[] files = directory.listFiles(file -> file.isFile()
+                    && BUILD_FILE_EXTENSIONS.stream().anyMatch(file.getName()::endsWith));
+            if (files != null) {
+                buildFiles.add(files);
+            }
+        }
+        return buildFiles.build();
+    }
+
+    private static File lastSuccessfulSnapshot(Test test) {
+        return new File(test.getTemporaryDir(), "affected-tests.snapshot");
+    }
+
+    private static File pendingSnapshot(Test test) {
+        return new File(test.getTemporaryDir(), "affected-tests.snapshot.pending");
+    }
+
+    /** Adds includes for the affected test classes, and skips the task if there are none. */
+    private static final class SelectAffectedTests implements Spec<Task> {
+        private final File rootDir;
+        private final ImmutableList<File> buildFiles;
+
+        @Nullable
+        private final String sinceRef;
+
+        private final boolean commandLineTestPatterns;
+
+        SelectAffectedTests(
+                File rootDir,
+                ImmutableList<File> buildFiles,
+                @Nullable String sinceRef,
+                boolean commandLineTestPatterns) {
+            this.rootDir = rootDir;
+            this.buildFiles = buildFiles;
+            this.sinceRef = sinceRef;
+            this.commandLineTestPatterns = commandLineTestPatterns;
+        }
+
+        @Override
+        public boolean isSatisfiedBy(Task task) {
+            Test test = (Test) task;
+            // Left behind by a failed run
+            pendingSnapshot(test).delete();
+            if (test.getIgnoreFailures() || !test.getIncludes().isEmpty() || hasFilterPatterns(test)) {
+                // Failed tests would be skipped next time, and further includes would run more classes, not fewer.
+                // A run restricted by a filter, e.g. `--tests` or a CI node's share of the tests, must not be
+                // recorded either, as the tests it did not run would be treated as passing next time.
+                log.info(
+                        "Running all tests of {}, as it ignores failures or already has include or filter patterns",
+                        test);
+                return true;
+            }
+
+            ClasspathSnapshot snapshot = ClasspathSnapshot.take(
+                    test.getClasspath(),
+                    jar -> jar.toPath().startsWith(rootDir.toPath()),
+                    buildFiles,
+                    jvmArgsAffectingTests(test));
+            String since = sinceRef == null ? "its last successful run" : sinceRef;
+            Optional<Set<String>> changedClasses;
+            if (sinceRef == null) {
+                snapshot.write(pendingSnapshot(test));
+                changedClasses =
+                        ClasspathSnapshot.read(lastSuccessfulSnapshot(test)).flatMap(snapshot::changedClassesSince);
+            } else {
+                changedClasses = changedClassesSince(sinceRef);
+            }
+            if (changedClasses.isEmpty()) {
+                log.info("Running all tests of {}, as more than classes may have changed since {}", test, since);
+                return true;
+            }
+
+            ImmutableSet<String> testClasses = ClasspathSnapshot.topLevelClassesIn(test.getTestClassesDirs());
+            Set<String> affectedTestClasses = new HashSet<>(
+                    Sets.intersection(snapshot.topLevelClassesDependingOn(changedClasses.get()), testClasses));
+            log.lifecycle(
+                    "Running {} of {} test classes of {}, which are affected by changes since {}",
+                    affectedTestClasses.size(),
+                    testClasses.size(),
+                    test.getPath(),
+                    since);
+            if (affectedTestClasses.isEmpty()) {
+                new RecordSuccessfulRunAction().execute(test);
+                return false;
+            }
+            for (String testClass : affectedTestClasses) {
+                String path = testClass.replace('.', '/');
+                test.include(path + ".class", path + "$*.class");
+            }
+            return true;
+        }
+
+        private boolean hasFilterPatterns(Test test) {
+            TestFilter filter = test.getFilter();
+            return commandLineTestPatterns
+                    || !filter.getIncludePatterns().isEmpty()
+                    || !filter.getExcludePatterns().isEmpty();
+        }
+
+        private static String jvmArgsAffectingTests(Test test) {
+            // Heap sizes and GC logs can change between runs, e.g. with the adaptive test heap
+            return test.getAllJvmArgs().stream()
+                    .filter(arg -> !arg.startsWith("-Xmx") && !arg.startsWith("-Xms") && !arg.startsWith("-Xlog:gc"))
+                    .collect(Collectors.joining(" "));
+        }
+
+        /** Maps changed source files to the top-level classes they most likely define. */
+        private Optional<Set<String>> changedClassesSince(String ref) {
+            Optional<List<String>> changedFiles = GitUtils.maybeChangedFilesSince(rootDir, ref);
+            if (changedFiles.isEmpty()) {
+                log.warn("Unable to list the files changed since git ref {}", ref);
+                return Optional.empty();
+            }
+            Set<String> changedClasses = new HashSet<>();
+            for (String changedFile : changedFiles.get()) {
+                if (changedFile.endsWith(".md")) {
+                    continue;
+                }
+                Matcher matcher = SOURCE_FILE.matcher(changedFile);
+                if (!matcher.find()) {
+                    log.info("{} changed since {}, which may affect any test", changedFile, ref);
+                    return Optional.empty();
+                }
+                changedClasses.add(matcher.group(1).replace('/', '.'));
+            }
+            return Optional.of(changedClasses);
+        }
+    }
+
+    /** Keeps the snapshot taken before a run once all of its tests passed. */
+    private static final class RecordSuccessfulRunAction implements Action<Task> {
+        @Override
+        public void execute(Task task) {
+            Test test = (Test) task;
+            File pendingSnapshot = pendingSnapshot(test);
+            if (!pendingSnapshot.isFile()) {
+                return;
+            }
+            try {
+                Files.move(
+                        pendingSnapshot.toPath(),
+                        lastSuccessfulSnapshot(test).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to record successful run of " + test, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.testing;
+
+import com.google.common.base.CharMatcher;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.gradle.api.Action;
+import org.gradle.api.Task;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.testing.Test;
+
+/**
+ * Runs a test task with the fewest forks that are expected to finish its test classes as quickly as the configured
+ * {@code maxParallelForks}, based on the class durations in the task's JUnit XML reports from its previous run.
+ *
+ * <p>Gradle hands test classes to forks round-robin in the order it finds them, so plugins can't choose the fork of a
+ * class. The candidate class files are visited in that same order and each fork count is compared under the
+ * round-robin assignment Gradle will actually make: when a few long classes dominate, the remaining forks finish early
+ * and only add JVM startup and memory.
+ */
+public final class BalanceTestForksAction implements Action<Task> {
+    private static final Logger log = Logging.getLogger(BalanceTestForksAction.class);
+    private static final String CLASS_SUFFIX = ".class";
+
+    @Override
+    public void execute(Task task) {
+        Test test = (Test) task;
+        int maxForks = test.getMaxParallelForks();
+        if (maxForks <= 1) {
+            return;
+        }
+
+        // Read before the task replaces the reports of its previous run
+        File reportsDir = test.getReports().getJunitXml().getOutputLocation().get().getAsFile();
+        TestTimings timings = TestTimings.readReports(reportsDir);
+        if (timings.isEmpty()) {
+            log.debug("No previous test reports in {}, running {} with {} forks", reportsDir, test, maxForks);
+            return;
+        }
+
+        List<Double> secondsInScanOrder = secondsInScanOrder(test, timings);
+        int forks = fewestForks(secondsInScanOrder, maxForks);
+        if (forks < maxForks) {
+            log.info(
+                    "Running {} with {} instead of {} forks, as its longest fork should take {}s either way",
+                    test,
+                    forks,
+                    maxForks,
+                    Math.round(TestPartitions.roundRobinLongestSeconds(secondsInScanOrder, forks)));
+            test.setMaxParallelForks(forks);
+        }
+    }
+
+    /**
+     * The fewest forks whose longest fork takes no longer than with {@code maxForks}, when Gradle hands out the classes
+     * round-robin in the given order.
+     */
+    static int fewestForks(List<Double> secondsInScanOrder, int maxForks) {
+        double fastestSeconds = TestPartitions.roundRobinLongestSeconds(secondsInScanOrder, maxForks);
+        for (int forks = 1; forks < maxForks; forks++) {
+            if (TestPartitions.roundRobinLongestSeconds(secondsInScanOrder, forks) <= fastestSeconds) {
+                return forks;
+            }
+        }
+        return maxForks;
+    }
+
+    /**
+     * The previous duration of each class file Gradle will hand to a fork, in the order it does so. Like Gradle, this
+     * includes classes which turn out not to be tests, as they still take their turn in the round-robin.
+     */
+    private static List<Double> secondsInScanOrder(Test test, TestTimings timings) {
+        List<Double> secondsInScanOrder = new ArrayList<>();
+        test.getCandidateClassFiles().visit(file -> {
+            String path = file.getPath();
+            if (!file.isDirectory() && path.endsWith(CLASS_SUFFIX) && !isAnonymousClass(file.getName())) {
+                String className = path.substring(0, path.length() - CLASS_SUFFIX.length()).replace('/', '.');
+                secondsInScanOrder.add(timings.secondsByClass().getOrDefault(className, 0.0));
+            }
+        });
+        return secondsInScanOrder;
+    }
+
+    /** Gradle never runs anonymous classes such as {@code Foo$1}, so they don't take a turn. */
+    private static boolean isAnonymousClass(String fileName) {
+        int lastDollar = fileName.lastIndexOf('$');
+        if (lastDollar < 0) {
+            return false;
+        }
+        String suffix = fileName.substring(lastDollar + 1, fileName.length() - CLASS_SUFFIX.length());
+        return !suffix.isEmpty() && CharMatcher.inRange('0', '9').matchesAllOf(suffix);
+    }
+}
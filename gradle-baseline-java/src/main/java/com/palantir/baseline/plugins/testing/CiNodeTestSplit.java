@@ -0,0 +1,152 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.testing;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSetMultimap;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.testing.Test;
+import org.gradle.api.tasks.testing.TestFilter;
+
+/**
+ * Splits the test classes of every {@link Test} task in a build between parallel CI nodes, so that each node runs a
+ * subset of similar total duration.
+ *
+ * <p>Durations come from the JUnit XML reports of a previous build, laid out as {@code BaselineCircleCi} writes them:
+ * one directory per task, at the task's path below the timings directory. Every node reads the same reports and
+ * partitions them the same way, so each test class with a known duration runs on exactly one node. Classes without a
+ * known duration, e.g. new ones, run on one node per task, chosen by the task's path.
+ */
+public final class CiNodeTestSplit {
+    private static final Logger log = Logging.getLogger(CiNodeTestSplit.class);
+
+    // Separates task paths from class names in partition keys, as neither can contain spaces
+    private static final String SEPARATOR = " ";
+
+    private final int nodeIndex;
+    private final int nodeCount;
+    private final ImmutableSetMultimap<String, String> classesOfThisNodeByTaskPath;
+    private final ImmutableSetMultimap<String, String> classesOfOtherNodesByTaskPath;
+
+    private CiNodeTestSplit(
+            int nodeIndex,
+            int nodeCount,
+            ImmutableSetMultimap<String, String> classesOfThisNodeByTaskPath,
+            ImmutableSetMultimap<String, String> classesOfOtherNodesByTaskPath) {
+        this.nodeIndex = nodeIndex;
+        this.nodeCount = nodeCount;
+        this.classesOfThisNodeByTaskPath = classesOfThisNodeByTaskPath;
+        this.classesOfOtherNodesByTaskPath = classesOfOtherNodesByTaskPath;
+    }
+
+    /** Splits test classes using the reports in the given directory, or only by task if there is none. */
+    public static CiNodeTestSplit fromReports(Optional<File> timingsDir, int nodeIndex, int nodeCount) {
+        Preconditions.checkArgument(
+                nodeIndex >= 0 && nodeIndex < nodeCount,
+                "Node index %s is not between 0 and the node count %s",
+                nodeIndex,
+                nodeCount);
+
+        Map<String, Double> secondsByTestClass = new HashMap<>();
+        for (Map.Entry<String, Path> task : reportDirectoriesByTaskPath(timingsDir).entrySet()) {
+            TestTimings.readReports(task.getValue().toFile())
+                    .secondsByClass()
+                    .forEach((className, seconds) ->
+                            secondsByTestClass.put(task.getKey() + SEPARATOR + className, seconds));
+        }
+
+        ImmutableSetMultimap.Builder<String, String> classesOfThisNode = ImmutableSetMultimap.builder();
+        ImmutableSetMultimap.Builder<String, String> classesOfOtherNodes = ImmutableSetMultimap.builder();
+        for (TestPartitions.Partition<String> partition : TestPartitions.partition(secondsByTestClass, nodeCount)) {
+            ImmutableSetMultimap.Builder<String, String> classes =
+                    partition.index() == nodeIndex ? classesOfThisNode : classesOfOtherNodes;
+            for (String testClass : partition.tests()) {
+                int separator = testClass.indexOf(SEPARATOR);
+                classes.put(testClass.substring(0, separator), testClass.substring(separator + 1));
+            }
+            if (partition.index() == nodeIndex) {
+                log.info(
+                        "CI node {} of {} runs {} test classes with a total duration of {}s",
+                        nodeIndex,
+                        nodeCount,
+                        partition.tests().size(),
+                        Math.round(partition.seconds()));
+            }
+        }
+        return new CiNodeTestSplit(nodeIndex, nodeCount, classesOfThisNode.build(), classesOfOtherNodes.build());
+    }
+
+    /** Restricts the given task to the test classes of this node. */
+    public void configure(Test test) {
+        String taskPath = test.getPath();
+        Set<String> classesOfThisNode = classesOfThisNodeByTaskPath.get(taskPath);
+        TestFilter filter = test.getFilter();
+        // Test classes that were removed since the reports were written won't match anything
+        filter.setFailOnNoMatchingTests(false);
+
+        if (runsNewTestClasses(taskPath)) {
+            classesOfOtherNodesByTaskPath.get(taskPath).forEach(filter::excludeTestsMatching);
+        } else if (classesOfThisNode.isEmpty()) {
+            log.info("Skipping {} as none of its test classes run on CI node {}", taskPath, nodeIndex);
+            test.setEnabled(false);
+        } else {
+            classesOfThisNode.forEach(filter::includeTestsMatching);
+        }
+    }
+
+    private boolean runsNewTestClasses(String taskPath) {
+        // String hash codes are the same in every JVM, so all nodes agree on this
+        return Math.floorMod(taskPath.hashCode(), nodeCount) == nodeIndex;
+    }
+
+    private static ImmutableMap<String, Path> reportDirectoriesByTaskPath(Optional<File> timingsDir) {
+        if (timingsDir.isEmpty() || !timingsDir.get().isDirectory()) {
+            log.info("No previous test reports, only splitting test tasks between CI nodes");
+            return ImmutableMap.of();
+        }
+        Path timingsPath = timingsDir.get().toPath();
+        try (Stream<Path> files = Files.walk(timingsPath)) {
+            return files.filter(TestTimings::isReport)
+                    .map(Path::getParent)
+                    .distinct()
+                    .collect(ImmutableMap.toImmutableMap(
+                            reportsDir -> taskPath(timingsPath.relativize(reportsDir)), reportsDir -> reportsDir));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list test reports in " + timingsDir, e);
+        }
+    }
+
+    private static String taskPath(Path relativeReportsDir) {
+        return StreamSupport.stream(relativeReportsDir.spliterator(), false)
+                .map(Path::toString)
+                .collect(Collectors.joining(":", ":", ""));
+    }
+}
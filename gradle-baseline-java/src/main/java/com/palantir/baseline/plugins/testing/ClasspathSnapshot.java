@@ -0,0 +1,316 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.testing;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.palantir.baseline.plugins.BaselineExactDependencies;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The classes on a test runtime classpath which are built by this build, along with a single hash of everything else
+ * that could affect the outcome of the tests: third-party jars, resources, build scripts and the test task's JVM
+ * configuration.
+ *
+ * <p>Classes are only compared by name and hash, but the references between them are kept so that the classes
+ * depending on a changed class can be found. Classes built by this build include those in jars of other projects, so
+ * references are followed across project boundaries.
+ */
+final class ClasspathSnapshot {
+    private static final int MAGIC = 0xBA5E_7E57;
+    private static final int FORMAT_VERSION = 1;
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final ImmutableMap<String, HashCode> hashesByClass;
+    private final ImmutableSetMultimap<String, String> referencesByClass;
+    private final HashCode otherInputs;
+
+    private ClasspathSnapshot(
+            ImmutableMap<String, HashCode> hashesByClass,
+            ImmutableSetMultimap<String, String> referencesByClass,
+            HashCode otherInputs) {
+        this.hashesByClass = hashesByClass;
+        this.referencesByClass = referencesByClass;
+        this.otherInputs = otherInputs;
+    }
+
+    /**
+     * Snapshots the given classpath, where only directories and jars matching {@code isBuiltJar} contain classes of
+     * this build.
+     */
+    static ClasspathSnapshot take(
+            Iterable<File> classpath, Predicate<File> isBuiltJar, Iterable<File> buildFiles, String configuration) {
+        Map<String, HashCode> hashesByClass = new HashMap<>();
+        ImmutableSetMultimap.Builder<String, String> referencesByClass = ImmutableSetMultimap.builder();
+        SortedMap<String, HashCode> otherInputs = new TreeMap<>();
+
+        for (File entry : classpath) {
+            if (entry.isDirectory()) {
+                snapshotDirectory(entry, hashesByClass, referencesByClass, otherInputs);
+            } else if (entry.isFile() && isBuiltJar.test(entry)) {
+                snapshotJar(entry, hashesByClass, referencesByClass, otherInputs);
+            } else if (entry.isFile()) {
+                // Third-party jars are never modified in place, so their path and size identify them
+                otherInputs.put("jar:" + entry.getAbsolutePath(), HASH_FUNCTION.hashLong(entry.length()));
+            }
+        }
+        for (File buildFile : buildFiles) {
+            if (buildFile.isFile()) {
+                otherInputs.put("build:" + buildFile.getAbsolutePath(), hash(buildFile.toPath()));
+            }
+        }
+        otherInputs.put("configuration", HASH_FUNCTION.hashString(configuration, StandardCharsets.UTF_8));
+
+        Hasher otherInputsHasher = HASH_FUNCTION.newHasher();
+        otherInputs.forEach((key, hash) -> otherInputsHasher
+                .putString(key, StandardCharsets.UTF_8)
+                .putBytes(hash.asBytes()));
+        return new ClasspathSnapshot(
+                ImmutableMap.copyOf(hashesByClass), referencesByClass.build(), otherInputsHasher.hash());
+    }
+
+    /**
+     * The classes which were added, modified or removed since the previous snapshot, or empty if anything other than
+     * classes built by this build changed.
+     */
+    Optional<Set<String>> changedClassesSince(ClasspathSnapshot previous) {
+        if (!otherInputs.equals(previous.otherInputs)) {
+            return Optional.empty();
+        }
+        Set<String> changedClasses = new HashSet<>();
+        hashesByClass.forEach((className, hash) -> {
+            if (!hash.equals(previous.hashesByClass.get(className))) {
+                changedClasses.add(className);
+            }
+        });
+        previous.hashesByClass.keySet().stream()
+                .filter(className -> !hashesByClass.containsKey(className))
+                .forEach(changedClasses::add);
+        return Optional.of(changedClasses);
+    }
+
+    /**
+     * The top-level classes which directly or transitively reference one of the given classes, including the given
+     * classes themselves. Nested classes and their enclosing classes always reference each other.
+     */
+    ImmutableSet<String> topLevelClassesDependingOn(Set<String> changedClasses) {
+        SetMultimap<String, String> referrersByClass = referencesByClass.inverse();
+        Set<String> affected = new HashSet<>();
+        Deque<String> toVisit = new ArrayDeque<>(changedClasses);
+        while (!toVisit.isEmpty()) {
+            String className = toVisit.poll();
+            if (affected.add(className)) {
+                toVisit.addAll(referrersByClass.get(className));
+            }
+        }
+        return affected.stream().map(ClasspathSnapshot::topLevelClass).collect(ImmutableSet.toImmutableSet());
+    }
+
+    static String topLevelClass(String className) {
+        int nested = className.indexOf('$');
+        return nested < 0 ? className : className.substring(0, nested);
+    }
+
+    /** The binary names of the top-level classes in the given classes directories. */
+    static ImmutableSet<String> topLevelClassesIn(Iterable<File> classesDirs) {
+        ImmutableSet.Builder<String> classes = ImmutableSet.builder();
+        for (File classesDir : classesDirs) {
+            if (!classesDir.isDirectory()) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(classesDir.toPath())) {
+                files.filter(path -> path.getFileName().toString().endsWith(".class"))
+                        .forEach(path ->
+                                classes.add(topLevelClass(className(classesDir.toPath().relativize(path)))));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to list classes in " + classesDir, e);
+            }
+        }
+        return classes.build();
+    }
+
+    static Optional<ClasspathSnapshot> read(File file) {
+        if (!file.isFile()) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return Optional.empty();
+            }
+            HashCode otherInputs = readHash(in);
+            int classes = in.readInt();
+            ImmutableMap.Builder<String, HashCode> hashesByClass = ImmutableMap.builderWithExpectedSize(classes);
+            for (int i = 0; i < classes; i++) {
+                hashesByClass.put(in.readUTF(), readHash(in));
+            }
+            return Optional.of(
+                    new ClasspathSnapshot(hashesByClass.buildKeepingLast(), ImmutableSetMultimap.of(), otherInputs));
+        } catch (IOException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /** Writes the hashes of this snapshot, but not the references between classes which are only needed once. */
+    void write(File file) {
+        file.getParentFile().mkdirs();
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeHash(out, otherInputs);
+            out.writeInt(hashesByClass.size());
+            for (Map.Entry<String, HashCode> entry : hashesByClass.entrySet()) {
+                out.writeUTF(entry.getKey());
+                writeHash(out, entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write classpath snapshot " + file, e);
+        }
+    }
+
+    private static void snapshotDirectory(
+            File directory,
+            Map<String, HashCode> hashesByClass,
+            ImmutableSetMultimap.Builder<String, String> referencesByClass,
+            SortedMap<String, HashCode> otherInputs) {
+        Path root = directory.toPath();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                Path relativePath = root.relativize(file);
+                if (file.getFileName().toString().endsWith(".class")) {
+                    snapshotClass(className(relativePath), Files.readAllBytes(file), hashesByClass, referencesByClass);
+                } else {
+                    otherInputs.put("resource:" + root + "!" + relativePath, hash(file));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to snapshot " + directory, e);
+        }
+    }
+
+    private static void snapshotJar(
+            File jar,
+            Map<String, HashCode> hashesByClass,
+            ImmutableSetMultimap.Builder<String, String> referencesByClass,
+            SortedMap<String, HashCode> otherInputs) {
+        try (ZipFile zipFile = new ZipFile(jar)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                byte[] contents;
+                try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                    contents = ByteStreams.toByteArray(inputStream);
+                }
+                String entryName = entry.getName();
+                if (entryName.endsWith(".class") && !entryName.startsWith("META-INF/")) {
+                    String className = entryName.substring(0, entryName.length() - ".class".length())
+                            .replace('/', '.');
+                    snapshotClass(className, contents, hashesByClass, referencesByClass);
+                } else {
+                    otherInputs.put(
+                            "resource:" + jar.getAbsolutePath() + "!" + entryName, HASH_FUNCTION.hashBytes(contents));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to snapshot " + jar, e);
+        }
+    }
+
+    private static void snapshotClass(
+            String className,
+            byte[] contents,
+            Map<String, HashCode> hashesByClass,
+            ImmutableSetMultimap.Builder<String, String> referencesByClass) {
+        // Like the JVM, only use the first class of a given name on the classpath
+        if (hashesByClass.putIfAbsent(className, HASH_FUNCTION.hashBytes(contents)) != null) {
+            return;
+        }
+        try {
+            referencesByClass.putAll(
+                    className,
+                    BaselineExactDependencies.referencedClasses(className, new ByteArrayInputStream(contents))
+                            .collect(ImmutableSet.toImmutableSet()));
+        } catch (RuntimeException e) {
+            // The class still counts as changed when its contents change, but nothing else is known to depend on it
+            referencesByClass.putAll(className, ImmutableSet.of());
+        }
+    }
+
+    private static String className(Path relativePath) {
+        String path = StreamSupport.stream(relativePath.spliterator(), false)
+                .map(Path::toString)
+                .collect(Collectors.joining("."));
+        return path.substring(0, path.length() - ".class".length());
+    }
+
+    private static HashCode hash(Path file) {
+        try {
+            return HASH_FUNCTION.hashBytes(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to hash " + file, e);
+        }
+    }
+
+    private static HashCode readHash(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedByte()];
+        in.readFully(bytes);
+        return HashCode.fromBytes(bytes);
+    }
+
+    private static void writeHash(DataOutputStream out, HashCode hash) throws IOException {
+        byte[] bytes = hash.asBytes();
+        out.writeByte(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.testing;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Splits tests into partitions of similar total duration with the longest processing time first heuristic: tests are
+ * added longest first, each to the partition with the smallest total so far. The longest partition is at most 4/3 of
+ * the optimum.
+ */
+public final class TestPartitions {
+
+    private TestPartitions() {}
+
+    /**
+     * Splits the given tests into exactly {@code count} partitions, some of which may be empty. Ties are broken by
+     * the tests' natural order, so the same durations always give the same partitions.
+     */
+    public static <T extends Comparable<T>> ImmutableList<Partition<T>> partition(
+            Map<T, Double> secondsByTest, int count) {
+        Preconditions.checkArgument(count > 0, "Partition count must be positive, got %s", count);
+
+        List<Partition<T>> partitions = new ArrayList<>(count);
+        PriorityQueue<Partition<T>> byTotal = new PriorityQueue<>(Comparator.<Partition<T>>comparingDouble(
+                        partition -> partition.seconds)
+                .thenComparingInt(partition -> partition.index));
+        for (int i = 0; i < count; i++) {
+            Partition<T> partition = new Partition<>(i);
+            partitions.add(partition);
+            byTotal.add(partition);
+        }
+
+        secondsByTest.entrySet().stream()
+                .sorted(Map.Entry.<T, Double>comparingByValue()
+                        .reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(test -> {
+                    Partition<T> smallest = byTotal.poll();
+                    smallest.tests.add(test.getKey());
+                    smallest.seconds += test.getValue();
+                    byTotal.add(smallest);
+                });
+        return ImmutableList.copyOf(partitions);
+    }
+
+    /** The total duration of the longest of the given partitions. */
+    public static double longestSeconds(List<? extends Partition<?>> partitions) {
+        return partitions.stream().mapToDouble(Partition::seconds).max().orElse(0);
+    }
+
+    /**
+     * The total duration of the longest fork when tests are handed to {@code forks} forks round-robin in the given
+     * order, which is how Gradle assigns test classes to the forks of a test task.
+     */
+    public static double roundRobinLongestSeconds(List<Double> secondsInOrder, int forks) {
+        Preconditions.checkArgument(forks > 0, "Fork count must be positive, got %s", forks);
+        double[] secondsByFork = new double[forks];
+        for (int i = 0; i < secondsInOrder.size(); i++) {
+            secondsByFork[i % forks] += secondsInOrder.get(i);
+        }
+        return Arrays.stream(secondsByFork).max().orElse(0);
+    }
+
+    public static final class Partition<T> {
+        private final int index;
+        private final List<T> tests = new ArrayList<>();
+        private double seconds;
+
+        private Partition(int index) {
+            this.index = index;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public List<T> tests() {
+            return tests;
+        }
+
+        public double seconds() {
+            return seconds;
+        }
+    }
+}
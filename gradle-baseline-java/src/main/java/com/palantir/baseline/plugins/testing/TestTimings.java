@@ -0,0 +1,125 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.testing;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+
+/**
+ * Durations of test classes from a previous run, as recorded in the JUnit XML reports Gradle writes for every test
+ * class ({@code TEST-<class name>.xml}).
+ */
+public final class TestTimings {
+    private static final Logger log = Logging.getLogger(TestTimings.class);
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = newXmlInputFactory();
+
+    private final ImmutableMap<String, Double> secondsByClass;
+
+    private TestTimings(ImmutableMap<String, Double> secondsByClass) {
+        this.secondsByClass = secondsByClass;
+    }
+
+    /** Reads every JUnit XML report in the given directory, if it exists. Gradle writes one directory per task. */
+    public static TestTimings readReports(File reportsDir) {
+        if (!reportsDir.isDirectory()) {
+            return new TestTimings(ImmutableMap.of());
+        }
+
+        Map<String, Double> secondsByClass = new HashMap<>();
+        try (Stream<Path> files = Files.list(reportsDir.toPath())) {
+            files.filter(TestTimings::isReport)
+                    .forEach(report -> readReport(report)
+                            .ifPresent(timing -> secondsByClass.merge(timing.className, timing.seconds, Double::sum)));
+        } catch (IOException e) {
+            log.info("Unable to read test reports in {}", reportsDir, e);
+        }
+        return new TestTimings(ImmutableMap.copyOf(secondsByClass));
+    }
+
+    public ImmutableMap<String, Double> secondsByClass() {
+        return secondsByClass;
+    }
+
+    public boolean isEmpty() {
+        return secondsByClass.isEmpty();
+    }
+
+    static boolean isReport(Path path) {
+        String fileName = path.getFileName().toString();
+        return fileName.startsWith("TEST-") && fileName.endsWith(".xml") && Files.isRegularFile(path);
+    }
+
+    /** Only the attributes of the root {@code testsuite} element are needed, so the rest of the report is skipped. */
+    private static Optional<Timing> readReport(Path report) {
+        try (InputStream inputStream = Files.newInputStream(report)) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                        if (!reader.getLocalName().equals("testsuite")) {
+                            return Optional.empty();
+                        }
+                        String className = reader.getAttributeValue(null, "name");
+                        String time = reader.getAttributeValue(null, "time");
+                        if (className == null || time == null) {
+                            return Optional.empty();
+                        }
+                        return Optional.of(new Timing(className, Double.parseDouble(time)));
+                    }
+                }
+                return Optional.empty();
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException | NumberFormatException e) {
+            log.debug("Ignoring unreadable test report {}", report, e);
+            return Optional.empty();
+        }
+    }
+
+    private static XMLInputFactory newXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private static final class Timing {
+        private final String className;
+        private final double seconds;
+
+        Timing(String className, double seconds) {
+            this.className = className;
+            this.seconds = seconds;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.services;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.slf4j.Logger;
+
+/**
+ * Shares class uniqueness results between all projects in a build. Many subprojects resolve exactly the same set of
+ * jars, so each distinct classpath is analyzed once and the result handed to every project that resolves it.
+ * Concurrent requests for the same classpath wait for the first analysis rather than repeating it.
+ *
+ * <p>Analyses run on the requesting thread outside of the map, so a slow analysis doesn't block requests for other
+ * classpaths, and a failed analysis is retried by the next request rather than cached.
+ */
+public abstract class ClassUniquenessAnalysisCache
+        implements BuildService<BuildServiceParameters.None>, AutoCloseable {
+
+    private final ConcurrentMap<ImmutableSet<ClassUniquenessArtifact>, CompletableFuture<Optional<String>>>
+            resultsByClasspath = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the rendered conflicts for the given classpath, computing them with {@code analysis} if no other
+     * project has analyzed an identical classpath yet.
+     */
+    public final Optional<String> getOrAnalyze(
+            ImmutableSet<ClassUniquenessArtifact> classpath, Supplier<Optional<String>> analysis, Logger logger) {
+        CompletableFuture<Optional<String>> analyzed = new CompletableFuture<>();
+        CompletableFuture<Optional<String>> existing = resultsByClasspath.putIfAbsent(classpath, analyzed);
+        if (existing != null) {
+            logger.info("Reusing class uniqueness results for an identical classpath of {} jars", classpath.size());
+            return await(existing);
+        }
+        try {
+            Optional<String> result = analysis.get();
+            analyzed.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            resultsByClasspath.remove(classpath, analyzed);
+            analyzed.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Optional<String> await(CompletableFuture<Optional<String>> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for class uniqueness results", e);
+        } catch (ExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Override
+    public final void close() {
+        resultsByClasspath.clear();
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.services;
+
+import java.io.File;
+import org.immutables.value.Value;
+
+/** A single resolved jar on a classpath checked for class uniqueness. */
+@Value.Immutable
+public interface ClassUniquenessArtifact {
+    @Value.Parameter
+    ClassUniquenessArtifactIdentifier identifier();
+
+    @Value.Parameter
+    File file();
+
+    static ClassUniquenessArtifact of(ClassUniquenessArtifactIdentifier identifier, File file) {
+        return ImmutableClassUniquenessArtifact.of(identifier, file);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.services;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.hash.HashCode;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * A persistent index of the class hashes computed by {@link JarClassHasher}. Class names are written sorted and
+ * front-coded against the previous name, each followed by the hash of that class.
+ */
+final class JarClassHashIndex extends PersistentJarIndex<ImmutableSetMultimap<String, HashCode>> {
+    private static final int FORMAT_VERSION = 1;
+
+    JarClassHashIndex(Path directory, long maxSizeBytes) {
+        super(directory, maxSizeBytes, FORMAT_VERSION);
+    }
+
+    @Override
+    ImmutableSetMultimap<String, HashCode> readValue(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        ImmutableSetMultimap.Builder<String, HashCode> hashesByClassName = ImmutableSetMultimap.builder();
+        String previous = "";
+        for (int i = 0; i < count; i++) {
+            String className = readName(in, previous);
+            byte[] hash = new byte[in.readUnsignedByte()];
+            in.readFully(hash);
+            hashesByClassName.put(className, HashCode.fromBytes(hash));
+            previous = className;
+        }
+        return hashesByClassName.build();
+    }
+
+    @Override
+    void writeValue(DataOutputStream out, ImmutableSetMultimap<String, HashCode> hashesByClassName)
+            throws IOException {
+        List<Map.Entry<String, HashCode>> entries = hashesByClassName.entries().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .collect(Collectors.toList());
+        out.writeInt(entries.size());
+        String previous = "";
+        for (Map.Entry<String, HashCode> classHash : entries) {
+            String className = classHash.getKey();
+            writeName(out, previous, className);
+            byte[] hash = classHash.getValue().asBytes();
+            out.writeByte(hash.length);
+            out.write(hash);
+            previous = className;
+        }
+    }
+}
@@ -18,106 +18,416 @@ package com.palantir.baseline.services;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.SortedSetMultimap;
+import com.google.common.collect.TreeMultimap;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
 import com.google.common.hash.HashingInputStream;
 import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 import java.util.stream.Collectors;
-import org.gradle.api.artifacts.ResolvedArtifact;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
 import org.gradle.api.services.BuildService;
 import org.gradle.api.services.BuildServiceParameters;
 import org.slf4j.Logger;
 
-public abstract class JarClassHasher implements BuildService<BuildServiceParameters.None>, AutoCloseable {
+public abstract class JarClassHasher implements BuildService<JarClassHasher.Parameters>, AutoCloseable {
 
     private final Cache<ClassUniquenessArtifactIdentifier, Result> cache =
             Caffeine.newBuilder().build();
 
+    private final Cache<ClassUniquenessArtifactIdentifier, Result> fingerprintCache =
+            Caffeine.newBuilder().build();
+
+    private final Optional<JarClassHashIndex> index;
+
+    private final Optional<ExecutorService> executor;
+
+    public interface Parameters extends BuildServiceParameters {
+        /**
+         * Directory of the persistent index of previously hashed jars. The index is not used when this is unset.
+         */
+        DirectoryProperty getIndexDirectory();
+
+        /** Size above which the least recently used entries are evicted from the persistent index. */
+        Property<Long> getMaxIndexSizeBytes();
+
+        /**
+         * Maximum number of jars hashed concurrently, shared between every task using this service. Jars are hashed
+         * sequentially on the calling thread when this is unset or one.
+         */
+        Property<Integer> getParallelism();
+    }
+
+    public JarClassHasher() {
+        Parameters parameters = getParameters();
+        this.index = Optional.ofNullable(parameters.getIndexDirectory().getAsFile().getOrNull())
+                .map(directory -> new JarClassHashIndex(directory.toPath(), parameters.getMaxIndexSizeBytes().get()));
+        int parallelism = parameters.getParallelism().getOrElse(1);
+        this.executor = parallelism > 1
+                ? Optional.of(Executors.newFixedThreadPool(
+                        parallelism,
+                        new ThreadFactoryBuilder()
+                                .setNameFormat("baseline-class-uniqueness-%d")
+                                .setDaemon(true)
+                                .build()))
+                : Optional.empty();
+    }
+
+    /**
+     * The executor on which jars should be hashed, or empty if they should be hashed on the calling thread. Tasks
+     * running in parallel share this executor, so together they never hash more than the configured number of jars
+     * at once.
+     */
+    public final Optional<ExecutorService> executor() {
+        return executor;
+    }
+
+    /**
+     * The hashes of every class in a jar. Build services keep these for the whole build, so rather than a multimap of
+     * full class names to {@link HashCode}s, this stores interned package names alongside sorted arrays of simple
+     * names and 64-bit hashes. Lookups binary search the package and then the simple names within it.
+     */
     public static final class Result {
-        private final ImmutableSetMultimap<String, HashCode> hashesByClassName;
+        private static final Interner<String> PACKAGE_NAMES = Interners.newWeakInterner();
+        private static final Result EMPTY = new Result(new String[0], new int[0], new String[0], new long[0]);
+
+        // rough sizes on a 64-bit JVM with compressed oops, used only to report the memory saved
+        private static final long STRING_OVERHEAD_BYTES = 40;
+        private static final long MULTIMAP_ENTRY_OVERHEAD_BYTES = 32;
+        private static final long HASH_CODE_BYTES = 64;
+        private static final long REFERENCE_BYTES = 4;
+
+        /** Distinct package names in sorted order. */
+        private final String[] packageNames;
+
+        /** For each package, the exclusive end of its classes in {@link #simpleNames} and {@link #hashes}. */
+        private final int[] packageEnds;
+
+        /** Simple class names, sorted within each package. A name appears once per distinct hash. */
+        private final String[] simpleNames;
+
+        private final long[] hashes;
+
+        private Result(String[] packageNames, int[] packageEnds, String[] simpleNames, long[] hashes) {
+            this.packageNames = packageNames;
+            this.packageEnds = packageEnds;
+            this.simpleNames = simpleNames;
+            this.hashes = hashes;
+        }
+
+        static Result of(Multimap<String, HashCode> hashesByClassName) {
+            if (hashesByClassName.isEmpty()) {
+                return EMPTY;
+            }
+
+            SortedMap<String, SortedSetMultimap<String, Long>> classesByPackage = new TreeMap<>();
+            hashesByClassName.forEach((className, hash) -> {
+                int lastDot = className.lastIndexOf('.');
+                String packageName = lastDot < 0 ? "" : className.substring(0, lastDot);
+                classesByPackage
+                        .computeIfAbsent(packageName, _name -> TreeMultimap.create())
+                        .put(className.substring(lastDot + 1), hash.asLong());
+            });
+
+            int size = classesByPackage.values().stream()
+                    .mapToInt(SortedSetMultimap::size)
+                    .sum();
+            String[] packageNames = new String[classesByPackage.size()];
+            int[] packageEnds = new int[classesByPackage.size()];
+            String[] simpleNames = new String[size];
+            long[] hashes = new long[size];
+            int packageIndex = 0;
+            int classIndex = 0;
+            for (Map.Entry<String, SortedSetMultimap<String, Long>> pkg : classesByPackage.entrySet()) {
+                packageNames[packageIndex] = PACKAGE_NAMES.intern(pkg.getKey());
+                for (Map.Entry<String, Long> classHash : pkg.getValue().entries()) {
+                    simpleNames[classIndex] = classHash.getKey();
+                    hashes[classIndex] = classHash.getValue();
+                    classIndex++;
+                }
+                packageEnds[packageIndex] = classIndex;
+                packageIndex++;
+            }
+            return new Result(packageNames, packageEnds, simpleNames, hashes);
+        }
+
+        /** Number of distinct class name and hash pairs. */
+        public int size() {
+            return hashes.length;
+        }
+
+        public boolean containsClass(String className) {
+            return firstIndexOf(className) >= 0;
+        }
+
+        /** Hashes of the class with the given name, usually just one unless the jar is malformed. */
+        public ImmutableSet<HashCode> getHashes(String className) {
+            int index = firstIndexOf(className);
+            if (index < 0) {
+                return ImmutableSet.of();
+            }
 
-        private Result(ImmutableSetMultimap<String, HashCode> hashesByClassName) {
-            this.hashesByClassName = hashesByClassName;
+            String simpleName = simpleNames[index];
+            int packageEnd = packageEnds[packageIndexOf(className)];
+            ImmutableSet.Builder<HashCode> result = ImmutableSet.builder();
+            for (int i = index; i < packageEnd && simpleNames[i].equals(simpleName); i++) {
+                result.add(HashCode.fromLong(hashes[i]));
+            }
+            return result.build();
+        }
+
+        /**
+         * Passes every class name and hash to the consumer, in order of package and then simple name. The full class
+         * names and {@link HashCode hash codes} aren't stored, so a new one of each is created for every entry.
+         */
+        public void forEach(BiConsumer<String, HashCode> consumer) {
+            int start = 0;
+            for (int packageIndex = 0; packageIndex < packageNames.length; packageIndex++) {
+                String prefix = packageNames[packageIndex].isEmpty() ? "" : packageNames[packageIndex] + ".";
+                for (int i = start; i < packageEnds[packageIndex]; i++) {
+                    consumer.accept(prefix + simpleNames[i], HashCode.fromLong(hashes[i]));
+                }
+                start = packageEnds[packageIndex];
+            }
         }
 
+        /** Materializes every class name and hash, prefer {@link #getHashes} or {@link #forEach} where possible. */
         public ImmutableSetMultimap<String, HashCode> getHashesByClassName() {
-            return hashesByClassName;
+            ImmutableSetMultimap.Builder<String, HashCode> builder = ImmutableSetMultimap.builder();
+            forEach(builder::put);
+            return builder.build();
+        }
+
+        /** Approximate heap used by this result, not counting the interned package names it shares with others. */
+        public long estimatedSizeBytes() {
+            long bytes = (REFERENCE_BYTES + Long.BYTES) * simpleNames.length
+                    + (REFERENCE_BYTES + Integer.BYTES) * packageNames.length;
+            for (String simpleName : simpleNames) {
+                bytes += STRING_OVERHEAD_BYTES + simpleName.length();
+            }
+            return bytes;
+        }
+
+        /** Approximate heap the same hashes would use as a multimap of full class names to SHA-256 hash codes. */
+        public long estimatedMultimapSizeBytes() {
+            long bytes = 0;
+            int start = 0;
+            for (int packageIndex = 0; packageIndex < packageNames.length; packageIndex++) {
+                long entryBytes = MULTIMAP_ENTRY_OVERHEAD_BYTES
+                        + HASH_CODE_BYTES
+                        + STRING_OVERHEAD_BYTES
+                        + packageNames[packageIndex].length()
+                        + 1;
+                bytes += (packageEnds[packageIndex] - start) * entryBytes;
+                start = packageEnds[packageIndex];
+            }
+            for (String simpleName : simpleNames) {
+                bytes += simpleName.length();
+            }
+            return bytes;
         }
 
         public static Result empty() {
-            return new Result(ImmutableSetMultimap.of());
+            return EMPTY;
+        }
+
+        private int packageIndexOf(String className) {
+            int lastDot = className.lastIndexOf('.');
+            return Arrays.binarySearch(packageNames, lastDot < 0 ? "" : className.substring(0, lastDot));
+        }
+
+        private int firstIndexOf(String className) {
+            int packageIndex = packageIndexOf(className);
+            if (packageIndex < 0) {
+                return -1;
+            }
+
+            String simpleName = className.substring(className.lastIndexOf('.') + 1);
+            int start = packageIndex == 0 ? 0 : packageEnds[packageIndex - 1];
+            int index = Arrays.binarySearch(simpleNames, start, packageEnds[packageIndex], simpleName);
+            if (index < 0) {
+                return -1;
+            }
+
+            // the same class may appear with several hashes, so walk back to the first of them
+            while (index > start && simpleNames[index - 1].equals(simpleName)) {
+                index--;
+            }
+            return index;
         }
     }
 
-    public final Result hashClasses(ResolvedArtifact resolvedArtifact, Logger logger) {
-        ClassUniquenessArtifactIdentifier key = ImmutableClassUniquenessArtifactIdentifier.builder()
-                .moduleVersionIdentifier(resolvedArtifact.getModuleVersion().getId())
-                .classifier(Strings.nullToEmpty(resolvedArtifact.getClassifier()))
-                .build();
-        return cache.get(key, _moduleId -> {
-            File file = resolvedArtifact.getFile();
+    public final Result hashClasses(ClassUniquenessArtifact artifact, Logger logger) {
+        return cache.get(artifact.identifier(), _moduleId -> {
+            File file = artifact.file();
             if (!file.exists()) {
                 return Result.empty();
             }
 
-            ImmutableListMultimap.Builder<String, HashCode> hashesByClassName = ImmutableListMultimap.builder();
-            try (FileInputStream fileInputStream = new FileInputStream(file);
-                    JarInputStream jarInputStream = new JarInputStream(fileInputStream)) {
-                JarEntry entry;
-                while ((entry = jarInputStream.getNextJarEntry()) != null) {
-                    if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
-                        continue;
-                    }
+            if (index.isEmpty()) {
+                return Result.of(computeHashes(artifact, logger));
+            }
 
-                    if (isExcluded(entry.getName())) {
-                        continue;
-                    }
+            HashCode jarHash = PersistentJarIndex.contentHash(file);
+            Optional<ImmutableSetMultimap<String, HashCode>> indexed = index.get().read(jarHash, logger);
+            if (indexed.isPresent()) {
+                return Result.of(indexed.get());
+            }
+
+            ImmutableSetMultimap<String, HashCode> hashesByClassName = computeHashes(artifact, logger);
+            index.get().write(jarHash, hashesByClassName, logger);
+            return Result.of(hashesByClassName);
+        });
+    }
 
-                    String className = entry.getName().replaceAll("/", ".").replaceAll("\\.class$", "");
-                    HashingInputStream inputStream = new HashingInputStream(Hashing.sha256(), jarInputStream);
-                    ByteStreams.exhaust(inputStream);
+    /**
+     * Returns a cheap fingerprint of every class in the jar, made up of the CRC-32 and uncompressed size recorded in
+     * the jar's central directory. Classes with differing fingerprints are guaranteed to be different, but classes
+     * with identical fingerprints must be confirmed using {@link #hashClasses(File, Set)}.
+     */
+    public final Result fingerprintClasses(ClassUniquenessArtifact artifact, Logger logger) {
+        return fingerprintCache.get(artifact.identifier(), _moduleId -> {
+            File file = artifact.file();
+            if (!file.exists()) {
+                return Result.empty();
+            }
 
-                    hashesByClassName.put(className, inputStream.hash());
+            ImmutableSetMultimap.Builder<String, HashCode> fingerprintsByClassName = ImmutableSetMultimap.builder();
+            // ZipFile only reads the central directory here, without decompressing any entries
+            try (ZipFile zipFile = new ZipFile(file)) {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (isHashedClass(entry)) {
+                        fingerprintsByClassName.put(
+                                toClassName(entry.getName()),
+                                HashCode.fromLong((entry.getSize() << 32) | entry.getCrc()));
+                    }
                 }
             } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-
-            ImmutableListMultimap<String, HashCode> builtHashesByClassName = hashesByClassName.build();
-            List<String> keysWithDuplicateEntries = builtHashesByClassName.asMap().entrySet().stream()
-                    .filter(entry -> entry.getValue().size() > 1)
-                    .map(Map.Entry::getKey)
-                    .sorted()
-                    .collect(Collectors.toList());
-            if (!keysWithDuplicateEntries.isEmpty()) {
-                logger.warn(
-                        "Warning: Gradle Baseline found a dependency jar that contains more than one zip entry for "
-                                + "a class and is likely malformed: {}\n"
-                                + "The following entries appear multiple times: {}\n"
-                                + "This issue should be reported to the maintainer of the dependency.",
-                        resolvedArtifact.getModuleVersion(),
-                        keysWithDuplicateEntries);
-            }
-
-            return new Result(ImmutableSetMultimap.copyOf(builtHashesByClassName));
+                logger.info("Failed to read central directory of {}, hashing its contents instead", file, e);
+                return Result.of(computeHashes(artifact, logger));
+            }
+            return Result.of(fingerprintsByClassName.build());
         });
     }
 
+    /**
+     * Computes the SHA-256 of just the given classes, without decompressing the rest of the jar. Like
+     * {@link #hashClasses(ClassUniquenessArtifact, Logger)}, every entry of a class which appears more than once in a
+     * malformed jar is kept.
+     */
+    public final ImmutableSetMultimap<String, HashCode> hashClasses(File file, Set<String> classNames) {
+        ImmutableSetMultimap.Builder<String, HashCode> hashesByClassName = ImmutableSetMultimap.builder();
+        try (ZipFile zipFile = new ZipFile(file)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!isHashedClass(entry)) {
+                    continue;
+                }
+
+                String className = toClassName(entry.getName());
+                if (classNames.contains(className)) {
+                    try (InputStream entryStream = zipFile.getInputStream(entry)) {
+                        HashingInputStream inputStream = new HashingInputStream(Hashing.sha256(), entryStream);
+                        ByteStreams.exhaust(inputStream);
+                        hashesByClassName.put(className, inputStream.hash());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return hashesByClassName.build();
+    }
+
+    private static ImmutableSetMultimap<String, HashCode> computeHashes(
+            ClassUniquenessArtifact artifact, Logger logger) {
+        File file = artifact.file();
+        ImmutableListMultimap.Builder<String, HashCode> hashesByClassName = ImmutableListMultimap.builder();
+        try (FileInputStream fileInputStream = new FileInputStream(file);
+                JarInputStream jarInputStream = new JarInputStream(fileInputStream)) {
+            JarEntry entry;
+            while ((entry = jarInputStream.getNextJarEntry()) != null) {
+                if (!isHashedClass(entry)) {
+                    continue;
+                }
+
+                String className = toClassName(entry.getName());
+                HashingInputStream inputStream = new HashingInputStream(Hashing.sha256(), jarInputStream);
+                ByteStreams.exhaust(inputStream);
+
+                hashesByClassName.put(className, inputStream.hash());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        ImmutableListMultimap<String, HashCode> builtHashesByClassName = hashesByClassName.build();
+        List<String> keysWithDuplicateEntries = builtHashesByClassName.asMap().entrySet().stream()
+                .filter(entry -> entry.getValue().size() > 1)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .collect(Collectors.toList());
+        if (!keysWithDuplicateEntries.isEmpty()) {
+            logger.warn(
+                    "Warning: Gradle Baseline found a dependency jar that contains more than one zip entry for "
+                            + "a class and is likely malformed: {}\n"
+                            + "The following entries appear multiple times: {}\n"
+                            + "This issue should be reported to the maintainer of the dependency.",
+                    artifact.identifier().moduleVersionIdentifier(),
+                    keysWithDuplicateEntries);
+        }
+
+        return ImmutableSetMultimap.copyOf(builtHashesByClassName);
+    }
+
     @Override
     public final void close() {
         // Try to free up memory when this is no longer needed
         cache.invalidateAll();
         cache.cleanUp();
+        fingerprintCache.invalidateAll();
+        fingerprintCache.cleanUp();
+        executor.ifPresent(ExecutorService::shutdownNow);
+        index.ifPresent(value -> value.evictToMaxSize(Logging.getLogger(JarClassHasher.class)));
+    }
+
+    private static boolean isHashedClass(ZipEntry entry) {
+        return !entry.isDirectory() && entry.getName().endsWith(".class") && !isExcluded(entry.getName());
+    }
+
+    private static String toClassName(String path) {
+        return path.replaceAll("/", ".").replaceAll("\\.class$", "");
     }
 
     /**
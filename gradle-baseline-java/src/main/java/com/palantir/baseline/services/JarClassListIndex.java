@@ -0,0 +1,57 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.services;
+
+import com.google.common.collect.ImmutableSortedSet;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A persistent index of the class names listed by {@link JarClassLister}, written sorted and front-coded against the
+ * previous name.
+ */
+final class JarClassListIndex extends PersistentJarIndex<ImmutableSortedSet<String>> {
+    private static final int FORMAT_VERSION = 1;
+
+    JarClassListIndex(Path directory, long maxSizeBytes) {
+        super(directory, maxSizeBytes, FORMAT_VERSION);
+    }
+
+    @Override
+    ImmutableSortedSet<String> readValue(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        String[] classNames = new String[count];
+        String previous = "";
+        for (int i = 0; i < count; i++) {
+            classNames[i] = readName(in, previous);
+            previous = classNames[i];
+        }
+        return ImmutableSortedSet.copyOf(classNames);
+    }
+
+    @Override
+    void writeValue(DataOutputStream out, ImmutableSortedSet<String> classNames) throws IOException {
+        out.writeInt(classNames.size());
+        String previous = "";
+        for (String className : classNames) {
+            writeName(out, previous, className);
+            previous = className;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.hash.HashCode;
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+import org.apache.maven.shared.dependency.analyzer.ClassAnalyzer;
+import org.apache.maven.shared.dependency.analyzer.DefaultClassAnalyzer;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.Property;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.slf4j.Logger;
+
+/**
+ * Lists the classes contained in each dependency of the exact dependency checks, so every
+ * {@code checkUnusedDependencies*} and {@code checkImplicitDependencies*} task in a build shares a single listing of
+ * each jar.
+ *
+ * <p>Listings are keyed by the SHA-256 of the jar's contents, so identical jars resolved from different locations
+ * share an entry, and the least recently used listings are evicted once they exceed the configured size. Listings are
+ * dropped when the build finishes, so long-lived daemons don't accumulate listings from previous builds, but the
+ * content hashes of unchanged jars are remembered by {@link PersistentJarIndex} so they aren't hashed again.
+ *
+ * <p>Listings are also written to a persistent index in the Gradle user home, so each third-party jar only needs to be
+ * opened once per machine and later builds read a small precomputed list of class names instead.
+ */
+public abstract class JarClassLister implements BuildService<JarClassLister.Parameters>, AutoCloseable {
+    private static final Logger log = Logging.getLogger(JarClassLister.class);
+    private static final ClassAnalyzer JAR_ANALYZER = new DefaultClassAnalyzer();
+
+    // rough sizes on a 64-bit JVM with compressed oops, only used to weigh cache entries
+    private static final long STRING_OVERHEAD_BYTES = 40;
+    private static final long SET_ENTRY_OVERHEAD_BYTES = 8;
+
+    private final Cache<HashCode, ImmutableSet<String>> classesByJarHash;
+    private final Optional<JarClassListIndex> index;
+
+    public interface Parameters extends BuildServiceParameters {
+        /** Estimated heap used by class listings, above which the least recently used listings are evicted. */
+        Property<Long> getMaxCacheSizeBytes();
+
+        /**
+         * Directory of the persistent index of previously listed jars. The index is not used when this is unset.
+         */
+        DirectoryProperty getIndexDirectory();
+
+        /** Size above which the least recently used entries are evicted from the persistent index. */
+        Property<Long> getMaxIndexSizeBytes();
+    }
+
+    public JarClassLister() {
+        Parameters parameters = getParameters();
+        this.index = Optional.ofNullable(parameters.getIndexDirectory().getAsFile().getOrNull())
+                .map(directory -> new JarClassListIndex(directory.toPath(), parameters.getMaxIndexSizeBytes().get()));
+        this.classesByJarHash = Caffeine.newBuilder()
+                .maximumWeight(parameters.getMaxCacheSizeBytes().get())
+                .weigher((HashCode _jarHash, ImmutableSet<String> classes) ->
+                        (int) Math.min(estimatedSizeBytes(classes), Integer.MAX_VALUE))
+                .build();
+    }
+
+    /** The names of all classes in the given jar or classes directory. */
+    public final ImmutableSet<String> classesIn(File file) {
+        // Classes directories of projects in this build change from one build to the next, so aren't worth caching
+        if (file.isDirectory()) {
+            return analyze(file);
+        }
+        return classesByJarHash.get(PersistentJarIndex.contentHash(file), jarHash -> listJar(jarHash, file));
+    }
+
+    private ImmutableSet<String> listJar(HashCode jarHash, File jar) {
+        if (index.isEmpty()) {
+            return analyze(jar);
+        }
+        Optional<ImmutableSortedSet<String>> indexed = index.get().read(jarHash, log);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+        ImmutableSortedSet<String> classes = analyze(jar);
+        index.get().write(jarHash, classes, log);
+        return classes;
+    }
+
+    private static ImmutableSortedSet<String> analyze(File file) {
+        try {
+            return ImmutableSortedSet.copyOf(JAR_ANALYZER.analyze(file.toURI().toURL()));
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to analyze artifact", e);
+        }
+    }
+
+    private static long estimatedSizeBytes(ImmutableSet<String> classes) {
+        long size = 0;
+        for (String className : classes) {
+            size += STRING_OVERHEAD_BYTES + SET_ENTRY_OVERHEAD_BYTES + className.length();
+        }
+        return size;
+    }
+
+    @Override
+    public final void close() {
+        classesByJarHash.invalidateAll();
+        classesByJarHash.cleanUp();
+        index.ifPresent(jarClassListIndex -> jarClassListIndex.evictToMaxSize(log));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+/**
+ * Reads the main manifest attributes of jars once per build. Every test, exec and compile task of every project
+ * inspects the manifests of its classpath, often several times while Gradle fingerprints the task, and most of those
+ * classpaths share the same jars.
+ *
+ * <p>Entries are keyed by the jar's path, size and modification time, so a jar rebuilt during the build is read again.
+ * Opening a jar's manifest only reads its central directory, which is far cheaper than hashing the whole file.
+ */
+public abstract class JarManifestCache implements BuildService<BuildServiceParameters.None>, AutoCloseable {
+
+    private final Cache<JarKey, Attributes> mainAttributesByJar =
+            Caffeine.newBuilder().maximumSize(50_000).build();
+
+    /**
+     * A copy of the main attributes of the jar's manifest, which are empty if the jar has no manifest. Like the
+     * manifest itself, attribute names are looked up case-insensitively.
+     */
+    public final Attributes mainAttributes(File jar) {
+        return new Attributes(mainAttributesByJar.get(new JarKey(jar), _key -> readMainAttributes(jar)));
+    }
+
+    private static Attributes readMainAttributes(File file) {
+        try (JarFile jar = new JarFile(file)) {
+            Manifest manifest = jar.getManifest();
+            return manifest == null ? new Attributes(0) : manifest.getMainAttributes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read manifest of " + file, e);
+        }
+    }
+
+    @Override
+    public final void close() {
+        mainAttributesByJar.invalidateAll();
+        mainAttributesByJar.cleanUp();
+    }
+
+    private static final class JarKey {
+        private final File file;
+        private final long size;
+        private final long lastModified;
+
+        JarKey(File file) {
+            this.file = file;
+            this.size = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof JarKey)) {
+                return false;
+            }
+            JarKey that = (JarKey) other;
+            return size == that.size && lastModified == that.lastModified && file.equals(that.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(file, size, lastModified);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.services;
+
+import com.google.common.base.Stopwatch;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.jvm.toolchain.JavaInstallationMetadata;
+import org.gradle.jvm.toolchain.JavaLanguageVersion;
+
+/**
+ * Resolves the JDK for each java language version once per build. Every project and every kind of task asks for the
+ * same few toolchains, and resolving one may mean probing a JDK installation or evaluating a chain of providers.
+ *
+ * <p>JDKs configured through {@code javaVersions.jdks(...)} are resolved for a particular project, so they are only
+ * shared between the tasks of that project. Toolchains from the {@code JavaToolchainService} are only ever requested by
+ * language version, without a vendor or implementation, so they are shared by every project.
+ */
+public abstract class JdkMetadataCache implements BuildService<BuildServiceParameters.None>, AutoCloseable {
+    private static final Logger log = Logging.getLogger(JdkMetadataCache.class);
+
+    private final Map<JavaLanguageVersion, Map<String, Optional<JavaInstallationMetadata>>> configuredByVersion =
+            new ConcurrentHashMap<>();
+    private final Map<JavaLanguageVersion, JavaInstallationMetadata> toolchainsByVersion = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the JDK configured for the given version in the project with the given path, using {@code resolver} if
+     * that project has not resolved it yet.
+     */
+    public final Optional<JavaInstallationMetadata> configuredMetadataFor(
+            JavaLanguageVersion javaLanguageVersion,
+            String projectPath,
+            Supplier<Optional<JavaInstallationMetadata>> resolver) {
+        return configuredByVersion
+                .computeIfAbsent(javaLanguageVersion, _version -> new ConcurrentHashMap<>())
+                .computeIfAbsent(projectPath, _path -> timed(javaLanguageVersion, resolver));
+    }
+
+    /** Returns the toolchain for the given version, using {@code resolver} if no project has resolved it yet. */
+    public final JavaInstallationMetadata toolchainMetadataFor(
+            JavaLanguageVersion javaLanguageVersion, Supplier<JavaInstallationMetadata> resolver) {
+        return toolchainsByVersion.computeIfAbsent(
+                javaLanguageVersion, version -> timed(version, () -> Optional.of(resolver.get())).get());
+    }
+
+    private static Optional<JavaInstallationMetadata> timed(
+            JavaLanguageVersion version, Supplier<Optional<JavaInstallationMetadata>> resolver) {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        Optional<JavaInstallationMetadata> metadata = resolver.get();
+        log.debug(
+                "Resolved JDK {} to {} in {}ms",
+                version,
+                metadata.map(JavaInstallationMetadata::getInstallationPath).orElse(null),
+                stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        return metadata;
+    }
+
+    @Override
+    public final void close() {
+        configuredByVersion.clear();
+        toolchainsByVersion.clear();
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+
+/**
+ * A persistent, content-addressed store of facts about jars, shared between builds and daemons through the Gradle
+ * user home.
+ *
+ * <p>Each jar gets one file named after the SHA-256 of the jar's bytes. Files are written to a temporary name and
+ * atomically moved into place so concurrent builds never observe a partial entry, and the least recently used entries
+ * are deleted once the directory grows beyond its size limit.
+ */
+abstract class PersistentJarIndex<T> {
+    private static final int MAGIC = 0xBA5E_C1A5;
+    private static final String SUFFIX = ".bin";
+
+    /**
+     * Content hashes of recently read jars, which are recomputed only when a jar's size or modification time changes.
+     * Kept for the lifetime of the daemon so that later builds don't hash every jar again, each entry being tiny.
+     */
+    private static final Cache<File, JarStamp> STAMPS_BY_JAR =
+            Caffeine.newBuilder().maximumSize(10_000).build();
+
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final int formatVersion;
+
+    PersistentJarIndex(Path directory, long maxSizeBytes, int formatVersion) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+        this.formatVersion = formatVersion;
+    }
+
+    static HashCode contentHash(File jar) {
+        long size = jar.length();
+        long lastModified = jar.lastModified();
+        JarStamp stamp = STAMPS_BY_JAR.getIfPresent(jar);
+        if (stamp == null || stamp.size != size || stamp.lastModified != lastModified) {
+            stamp = new JarStamp(size, lastModified, hash(jar));
+            STAMPS_BY_JAR.put(jar, stamp);
+        }
+        return stamp.contentHash;
+    }
+
+    private static HashCode hash(File jar) {
+        try {
+            return com.google.common.io.Files.asByteSource(jar).hash(Hashing.sha256());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    abstract T readValue(DataInputStream in) throws IOException;
+
+    abstract void writeValue(DataOutputStream out, T value) throws IOException;
+
+    final Optional<T> read(HashCode jarHash, Logger logger) {
+        Path entry = entryFor(jarHash);
+        if (!Files.isRegularFile(entry)) {
+            return Optional.empty();
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            if (in.readInt() != MAGIC || in.readInt() != formatVersion) {
+                return Optional.empty();
+            }
+            T value = readValue(in);
+
+            // Bump the modification time so that eviction drops the least recently used jars first
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(value);
+        } catch (NoSuchFileException e) {
+            // Evicted by a concurrent build between the existence check and opening the file
+            return Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            logger.info("Ignoring unreadable index entry {}", entry, e);
+            deleteQuietly(entry);
+            return Optional.empty();
+        }
+    }
+
+    final void write(HashCode jarHash, T value, Logger logger) {
+        Path entry = entryFor(jarHash);
+        Path temp = directory.resolve(entry.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(formatVersion);
+                writeValue(out, value);
+            }
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The index is purely an optimisation, so failing to populate it must not fail the build
+            logger.info("Failed to write index entry {}", entry, e);
+            deleteQuietly(temp);
+        }
+    }
+
+    /** Deletes the least recently used entries until the index fits within its size limit. */
+    final void evictToMaxSize(Logger logger) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        List<IndexFile> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (path.getFileName().toString().endsWith(SUFFIX)) {
+                    files.add(new IndexFile(path, Files.size(path), Files.getLastModifiedTime(path)));
+                }
+            }
+        } catch (IOException e) {
+            logger.info("Failed to list index {}", directory, e);
+            return;
+        }
+
+        long totalSize = files.stream().mapToLong(IndexFile::size).sum();
+        if (totalSize <= maxSizeBytes) {
+            return;
+        }
+
+        files.sort(Comparator.comparing(IndexFile::lastModified));
+        for (IndexFile file : files) {
+            if (totalSize <= maxSizeBytes) {
+                break;
+            }
+            deleteQuietly(file.path());
+            totalSize -= file.size();
+        }
+    }
+
+    /**
+     * Writes a name front-coded against the previously written name. Class names are written in sorted order, and
+     * classes from the same package share long prefixes.
+     */
+    static void writeName(DataOutputStream out, String previous, String name) throws IOException {
+        int max = Math.min(Math.min(previous.length(), name.length()), 0xFFFF);
+        int sharedPrefix = 0;
+        while (sharedPrefix < max && previous.charAt(sharedPrefix) == name.charAt(sharedPrefix)) {
+            sharedPrefix++;
+        }
+        out.writeShort(sharedPrefix);
+        out.writeUTF(name.substring(sharedPrefix));
+    }
+
+    /** Reads a name written by {@link #writeName}. */
+    static String readName(DataInputStream in, String previous) throws IOException {
+        int sharedPrefix = in.readUnsignedShort();
+        return previous.substring(0, sharedPrefix) + in.readUTF();
+    }
+
+    private Path entryFor(HashCode jarHash) {
+        return directory.resolve(jarHash + SUFFIX);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // best effort, another build may be holding onto this file
+        }
+    }
+
+    private static final class JarStamp {
+        private final long size;
+        private final long lastModified;
+        private final HashCode contentHash;
+
+        JarStamp(long size, long lastModified, HashCode contentHash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+        }
+    }
+
+    private static final class IndexFile {
+        private final Path path;
+        private final long size;
+        private final FileTime lastModified;
+
+        IndexFile(Path path, long size, FileTime lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        Path path() {
+            return path;
+        }
+
+        long size() {
+            return size;
+        }
+
+        FileTime lastModified() {
+            return lastModified;
+        }
+    }
+}
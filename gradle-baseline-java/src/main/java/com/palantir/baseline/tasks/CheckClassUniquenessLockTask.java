@@ -18,31 +18,54 @@ package com.palantir.baseline.tasks;
 
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
+import com.palantir.baseline.services.ClassUniquenessAnalysisCache;
+import com.palantir.baseline.services.ClassUniquenessArtifact;
 import com.palantir.baseline.services.ClassUniquenessArtifactIdentifier;
+import com.palantir.baseline.services.ImmutableClassUniquenessArtifactIdentifier;
 import com.palantir.baseline.services.JarClassHasher;
 import com.palantir.gradle.failurereports.exceptions.ExceptionWithSuggestion;
 import difflib.DiffUtils;
 import difflib.Patch;
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.GradleException;
 import org.gradle.api.Task;
+import org.gradle.api.artifacts.ArtifactCollection;
 import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+import org.gradle.api.artifacts.result.DependencyResult;
+import org.gradle.api.artifacts.result.ResolvedArtifactResult;
+import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.artifacts.result.ResolvedDependencyResult;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.provider.SetProperty;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.options.Option;
@@ -55,9 +78,8 @@ public class CheckClassUniquenessLockTask extends DefaultTask {
             + "cause different behaviour depending on classpath ordering.\n"
             + "# Run ./gradlew checkClassUniqueness --fix to update this file\n\n";
 
-    // not marking this as an Input, because we want to re-run if the *contents* of a configuration changes
-    @SuppressWarnings("VisibilityModifier")
-    public final SetProperty<Configuration> configurations;
+    // Configurations cannot be stored in the configuration cache, only the providers of their artifacts below
+    private final transient SetProperty<Configuration> configurations;
 
     @SuppressWarnings("VisibilityModifier")
     public final Property<JarClassHasher> jarClassHasher;
@@ -65,32 +87,71 @@ public class CheckClassUniquenessLockTask extends DefaultTask {
     @SuppressWarnings("VisibilityModifier")
     public final Property<Boolean> shouldFix;
 
+    /** Whether to compare classes by their central directory CRC-32 and size before hashing their contents. */
+    @SuppressWarnings("VisibilityModifier")
+    public final Property<Boolean> fastHashing;
+
+    /** When present, results are shared with every other project in the build that resolves an identical classpath. */
+    @SuppressWarnings("VisibilityModifier")
+    public final Property<ClassUniquenessAnalysisCache> analysisCache;
+
+    private final Provider<Map<String, ConfigurationArtifacts>> artifactsByConfiguration;
+    private final ConfigurableFileCollection classpath;
     private final File lockFile;
+    private final File rootDir;
 
     public CheckClassUniquenessLockTask() {
-        this.configurations = getProject().getObjects().setProperty(Configuration.class);
-        this.jarClassHasher = getProject().getObjects().property(JarClassHasher.class);
-        this.shouldFix = getProject().getObjects().property(Boolean.class);
+        ObjectFactory objects = getProject().getObjects();
+        this.jarClassHasher = objects.property(JarClassHasher.class);
+        this.shouldFix = objects.property(Boolean.class);
+        this.fastHashing = objects.property(Boolean.class);
+        this.analysisCache = objects.property(ClassUniquenessAnalysisCache.class);
+        this.configurations = objects.setProperty(Configuration.class);
+        this.artifactsByConfiguration = configurations.map(CheckClassUniquenessLockTask::artifactsByConfiguration);
+        // A callable, so that the task dependencies of jars which are built by other tasks are kept
+        this.classpath = objects.fileCollection()
+                .from((Callable<List<FileCollection>>) () -> configurations.get().stream()
+                        .map(configuration -> artifacts(configuration).getArtifactFiles())
+                        .collect(Collectors.toList()));
         this.lockFile = getProject().file("baseline-class-uniqueness.lock");
+        this.rootDir = getProject().getRootDir();
         onlyIf(new Spec<Task>() {
             @Override
             public boolean isSatisfiedBy(Task task) {
-                return !configurations.get().isEmpty();
+                return !artifactsByConfiguration.get().isEmpty();
             }
         });
     }
 
     /**
-     * This method exists purely for up-to-dateness purposes - we want to re-run if the contents of a configuration
-     * changes.
+     * The configurations to check. Only the providers of their resolved artifacts and resolution results are kept once
+     * the task graph is calculated, so that the task can be stored in the configuration cache.
+     */
+    @Internal
+    public final SetProperty<Configuration> getConfigurations() {
+        return configurations;
+    }
+
+    /**
+     * The jars of every configuration, so the task re-runs and misses the build cache when their contents change.
+     * Classpath normalization ignores timestamps and other irrelevant differences between otherwise identical jars.
+     */
+    @Classpath
+    public final FileCollection getClasspath() {
+        return classpath;
+    }
+
+    /**
+     * The identity of each jar in every configuration, which appear in the lockfile. Unlike walking the resolution
+     * result this only needs the resolved artifacts, which are also required to fingerprint {@link #getClasspath()}.
      */
     @Input
-    public final Map<String, ImmutableList<String>> getContentsOfAllConfigurations() {
-        return configurations.get().stream().collect(Collectors.toMap(Configuration::getName, configuration -> {
-            return configuration.getIncoming().getResolutionResult().getAllComponents().stream()
-                    .map(resolvedComponentResult -> Objects.toString(resolvedComponentResult.getModuleVersion()))
-                    .collect(ImmutableList.toImmutableList()); // Gradle requires this to be Serializable
-        }));
+    public final Map<String, List<String>> getArtifactsOfAllConfigurations() {
+        return artifactsByConfiguration.get().entrySet().stream()
+                .collect(ImmutableSortedMap.toImmutableSortedMap(
+                        Comparator.naturalOrder(), Map.Entry::getKey, entry -> entry.getValue().artifacts.get().stream()
+                                .map(artifact -> artifact.getId().getDisplayName())
+                                .collect(ImmutableList.toImmutableList())));
     }
 
     @OutputFile
@@ -105,33 +166,14 @@ public class CheckClassUniquenessLockTask extends DefaultTask {
 
     @TaskAction
     public final void doIt() {
-        ImmutableSortedMap<String, Optional<String>> resultsByConfiguration = configurations.get().stream()
-                .collect(ImmutableSortedMap.toImmutableSortedMap(
-                        Comparator.naturalOrder(), Configuration::getName, configuration -> {
-                            ClassUniquenessAnalyzer analyzer = new ClassUniquenessAnalyzer(
-                                    jarClassHasher.get(), getProject().getLogger());
-                            analyzer.analyzeConfiguration(configuration);
-                            Collection<Set<ClassUniquenessArtifactIdentifier>> problemJars =
-                                    analyzer.getDifferingProblemJars();
-
-                            if (problemJars.isEmpty()) {
-                                return Optional.empty();
-                            }
-
-                            ImmutableSortedMap<String, String> clashingHeadersToClasses = problemJars.stream()
-                                    .collect(ImmutableSortedMap.toImmutableSortedMap(
-                                            Comparator.naturalOrder(),
-                                            this::clashingJarHeader,
-                                            clashingJars -> clashingClasses(analyzer, clashingJars)));
-
-                            return Optional.of(clashingHeadersToClasses.entrySet().stream()
-                                    .flatMap(entry -> {
-                                        String clashingJarHeader = entry.getKey();
-                                        String clashingClasses = entry.getValue();
-                                        return Stream.of(clashingJarHeader, clashingClasses);
-                                    })
-                                    .collect(Collectors.joining("\n")));
-                        }));
+        ImmutableSortedMap<String, Optional<String>> resultsByConfiguration =
+                artifactsByConfiguration.get().entrySet().stream()
+                        .collect(ImmutableSortedMap.toImmutableSortedMap(
+                                Comparator.naturalOrder(),
+                                Map.Entry::getKey,
+                                entry -> analyzeConfiguration(toClassUniquenessArtifacts(
+                                        entry.getValue().artifacts.get(),
+                                        entry.getValue().rootComponent.get()))));
 
         boolean conflictsFound = resultsByConfiguration.values().stream().anyMatch(Optional::isPresent);
         if (!conflictsFound) {
@@ -149,6 +191,95 @@ public class CheckClassUniquenessLockTask extends DefaultTask {
         }
     }
 
+    private Optional<String> analyzeConfiguration(ImmutableSet<ClassUniquenessArtifact> artifacts) {
+        if (!analysisCache.isPresent()) {
+            return analyze(artifacts);
+        }
+        return analysisCache.get().getOrAnalyze(artifacts, () -> analyze(artifacts), getLogger());
+    }
+
+    private Optional<String> analyze(ImmutableSet<ClassUniquenessArtifact> artifacts) {
+        ClassUniquenessAnalyzer analyzer =
+                new ClassUniquenessAnalyzer(jarClassHasher.get(), getLogger(), fastHashing.get());
+        analyzer.analyzeArtifacts(artifacts);
+        Collection<Set<ClassUniquenessArtifactIdentifier>> problemJars = analyzer.getDifferingProblemJars();
+
+        if (problemJars.isEmpty()) {
+            return Optional.empty();
+        }
+
+        ImmutableSortedMap<String, String> clashingHeadersToClasses = problemJars.stream()
+                .collect(ImmutableSortedMap.toImmutableSortedMap(
+                        Comparator.naturalOrder(),
+                        this::clashingJarHeader,
+                        clashingJars -> clashingClasses(analyzer, clashingJars)));
+
+        return Optional.of(clashingHeadersToClasses.entrySet().stream()
+                .flatMap(entry -> {
+                    String clashingJarHeader = entry.getKey();
+                    String clashingClasses = entry.getValue();
+                    return Stream.of(clashingJarHeader, clashingClasses);
+                })
+                .collect(Collectors.joining("\n")));
+    }
+
+    /**
+     * Artifact results only carry component identifiers, so the group and name of project dependencies are looked up
+     * in the resolution result. This only happens when the task actually runs.
+     */
+    private static ImmutableSet<ClassUniquenessArtifact> toClassUniquenessArtifacts(
+            Set<ResolvedArtifactResult> artifacts, ResolvedComponentResult rootComponent) {
+        Map<ComponentIdentifier, ModuleVersionIdentifier> moduleVersions = new HashMap<>();
+        Deque<ResolvedComponentResult> toVisit = new ArrayDeque<>();
+        toVisit.add(rootComponent);
+        while (!toVisit.isEmpty()) {
+            ResolvedComponentResult component = toVisit.pop();
+            if (moduleVersions.containsKey(component.getId())) {
+                continue;
+            }
+            moduleVersions.put(component.getId(), component.getModuleVersion());
+            for (DependencyResult dependency : component.getDependencies()) {
+                if (dependency instanceof ResolvedDependencyResult) {
+                    toVisit.push(((ResolvedDependencyResult) dependency).getSelected());
+                }
+            }
+        }
+
+        return artifacts.stream()
+                .map(artifact -> {
+                    ModuleVersionIdentifier moduleVersion =
+                            moduleVersions.get(artifact.getId().getComponentIdentifier());
+                    return ClassUniquenessArtifact.of(
+                            ImmutableClassUniquenessArtifactIdentifier.builder()
+                                    .moduleVersionIdentifier(moduleVersion)
+                                    .classifier(classifier(artifact))
+                                    .build(),
+                            artifact.getFile());
+                })
+                .collect(ImmutableSet.toImmutableSet());
+    }
+
+    /**
+     * The public artifact APIs don't expose classifiers, so they are read from Gradle's internal identifier of module
+     * artifacts. Other artifacts, and all artifacts on Gradle versions without this identifier, have no classifier.
+     */
+    @SuppressWarnings("IllegalImports")
+    private static Optional<String> classifier(ResolvedArtifactResult artifact) {
+        try {
+            if (artifact.getId()
+                    instanceof org.gradle.internal.component.external.model.DefaultModuleComponentArtifactIdentifier) {
+                return Optional.ofNullable(
+                        ((org.gradle.internal.component.external.model.DefaultModuleComponentArtifactIdentifier)
+                                        artifact.getId())
+                                .getName()
+                                .getClassifier());
+            }
+        } catch (LinkageError e) {
+            // fall through
+        }
+        return Optional.empty();
+    }
+
     private String clashingClasses(
             ClassUniquenessAnalyzer analyzer, Set<ClassUniquenessArtifactIdentifier> clashingJars) {
         return analyzer.getDifferingSharedClassesInProblemJars(clashingJars).stream()
@@ -174,7 +305,7 @@ public class CheckClassUniquenessLockTask extends DefaultTask {
         if (shouldFix.get()) {
             GFileUtils.writeFile(expected, lockFile);
             getLogger()
-                    .lifecycle("Updated {}", getProject().getRootDir().toPath().relativize(lockFile.toPath()));
+                    .lifecycle("Updated {}", rootDir.toPath().relativize(lockFile.toPath()));
             return;
         }
 
@@ -220,10 +351,44 @@ public class CheckClassUniquenessLockTask extends DefaultTask {
                 GFileUtils.deleteQuietly(lockFile);
                 getLogger()
                         .lifecycle(
-                                "Deleted {}", getProject().getRootDir().toPath().relativize(lockFile.toPath()));
+                                "Deleted {}", rootDir.toPath().relativize(lockFile.toPath()));
             } else {
                 throw new GradleException(lockFile + " should not exist (as no problems were found).");
             }
         }
     }
+
+    private static Map<String, ConfigurationArtifacts> artifactsByConfiguration(Set<Configuration> configurations) {
+        // A plain map, which the configuration cache stores along with the providers of each configuration
+        return configurations.stream()
+                .collect(Collectors.toMap(
+                        Configuration::getName,
+                        configuration -> new ConfigurationArtifacts(
+                                artifacts(configuration).getResolvedArtifacts(),
+                                configuration.getIncoming().getResolutionResult().getRootComponent()),
+                        (first, second) -> second,
+                        TreeMap::new));
+    }
+
+    private static ArtifactCollection artifacts(Configuration configuration) {
+        // Like ResolvedConfiguration#getResolvedArtifacts, only consider the artifacts of modules and projects.
+        // File dependencies have no node in the resolution result, so there is no identity to put in the lockfile.
+        return configuration
+                .getIncoming()
+                .artifactView(view -> view.componentFilter(
+                        id -> id instanceof ModuleComponentIdentifier || id instanceof ProjectComponentIdentifier))
+                .getArtifacts();
+    }
+
+    /** The lazily resolved artifacts and resolution result of a single configuration. */
+    private static final class ConfigurationArtifacts {
+        private final Provider<Set<ResolvedArtifactResult>> artifacts;
+        private final Provider<ResolvedComponentResult> rootComponent;
+
+        private ConfigurationArtifacts(
+                Provider<Set<ResolvedArtifactResult>> artifacts, Provider<ResolvedComponentResult> rootComponent) {
+            this.artifacts = artifacts;
+            this.rootComponent = rootComponent;
+        }
+    }
 }
@@ -16,8 +16,10 @@
 
 package com.palantir.baseline.tasks;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Streams;
 import com.palantir.baseline.plugins.BaselineExactDependencies;
+import com.palantir.baseline.services.JarClassLister;
 import com.palantir.gradle.failurereports.exceptions.ExceptionWithSuggestion;
 import java.nio.file.Path;
 import java.util.Collections;
@@ -26,19 +28,26 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.ResolvedArtifact;
 import org.gradle.api.artifacts.ResolvedDependency;
 import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.provider.SetProperty;
 import org.gradle.api.tasks.Classpath;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.TaskProvider;
 
 public class CheckImplicitDependenciesTask extends DefaultTask {
 
@@ -46,18 +55,23 @@ public class CheckImplicitDependenciesTask extends DefaultTask {
             Comparator.comparing(artifact -> artifact.getId().getDisplayName());
 
     private final ListProperty<Configuration> dependenciesConfigurations;
-    private final Property<FileCollection> sourceClasses;
+    private final RegularFileProperty referencedClasses;
     private final SetProperty<String> ignore;
+    private final Property<JarClassLister> jarClassLister;
     private final Property<String> suggestionConfigurationName;
 
+    @Nullable
+    private TaskProvider<ReferencedClassesTask> referencedClassesTask;
+
     public CheckImplicitDependenciesTask() {
         setGroup("Verification");
         setDescription("Ensures all dependencies are explicitly declared, not just transitively provided");
         dependenciesConfigurations = getProject().getObjects().listProperty(Configuration.class);
         dependenciesConfigurations.set(Collections.emptyList());
-        sourceClasses = getProject().getObjects().property(FileCollection.class);
+        referencedClasses = getProject().getObjects().fileProperty();
         ignore = getProject().getObjects().setProperty(String.class);
         ignore.set(Collections.emptySet());
+        jarClassLister = getProject().getObjects().property(JarClassLister.class);
         suggestionConfigurationName = getProject().getObjects().property(String.class);
     }
 
@@ -67,10 +81,12 @@ public class CheckImplicitDependenciesTask extends DefaultTask {
                 .map(Configuration::getResolvedConfiguration)
                 .flatMap(resolved -> resolved.getFirstLevelModuleDependencies().stream())
                 .collect(Collectors.toSet());
-        BaselineExactDependencies.INDEXES.populateIndexes(declaredDependencies);
+        BaselineExactDependencies.Indexes indexes = new BaselineExactDependencies.Indexes(jarClassLister.get());
+        indexes.populateIndexes(declaredDependencies);
 
-        Set<List<ResolvedArtifact>> necessaryArtifacts = referencedClasses().stream()
-                .map(c -> BaselineExactDependencies.INDEXES.classToArtifacts(c).collect(Collectors.toList()))
+        Set<String> classes = ReferencedClassesTask.readReferencedClasses(referencedClasses.get().getAsFile());
+        Set<List<ResolvedArtifact>> necessaryArtifacts = classes.stream()
+                .map(c -> indexes.classToArtifacts(c).collect(Collectors.toList()))
                 .collect(Collectors.toSet());
         Set<ResolvedArtifact> declaredArtifacts = declaredDependencies.stream()
                 .flatMap(dependency -> dependency.getModuleArtifacts().stream())
@@ -130,13 +146,6 @@ public class CheckImplicitDependenciesTask extends DefaultTask {
                 .equals(getProject().getPath());
     }
 
-    /** All classes which are mentioned in this project's source code. */
-    private Set<String> referencedClasses() {
-        return Streams.stream(sourceClasses.get().iterator())
-                .flatMap(BaselineExactDependencies::referencedClasses)
-                .collect(Collectors.toSet());
-    }
-
     private Path buildFile() {
         return getProject()
                 .getRootDir()
@@ -157,13 +166,42 @@ public class CheckImplicitDependenciesTask extends DefaultTask {
         this.dependenciesConfigurations.add(Objects.requireNonNull(dependenciesConfiguration));
     }
 
-    @Classpath
+    /** All classes which are mentioned in this project's source code, as written by {@link ReferencedClassesTask}. */
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public final RegularFileProperty getReferencedClasses() {
+        return referencedClasses;
+    }
+
+    /** Checks the classes referenced by the class files of the given task. */
+    public final void referencedClassesFrom(TaskProvider<ReferencedClassesTask> task) {
+        this.referencedClassesTask = task;
+        this.referencedClasses.set(task.flatMap(ReferencedClassesTask::getReferencedClasses));
+    }
+
+    /**
+     * The class files whose references are checked.
+     *
+     * @deprecated The class files are analyzed by the {@link ReferencedClassesTask} set with
+     *     {@link #referencedClassesFrom}, and this task only reads its {@link #getReferencedClasses() output}.
+     */
+    @Deprecated
+    @Internal
     public final Provider<FileCollection> getSourceClasses() {
-        return sourceClasses;
+        Preconditions.checkState(referencedClassesTask != null, "No task computes the referenced classes of %s", this);
+        return referencedClassesTask.map(ReferencedClassesTask::getClassesDirs);
     }
 
+    /**
+     * Replaces the class files analyzed by the {@link ReferencedClassesTask} set with {@link #referencedClassesFrom}.
+     *
+     * @deprecated Set the classes directories of that task instead.
+     */
+    @Deprecated
     public final void setSourceClasses(FileCollection newClasses) {
-        this.sourceClasses.set(getProject().files(newClasses));
+        Preconditions.checkState(referencedClassesTask != null, "No task computes the referenced classes of %s", this);
+        FileCollection classes = getProject().files(newClasses);
+        referencedClassesTask.configure(task -> task.getClassesDirs().setFrom(classes));
     }
 
     public final void ignore(Provider<Set<String>> value) {
@@ -179,6 +217,11 @@ public class CheckImplicitDependenciesTask extends DefaultTask {
         return ignore;
     }
 
+    @Internal
+    public final Property<JarClassLister> getJarClassLister() {
+        return jarClassLister;
+    }
+
     @Input
     public final Provider<String> getSuggestionConfigurationName() {
         return suggestionConfigurationName;
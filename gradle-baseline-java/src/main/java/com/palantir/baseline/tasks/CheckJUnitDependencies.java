@@ -21,12 +21,22 @@ import static java.util.stream.Collectors.toList;
 import com.google.common.base.Preconditions;
 import com.palantir.baseline.plugins.BaselineTesting;
 import com.palantir.baseline.util.VersionUtils;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.artifacts.Configuration;
@@ -40,6 +50,25 @@ import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.testing.Test;
 
 public class CheckJUnitDependencies extends DefaultTask {
+    private static final int MENTIONS_JUNIT4 = 1;
+    private static final int MENTIONS_JUNIT5_API = 1 << 1;
+    private static final int MENTIONS_JQWIK_API = 1 << 2;
+    private static final int MENTIONS_ALL = MENTIONS_JUNIT4 | MENTIONS_JUNIT5_API | MENTIONS_JQWIK_API;
+
+    // A single pattern for everything we look for, so each source file is only read once
+    private static final Pattern MENTIONS = Pattern.compile(
+            "(org\\.junit\\.(?:Test|runner|ClassRule))|(org\\.junit\\.jupiter\\.api\\.)|(net\\.jqwik\\.api\\.)");
+
+    private static final int CACHE_FORMAT_VERSION = 1;
+
+    /** What each source file mentioned in the last run, keyed by path, so unchanged files aren't read again. */
+    private final Map<String, CachedMentions> previousMentionsByFile = new HashMap<>();
+
+    /**
+     * What each source file checked in this run mentions. Only these are written back, so files which were deleted or
+     * left their source set are dropped from the cache.
+     */
+    private final Map<String, CachedMentions> mentionsByFile = new HashMap<>();
 
     public CheckJUnitDependencies() {
         setGroup("Verification");
@@ -49,6 +78,16 @@ public class CheckJUnitDependencies extends DefaultTask {
 
     @TaskAction
     public final void validateDependencies() {
+        File cacheFile = new File(getTemporaryDir(), "junit-mentions.bin");
+        readMentionsCache(cacheFile);
+        try {
+            validateTestSourceSets();
+        } finally {
+            writeMentionsCache(cacheFile);
+        }
+    }
+
+    private void validateTestSourceSets() {
         getProbablyTestSourceSets().forEach(ss -> {
             Optional<Test> maybeTestTask = BaselineTesting.getTestTaskForSourceSet(getProject(), ss);
             if (!maybeTestTask.isPresent()) {
@@ -88,11 +127,12 @@ public class CheckJUnitDependencies extends DefaultTask {
         boolean spock2OrGreaterDependency = hasDep(deps, CheckJUnitDependencies::isSpock2OrGreater);
         String testRuntimeOnly = ss.getRuntimeOnlyConfigurationName();
         boolean junitPlatformEnabled = BaselineTesting.useJUnitPlatformEnabled(task);
+        int mentions = sourceSetMentions(ss);
 
         // If some testing library happens to provide the junit-jupiter-api, then users might start using the
         // org.junit.jupiter.api.Test annotation, but as JUnit4 knows nothing about these, they'll silently not run
         // unless the user has wired up the dependency correctly.
-        if (sourceSetMentionsJUnit5Api(ss)) {
+        if ((mentions & MENTIONS_JUNIT5_API) != 0) {
             String runtime = ss.getRuntimeClasspathConfigurationName();
             Preconditions.checkState(
                     junitPlatformEnabled,
@@ -109,7 +149,7 @@ public class CheckJUnitDependencies extends DefaultTask {
         // When doing an incremental migration to JUnit5, a project may have some JUnit4 and some JUnit5 tests at the
         // same time. It's crucial that they have the vintage engine set up correctly, otherwise tests may silently
         // not run!
-        if (sourceSetMentionsJUnit4(ss)) {
+        if ((mentions & MENTIONS_JUNIT4) != 0) {
             if (junitPlatformEnabled) { // people might manually enable this
                 Preconditions.checkState(
                         junitJupiterIsPresent,
@@ -139,7 +179,7 @@ public class CheckJUnitDependencies extends DefaultTask {
             }
         }
 
-        if (sourceSetMentionsJqwikApi(ss)) {
+        if ((mentions & MENTIONS_JQWIK_API) != 0) {
             Preconditions.checkState(junitPlatformEnabled, "jqwik requires the junit platform");
             String runtime = ss.getRuntimeClasspathConfigurationName();
             Set<String> engines = BaselineTesting.getJUnitPlatformEngines(task);
@@ -192,34 +232,85 @@ public class CheckJUnitDependencies extends DefaultTask {
         return deps.stream().anyMatch(component -> spec.test(component.getModuleVersion()));
     }
 
-    private boolean sourceSetMentionsJUnit4(SourceSet ss) {
+    /** Which of JUnit4, the JUnit5 API and the jqwik API are mentioned by any source file in the source set. */
+    private int sourceSetMentions(SourceSet ss) {
+        int mentions = 0;
         // getAllJava() includes groovy sources too
-        return !ss.getAllJava()
-                .filter(file -> fileContainsSubstring(
-                        file,
-                        l -> l.contains("org.junit.Test")
-                                || l.contains("org.junit.runner")
-                                || l.contains("org.junit.ClassRule")))
-                .isEmpty();
+        for (File file : ss.getAllJava()) {
+            mentions |= fileMentions(file);
+            if (mentions == MENTIONS_ALL) {
+                break;
+            }
+        }
+        return mentions;
     }
 
-    private boolean sourceSetMentionsJUnit5Api(SourceSet ss) {
-        return !ss.getAllJava()
-                .filter(file -> fileContainsSubstring(file, l -> l.contains("org.junit.jupiter.api.")))
-                .isEmpty();
+    private int fileMentions(File file) {
+        long length = file.length();
+        long lastModified = file.lastModified();
+        CachedMentions cached = previousMentionsByFile.get(file.getPath());
+        if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+            mentionsByFile.put(file.getPath(), cached);
+            return cached.mentions;
+        }
+
+        int mentions = 0;
+        try {
+            // Everything we look for is ASCII, so decode as Latin-1 which can't fail on any input
+            String contents = new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+            Matcher matcher = MENTIONS.matcher(contents);
+            while (mentions != MENTIONS_ALL && matcher.find()) {
+                if (matcher.group(1) != null) {
+                    mentions |= MENTIONS_JUNIT4;
+                } else if (matcher.group(2) != null) {
+                    mentions |= MENTIONS_JUNIT5_API;
+                } else {
+                    mentions |= MENTIONS_JQWIK_API;
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to check file for junit dependencies: " + file, e);
+        }
+        mentionsByFile.put(file.getPath(), new CachedMentions(length, lastModified, mentions));
+        return mentions;
     }
 
-    private boolean sourceSetMentionsJqwikApi(SourceSet ss) {
-        return !ss.getAllJava()
-                .filter(file -> fileContainsSubstring(file, l -> l.contains("net.jqwik.api.")))
-                .isEmpty();
+    private void readMentionsCache(File cacheFile) {
+        previousMentionsByFile.clear();
+        mentionsByFile.clear();
+        if (!cacheFile.isFile()) {
+            return;
+        }
+        try (DataInputStream in =
+                new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile.toPath())))) {
+            if (in.readInt() != CACHE_FORMAT_VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                previousMentionsByFile.put(
+                        in.readUTF(), new CachedMentions(in.readLong(), in.readLong(), in.readByte()));
+            }
+        } catch (IOException e) {
+            // Only an optimisation, so start from scratch rather than failing the build
+            getLogger().info("Ignoring unreadable JUnit mentions cache {}", cacheFile, e);
+            previousMentionsByFile.clear();
+        }
     }
 
-    private boolean fileContainsSubstring(File file, Predicate<String> substring) {
-        try (Stream<String> lines = Files.lines(file.toPath())) {
-            return lines.anyMatch(substring);
-        } catch (Exception e) {
-            throw new RuntimeException("Unable to check file for junit dependencies: " + file, e);
+    private void writeMentionsCache(File cacheFile) {
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(cacheFile.toPath())))) {
+            out.writeInt(CACHE_FORMAT_VERSION);
+            out.writeInt(mentionsByFile.size());
+            for (Map.Entry<String, CachedMentions> entry : mentionsByFile.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().length);
+                out.writeLong(entry.getValue().lastModified);
+                out.writeByte(entry.getValue().mentions);
+            }
+        } catch (IOException e) {
+            getLogger().info("Failed to write JUnit mentions cache {}", cacheFile, e);
         }
     }
 
@@ -246,4 +337,16 @@ public class CheckJUnitDependencies extends DefaultTask {
     private static boolean isJqwikEngine(ModuleVersionIdentifier dep) {
         return "net.jqwik".equals(dep.getGroup()) && "jqwik-engine".equals(dep.getName());
     }
+
+    private static final class CachedMentions {
+        private final long length;
+        private final long lastModified;
+        private final int mentions;
+
+        CachedMentions(long length, long lastModified, int mentions) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.mentions = mentions;
+        }
+    }
 }
@@ -17,8 +17,8 @@
 package com.palantir.baseline.tasks;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Streams;
 import com.palantir.baseline.plugins.BaselineExactDependencies;
+import com.palantir.baseline.services.JarClassLister;
 import com.palantir.gradle.failurereports.exceptions.ExceptionWithSuggestion;
 import java.nio.file.Path;
 import java.util.Collections;
@@ -27,25 +27,36 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.ResolvedArtifact;
 import org.gradle.api.artifacts.ResolvedDependency;
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.provider.SetProperty;
 import org.gradle.api.tasks.Classpath;
 import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.TaskProvider;
 
 public class CheckUnusedDependenciesTask extends DefaultTask {
 
     private final ListProperty<Configuration> dependenciesConfigurations;
     private final ListProperty<Configuration> sourceOnlyConfigurations;
-    private final Property<FileCollection> sourceClasses;
+    private final RegularFileProperty referencedClasses;
     private final SetProperty<String> ignore;
+    private final Property<JarClassLister> jarClassLister;
+
+    @Nullable
+    private TaskProvider<ReferencedClassesTask> referencedClassesTask;
 
     public CheckUnusedDependenciesTask() {
         setGroup("Verification");
@@ -54,9 +65,10 @@ public class CheckUnusedDependenciesTask extends DefaultTask {
         dependenciesConfigurations.set(Collections.emptyList());
         sourceOnlyConfigurations = getProject().getObjects().listProperty(Configuration.class);
         sourceOnlyConfigurations.set(Collections.emptyList());
-        sourceClasses = getProject().getObjects().property(FileCollection.class);
+        referencedClasses = getProject().getObjects().fileProperty();
         ignore = getProject().getObjects().setProperty(String.class);
         ignore.set(Collections.emptySet());
+        jarClassLister = getProject().getObjects().property(JarClassLister.class);
         getOutputs().upToDateWhen(_task -> true);
     }
 
@@ -66,7 +78,8 @@ public class CheckUnusedDependenciesTask extends DefaultTask {
                 .map(Configuration::getResolvedConfiguration)
                 .flatMap(resolved -> resolved.getFirstLevelModuleDependencies().stream())
                 .collect(Collectors.toSet());
-        BaselineExactDependencies.INDEXES.populateIndexes(declaredDependencies);
+        BaselineExactDependencies.Indexes indexes = new BaselineExactDependencies.Indexes(jarClassLister.get());
+        indexes.populateIndexes(declaredDependencies);
 
         Set<ResolvedArtifact> declaredArtifacts = declaredDependencies.stream()
                 .flatMap(dependency -> dependency.getModuleArtifacts().stream())
@@ -76,10 +89,10 @@ public class CheckUnusedDependenciesTask extends DefaultTask {
 
         excludeSourceOnlyDependencies();
 
-        Set<String> necessaryArtifactsDeclaration = Streams.stream(
-                        sourceClasses.get().iterator())
-                .flatMap(BaselineExactDependencies::referencedClasses)
-                .flatMap(BaselineExactDependencies.INDEXES::classToArtifacts)
+        Set<String> referencedClasses =
+                ReferencedClassesTask.readReferencedClasses(this.referencedClasses.get().getAsFile());
+        Set<String> necessaryArtifactsDeclaration = referencedClasses.stream()
+                .flatMap(indexes::classToArtifacts)
                 .map(BaselineExactDependencies::asString)
                 .collect(Collectors.toSet());
 
@@ -112,14 +125,13 @@ public class CheckUnusedDependenciesTask extends DefaultTask {
 
                 // Suggest fixes by looking at all transitive classes, filtering the ones we have declarations on,
                 // and mapping the remaining ones back to the jars they came from.
-                ResolvedDependency dependency =
-                        BaselineExactDependencies.INDEXES.artifactsFromDependency(resolvedArtifact);
+                ResolvedDependency dependency = indexes.artifactsFromDependency(resolvedArtifact);
                 Set<ResolvedArtifact> didYouMean = dependency.getAllModuleArtifacts().stream()
                         .filter(artifact ->
                                 BaselineExactDependencies.VALID_ARTIFACT_EXTENSIONS.contains(artifact.getExtension()))
-                        .flatMap(BaselineExactDependencies.INDEXES::classesFromArtifact)
-                        .filter(referencedClasses()::contains)
-                        .flatMap(BaselineExactDependencies.INDEXES::classToArtifacts)
+                        .flatMap(indexes::classesFromArtifact)
+                        .filter(referencedClasses::contains)
+                        .flatMap(indexes::classToArtifacts)
                         .filter(artifact -> !declaredArtifacts.contains(artifact))
                         .collect(Collectors.toSet());
 
@@ -157,13 +169,6 @@ public class CheckUnusedDependenciesTask extends DefaultTask {
         ignore.add(dependencyId);
     }
 
-    /** All classes which are mentioned in this project's source code. */
-    private Set<String> referencedClasses() {
-        return Streams.stream(sourceClasses.get().iterator())
-                .flatMap(BaselineExactDependencies::referencedClasses)
-                .collect(Collectors.toSet());
-    }
-
     private Path buildFile() {
         return getProject()
                 .getRootDir()
@@ -205,13 +210,42 @@ public class CheckUnusedDependenciesTask extends DefaultTask {
         this.sourceOnlyConfigurations.add(Objects.requireNonNull(configuration));
     }
 
-    @Classpath
+    /** All classes which are mentioned in this project's source code, as written by {@link ReferencedClassesTask}. */
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public final RegularFileProperty getReferencedClasses() {
+        return referencedClasses;
+    }
+
+    /** Checks the classes referenced by the class files of the given task. */
+    public final void referencedClassesFrom(TaskProvider<ReferencedClassesTask> task) {
+        this.referencedClassesTask = task;
+        this.referencedClasses.set(task.flatMap(ReferencedClassesTask::getReferencedClasses));
+    }
+
+    /**
+     * The class files whose references are checked.
+     *
+     * @deprecated The class files are analyzed by the {@link ReferencedClassesTask} set with
+     *     {@link #referencedClassesFrom}, and this task only reads its {@link #getReferencedClasses() output}.
+     */
+    @Deprecated
+    @Internal
     public final Provider<FileCollection> getSourceClasses() {
-        return sourceClasses;
+        Preconditions.checkState(referencedClassesTask != null, "No task computes the referenced classes of %s", this);
+        return referencedClassesTask.map(ReferencedClassesTask::getClassesDirs);
     }
 
+    /**
+     * Replaces the class files analyzed by the {@link ReferencedClassesTask} set with {@link #referencedClassesFrom}.
+     *
+     * @deprecated Set the classes directories of that task instead.
+     */
+    @Deprecated
     public final void setSourceClasses(FileCollection newClasses) {
-        this.sourceClasses.set(getProject().files(newClasses));
+        Preconditions.checkState(referencedClassesTask != null, "No task computes the referenced classes of %s", this);
+        FileCollection classes = getProject().files(newClasses);
+        referencedClassesTask.configure(task -> task.getClassesDirs().setFrom(classes));
     }
 
     public final void ignore(Provider<Set<String>> value) {
@@ -226,4 +260,9 @@ public class CheckUnusedDependenciesTask extends DefaultTask {
     public final Provider<Set<String>> getIgnored() {
         return ignore;
     }
+
+    @Internal
+    public final Property<JarClassLister> getJarClassLister() {
+        return jarClassLister;
+    }
 }
@@ -18,23 +18,32 @@ package com.palantir.baseline.tasks;
 
 import static java.util.stream.Collectors.toSet;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
 import com.google.common.hash.HashCode;
+import com.palantir.baseline.services.ClassUniquenessArtifact;
 import com.palantir.baseline.services.ClassUniquenessArtifactIdentifier;
 import com.palantir.baseline.services.ImmutableClassUniquenessArtifactIdentifier;
 import com.palantir.baseline.services.JarClassHasher;
 import java.io.File;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.gradle.api.artifacts.Configuration;
-import org.gradle.api.artifacts.ResolvedArtifact;
 import org.slf4j.Logger;
 
 public final class ClassUniquenessAnalyzer {
@@ -42,44 +51,74 @@ public final class ClassUniquenessAnalyzer {
     private final SetMultimap<Set<ClassUniquenessArtifactIdentifier>, String> jarsToClasses = HashMultimap.create();
     private final SetMultimap<String, HashCode> classToHashCodes = HashMultimap.create();
     private final Logger log;
+    private final boolean fastHashing;
 
     public ClassUniquenessAnalyzer(JarClassHasher jarHasher, Logger log) {
+        this(jarHasher, log, false);
+    }
+
+    /**
+     * Creates an analyzer which hashes jars on the {@link JarClassHasher#executor() executor} shared by the build, or
+     * sequentially on the calling thread if the hasher has none.
+     *
+     * <p>When {@code fastHashing} is enabled, classes are first compared by the CRC-32 and size recorded in each jar's
+     * central directory, and only classes which appear in several jars with identical fingerprints are decompressed
+     * and hashed to confirm that they really are identical.
+     */
+    public ClassUniquenessAnalyzer(JarClassHasher jarHasher, Logger log, boolean fastHashing) {
         this.jarHasher = jarHasher;
         this.log = log;
+        this.fastHashing = fastHashing;
     }
 
     public void analyzeConfiguration(Configuration configuration) {
+        analyzeArtifacts(configuration.getResolvedConfiguration().getResolvedArtifacts().stream()
+                .map(resolvedArtifact -> ClassUniquenessArtifact.of(
+                        ImmutableClassUniquenessArtifactIdentifier.builder()
+                                .moduleVersionIdentifier(resolvedArtifact.getModuleVersion().getId())
+                                .classifier(resolvedArtifact.getClassifier())
+                                .build(),
+                        resolvedArtifact.getFile()))
+                .collect(ImmutableList.toImmutableList()));
+    }
+
+    public void analyzeArtifacts(Collection<ClassUniquenessArtifact> artifacts) {
         Instant before = Instant.now();
-        Set<ResolvedArtifact> dependencies =
-                configuration.getResolvedConfiguration().getResolvedArtifacts();
+        List<ClassUniquenessArtifact> dependencies = artifacts.stream()
+                .filter(artifact -> {
+                    File file = artifact.file();
+                    if (!file.exists()) {
+                        log.info("Skipping non-existent jar {}: {}", artifact.identifier(), file);
+                        return false;
+                    }
+                    return true;
+                })
+                .collect(ImmutableList.toImmutableList());
+
+        // hashing is the expensive part, so happens concurrently. The results come back in classpath order and are
+        // merged on this thread, so the outcome does not depend on which jar finished hashing first.
+        List<JarClassHasher.Result> results = forEachJar(
+                dependencies,
+                artifact -> fastHashing
+                        ? jarHasher.fingerprintClasses(artifact, log)
+                        : jarHasher.hashClasses(artifact, log));
 
         // we use these temporary maps to accumulate information as we process each jar,
         // so they may include singletons which we filter out later
         SetMultimap<String, ClassUniquenessArtifactIdentifier> classToJars = HashMultimap.create();
         SetMultimap<String, HashCode> tempClassToHashCodes = HashMultimap.create();
 
-        for (ResolvedArtifact resolvedArtifact : dependencies) {
-            File file = resolvedArtifact.getFile();
-            if (!file.exists()) {
-                log.info("Skipping non-existent jar {}: {}", resolvedArtifact, file);
-                return;
-            }
-
-            ImmutableSetMultimap<String, HashCode> hashes =
-                    jarHasher.hashClasses(resolvedArtifact, log).getHashesByClassName();
+        for (int i = 0; i < dependencies.size(); i++) {
+            ClassUniquenessArtifactIdentifier artifactIdentifier = dependencies.get(i).identifier();
 
-            for (Map.Entry<String, HashCode> entry : hashes.entries()) {
-                String className = entry.getKey();
-                HashCode hashValue = entry.getValue();
-                classToJars.put(
-                        className,
-                        ImmutableClassUniquenessArtifactIdentifier.builder()
-                                .moduleVersionIdentifier(
-                                        resolvedArtifact.getModuleVersion().getId())
-                                .classifier(resolvedArtifact.getClassifier())
-                                .build());
+            results.get(i).forEach((className, hashValue) -> {
+                classToJars.put(className, artifactIdentifier);
                 tempClassToHashCodes.put(className, hashValue);
-            }
+            });
+        }
+
+        if (fastHashing) {
+            confirmMatchingFingerprints(dependencies, results, classToJars, tempClassToHashCodes);
         }
 
         // discard all the classes that only come from one jar - these are completely safe!
@@ -98,6 +137,88 @@ public final class ClassUniquenessAnalyzer {
                 classToJars.size(),
                 dependencies.size(),
                 Duration.between(before, after).toMillis());
+
+        long compactBytes = results.stream()
+                .mapToLong(JarClassHasher.Result::estimatedSizeBytes)
+                .sum();
+        long multimapBytes = results.stream()
+                .mapToLong(JarClassHasher.Result::estimatedMultimapSizeBytes)
+                .sum();
+        log.info(
+                "Class hashes from {} dependencies use ~{}KB of heap, saving ~{}KB over full class names and hashes",
+                dependencies.size(),
+                compactBytes / 1024,
+                (multimapBytes - compactBytes) / 1024);
+    }
+
+    /**
+     * Classes whose CRC-32 and size differ between jars are definitely different, but a matching fingerprint may be a
+     * collision. This replaces the fingerprints of classes which appear in several jars with identical fingerprints
+     * by the SHA-256 of their contents, opening each affected jar once.
+     */
+    private void confirmMatchingFingerprints(
+            List<ClassUniquenessArtifact> dependencies,
+            List<JarClassHasher.Result> fingerprints,
+            SetMultimap<String, ClassUniquenessArtifactIdentifier> classToJars,
+            SetMultimap<String, HashCode> classToFingerprints) {
+        Set<String> candidates = classToJars.asMap().entrySet().stream()
+                .filter(entry -> entry.getValue().size() > 1)
+                .map(Map.Entry::getKey)
+                .filter(className -> classToFingerprints.get(className).size() == 1)
+                .collect(toSet());
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<ClassUniquenessArtifact, Set<String>>> classesToHashByJar = new ArrayList<>();
+        for (int i = 0; i < dependencies.size(); i++) {
+            JarClassHasher.Result jarFingerprints = fingerprints.get(i);
+            Set<String> classes = candidates.stream()
+                    .filter(jarFingerprints::containsClass)
+                    .collect(ImmutableSet.toImmutableSet());
+            if (!classes.isEmpty()) {
+                classesToHashByJar.add(Maps.immutableEntry(dependencies.get(i), classes));
+            }
+        }
+
+        List<SetMultimap<String, HashCode>> hashes = forEachJar(
+                classesToHashByJar,
+                jarAndClasses -> jarHasher.hashClasses(jarAndClasses.getKey().file(), jarAndClasses.getValue()));
+
+        SetMultimap<String, HashCode> candidateHashes = HashMultimap.create();
+        hashes.forEach(candidateHashes::putAll);
+        for (String className : candidates) {
+            classToFingerprints.replaceValues(className, candidateHashes.get(className));
+        }
+    }
+
+    private <I, O> List<O> forEachJar(List<I> jars, Function<I, O> function) {
+        Optional<ExecutorService> executor = jarHasher.executor();
+        if (executor.isEmpty() || jars.size() <= 1) {
+            return jars.stream().map(function).collect(ImmutableList.toImmutableList());
+        }
+
+        List<Future<O>> futures = new ArrayList<>(jars.size());
+        try {
+            for (I jar : jars) {
+                futures.add(executor.get().submit(() -> function.apply(jar)));
+            }
+
+            ImmutableList.Builder<O> results = ImmutableList.builderWithExpectedSize(futures.size());
+            for (Future<O> future : futures) {
+                results.add(future.get());
+            }
+            return results.build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while hashing jars", e);
+        } catch (ExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        } finally {
+            // the executor is shared with other tasks, so only this analysis' outstanding work is cancelled
+            futures.forEach(future -> future.cancel(true));
+        }
     }
 
     /**
@@ -0,0 +1,186 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.tasks;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.palantir.baseline.plugins.BaselineExactDependencies;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.FileType;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.ChangeType;
+import org.gradle.work.FileChange;
+import org.gradle.work.Incremental;
+import org.gradle.work.InputChanges;
+
+/**
+ * Writes every class referenced by the bytecode of a source set, one per line in sorted order. Parsing class files is
+ * the most expensive part of the exact dependency checks, so this happens once per source set and the result is
+ * shared by {@link CheckUnusedDependenciesTask} and {@link CheckImplicitDependenciesTask}.
+ *
+ * <p>The references of each class file are kept in {@link #getReferenceTable()}, so after an edit only the added,
+ * modified and removed class files are analyzed and the output is rebuilt from the updated table.
+ */
+@CacheableTask
+public abstract class ReferencedClassesTask extends DefaultTask {
+    private static final int MAGIC = 0xBA5E_C1A5;
+    private static final int FORMAT_VERSION = 1;
+
+    public ReferencedClassesTask() {
+        setDescription("Lists all classes referenced by the compiled classes of a source set");
+    }
+
+    @Incremental
+    @Classpath
+    public abstract ConfigurableFileCollection getClassesDirs();
+
+    @OutputFile
+    public abstract RegularFileProperty getReferencedClasses();
+
+    /** The classes referenced by each class file, keyed by its path relative to its classes directory. */
+    @OutputFile
+    public abstract RegularFileProperty getReferenceTable();
+
+    @TaskAction
+    public final void writeReferencedClasses(InputChanges inputChanges) {
+        File tableFile = getReferenceTable().get().getAsFile();
+        Optional<Map<String, ImmutableSet<String>>> previousTable =
+                inputChanges.isIncremental() ? readReferenceTable(tableFile) : Optional.empty();
+
+        Map<String, ImmutableSet<String>> referencesByClassFile;
+        if (previousTable.isPresent()) {
+            referencesByClassFile = previousTable.get();
+            int analyzed = 0;
+            for (FileChange change : inputChanges.getFileChanges(getClassesDirs())) {
+                if (change.getChangeType() == ChangeType.REMOVED) {
+                    referencesByClassFile.remove(change.getNormalizedPath());
+                } else if (change.getFileType() == FileType.FILE && isClassFile(change.getNormalizedPath())) {
+                    referencesByClassFile.put(change.getNormalizedPath(), referencedClasses(change.getFile()));
+                    analyzed++;
+                }
+            }
+            getLogger().info("Analyzed {} changed class files", analyzed);
+        } else {
+            referencesByClassFile = analyzeAllClassFiles();
+        }
+
+        writeReferenceTable(tableFile, referencesByClassFile);
+        ImmutableSortedSet<String> referencedClasses = referencesByClassFile.values().stream()
+                .flatMap(ImmutableSet::stream)
+                .collect(ImmutableSortedSet.toImmutableSortedSet(Comparator.naturalOrder()));
+        try {
+            Files.write(getReferencedClasses().get().getAsFile().toPath(), referencedClasses, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write referenced classes", e);
+        }
+    }
+
+    /** Reads the classes written by this task. */
+    public static ImmutableSet<String> readReferencedClasses(File file) {
+        try {
+            return ImmutableSet.copyOf(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read referenced classes from " + file, e);
+        }
+    }
+
+    private Map<String, ImmutableSet<String>> analyzeAllClassFiles() {
+        Map<String, ImmutableSet<String>> referencesByClassFile = new TreeMap<>();
+        getClassesDirs().getAsFileTree().visit(details -> {
+            String path = details.getRelativePath().getPathString();
+            if (!details.isDirectory() && isClassFile(path)) {
+                referencesByClassFile.put(path, referencedClasses(details.getFile()));
+            }
+        });
+        getLogger().info("Analyzed all {} class files", referencesByClassFile.size());
+        return referencesByClassFile;
+    }
+
+    private static ImmutableSet<String> referencedClasses(File classFile) {
+        return BaselineExactDependencies.referencedClasses(classFile).collect(ImmutableSet.toImmutableSet());
+    }
+
+    private static boolean isClassFile(String path) {
+        return path.endsWith(".class");
+    }
+
+    private Optional<Map<String, ImmutableSet<String>>> readReferenceTable(File tableFile) {
+        if (!tableFile.isFile()) {
+            return Optional.empty();
+        }
+
+        try (DataInputStream in =
+                new DataInputStream(new BufferedInputStream(Files.newInputStream(tableFile.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return Optional.empty();
+            }
+
+            int classFiles = in.readInt();
+            Map<String, ImmutableSet<String>> referencesByClassFile = new TreeMap<>();
+            for (int i = 0; i < classFiles; i++) {
+                String path = in.readUTF();
+                int references = in.readInt();
+                ImmutableSet.Builder<String> referencedClasses = ImmutableSet.builderWithExpectedSize(references);
+                for (int j = 0; j < references; j++) {
+                    referencedClasses.add(in.readUTF());
+                }
+                referencesByClassFile.put(path, referencedClasses.build());
+            }
+            return Optional.of(referencesByClassFile);
+        } catch (IOException | RuntimeException e) {
+            // Fall back to analyzing everything rather than producing an incomplete result
+            getLogger().info("Ignoring unreadable reference table {}", tableFile, e);
+            return Optional.empty();
+        }
+    }
+
+    private static void writeReferenceTable(File tableFile, Map<String, ImmutableSet<String>> referencesByClassFile) {
+        try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tableFile.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(referencesByClassFile.size());
+            for (Map.Entry<String, ImmutableSet<String>> entry : referencesByClassFile.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().size());
+                for (String referencedClass : entry.getValue()) {
+                    out.writeUTF(referencedClass);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write reference table " + tableFile, e);
+        }
+    }
+}
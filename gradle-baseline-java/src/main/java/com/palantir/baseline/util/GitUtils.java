@@ -16,7 +16,14 @@
 
 package com.palantir.baseline.util;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CharStreams;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -38,5 +45,41 @@ public final class GitUtils {
         }
     }
 
+    /**
+     * The paths of files which differ from the given ref in the working tree, including untracked files, relative to
+     * the given directory. Empty if git is not available or the ref does not exist.
+     */
+    public static Optional<List<String>> maybeChangedFilesSince(File directory, String ref) {
+        try {
+            return Optional.of(ImmutableList.<String>builder()
+                    .addAll(git(directory, "diff", "--name-only", "--relative", ref))
+                    .addAll(git(directory, "ls-files", "--others", "--exclude-standard"))
+                    .build());
+        } catch (IOException e) {
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    private static List<String> git(File directory, String... args) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(ImmutableList.<String>builder()
+                        .add("git")
+                        .add(args)
+                        .build())
+                .directory(directory)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        List<String> lines;
+        try (Reader reader = new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8)) {
+            lines = CharStreams.readLines(reader);
+        }
+        if (process.waitFor() != 0) {
+            throw new IOException("git " + String.join(" ", args) + " exited with " + process.exitValue());
+        }
+        return lines;
+    }
+
     private GitUtils() {}
 }
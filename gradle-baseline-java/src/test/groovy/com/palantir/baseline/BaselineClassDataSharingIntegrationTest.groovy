@@ -0,0 +1,81 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline
+
+import nebula.test.IntegrationSpec
+
+class BaselineClassDataSharingIntegrationTest extends IntegrationSpec {
+    def standardBuildFile = '''
+        plugins {
+            id 'java-library'
+        }
+
+        apply plugin: 'com.palantir.baseline-class-data-sharing'
+
+        repositories {
+            mavenCentral()
+        }
+
+        dependencies {
+            testImplementation 'junit:junit:4.13.2'
+        }
+
+        test {
+            jvmArgs "-Xlog:class+load=info:file=${layout.buildDirectory.get().asFile}/class-load-%p.log"
+        }
+    '''.stripIndent(true)
+
+    def junitTest = '''
+        package test;
+
+        import org.junit.Test;
+
+        public class TestClass {
+            @Test
+            public void test() {}
+        }
+        '''.stripIndent(true)
+
+    def 'dumps an archive of the classes loaded by the first run and uses it in the next'() {
+        when:
+        buildFile << standardBuildFile
+        file('src/test/java/test/TestClass.java') << junitTest
+
+        then:
+        runTasksSuccessfully('test')
+        fileExists('build/baseline-class-data-sharing/test/classes.jsa')
+        fileExists('build/baseline-class-data-sharing/test/classes.key')
+        !loadedFromArchive()
+
+        when:
+        file('build').eachFileMatch(~/class-load-.*\.log/) { it.delete() }
+        runTasksSuccessfully('test', '--rerun-tasks')
+
+        then:
+        fileExists('build/baseline-class-data-sharing/test/classes.jsa')
+        loadedFromArchive()
+    }
+
+    /** Whether classes of the Gradle test worker jar, the first jar on the classpath, came from the archive. */
+    private boolean loadedFromArchive() {
+        List<File> logs = file('build').listFiles().findAll { it.name ==~ /class-load-.*\.log/ }
+        assert !logs.isEmpty()
+        return logs.any { log ->
+            log.readLines().any { it ==~ /.*worker\.org\.gradle\.\S+ source: shared objects file.*/ }
+        }
+    }
+}
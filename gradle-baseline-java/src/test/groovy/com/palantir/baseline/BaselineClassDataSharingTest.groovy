@@ -0,0 +1,57 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline
+
+import com.palantir.baseline.plugins.BaselineClassDataSharing
+import org.gradle.api.tasks.testing.Test
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+
+class BaselineClassDataSharingTest extends Specification {
+
+    def testClasspathOrderIsLeftAlone() {
+        when:
+        def project = ProjectBuilder.builder().build()
+        def classesDir = project.file('classes')
+        classesDir.mkdirs()
+        def jar = project.file('lib.jar')
+        jar.text = ''
+        project.plugins.apply 'java'
+        project.test {
+            classpath = project.files(classesDir, jar)
+        }
+        project.plugins.apply BaselineClassDataSharing
+        project.evaluate()
+
+        then:
+        Test testTask = project.tasks.getByName('test')
+        testTask.classpath.files as List == [classesDir, jar]
+    }
+
+    def testNoArchiveArgumentsBeforeArchiveIsDumped() {
+        when:
+        def project = ProjectBuilder.builder().build()
+        project.plugins.apply 'java'
+        project.plugins.apply BaselineClassDataSharing
+        project.evaluate()
+
+        then:
+        Test testTask = project.tasks.getByName('test')
+        testTask.jvmArgumentProviders.collectMany { it.asArguments() as List }
+                .every { !it.startsWith('-XX:SharedArchiveFile') }
+    }
+}
@@ -17,6 +17,8 @@
 package com.palantir.baseline
 
 import java.nio.file.Files
+import java.util.jar.JarEntry
+import java.util.jar.JarOutputStream
 import java.util.stream.Stream
 import org.gradle.testkit.runner.BuildResult
 import org.gradle.testkit.runner.TaskOutcome
@@ -129,6 +131,102 @@ class BaselineClassUniquenessPluginIntegrationTest extends AbstractPluginTest {
         lockfile.text == expected.text
     }
 
+    def 'detects the same duplicates when hashing jars sequentially'() {
+        File lockfile = new File(projectDir, 'baseline-class-uniqueness.lock')
+
+        when:
+        buildFile << standardBuildFile
+        buildFile << """
+        dependencies {
+            api group: 'javax.el', name: 'javax.el-api', version: '3.0.0'
+            api group: 'javax.servlet.jsp', name: 'jsp-api', version: '2.1'
+        }
+        """.stripIndent()
+        with("checkClassUniqueness", "--fix", "-Pcom.palantir.baseline-class-uniqueness.parallelism=1").build()
+
+        then:
+        File expected = new File("src/test/resources/com/palantir/baseline/baseline-class-uniqueness.expected.lock")
+        lockfile.text == expected.text
+    }
+
+    def 'detects the same duplicates and reuses the configuration cache'() {
+        File lockfile = new File(projectDir, 'baseline-class-uniqueness.lock')
+
+        when:
+        buildFile << standardBuildFile
+        buildFile << """
+        dependencies {
+            api group: 'javax.el', name: 'javax.el-api', version: '3.0.0'
+            api group: 'javax.servlet.jsp', name: 'jsp-api', version: '2.1'
+        }
+        """.stripIndent()
+        with("checkClassUniqueness", "--fix", "--configuration-cache").build()
+        BuildResult result = with("checkClassUniqueness", "--configuration-cache").build()
+
+        then:
+        File expected = new File("src/test/resources/com/palantir/baseline/baseline-class-uniqueness.expected.lock")
+        lockfile.text == expected.text
+        result.output.contains("Reusing configuration cache.")
+    }
+
+    def 'detects the same duplicates using central directory fingerprints'() {
+        File lockfile = new File(projectDir, 'baseline-class-uniqueness.lock')
+
+        when:
+        buildFile << standardBuildFile
+        buildFile << """
+        dependencies {
+            api group: 'javax.el', name: 'javax.el-api', version: '3.0.0'
+            api group: 'javax.servlet.jsp', name: 'jsp-api', version: '2.1'
+        }
+        """.stripIndent()
+        with("checkClassUniqueness", "--fix", "-Pcom.palantir.baseline-class-uniqueness.fast-hashing=true").build()
+
+        then:
+        File expected = new File("src/test/resources/com/palantir/baseline/baseline-class-uniqueness.expected.lock")
+        lockfile.text == expected.text
+    }
+
+    def 'ignores identical duplicates using central directory fingerprints'() {
+        when:
+        buildFile << standardBuildFile
+        buildFile << """
+        dependencies {
+            api 'com.palantir.tritium:tritium-api:0.9.0'
+            api 'com.palantir.tritium:tritium-core:0.9.0'
+        }
+        """.stripIndent()
+
+        then:
+        with('checkClassUniqueness', '-s', '-Pcom.palantir.baseline-class-uniqueness.fast-hashing=true').build()
+    }
+
+    def 'shares results between subprojects with identical classpaths'() {
+        when:
+        def dependencies = """
+        apply plugin: 'com.palantir.baseline-class-uniqueness'
+        repositories {
+            mavenCentral()
+        }
+        dependencies {
+            api group: 'javax.el', name: 'javax.el-api', version: '3.0.0'
+            api group: 'javax.servlet.jsp', name: 'jsp-api', version: '2.1'
+        }
+        """
+        File foo = multiProject.addSubproject('foo', dependencies)
+        File bar = multiProject.addSubproject('bar', dependencies)
+        buildFile << standardBuildFile
+        BuildResult result = with(
+                "checkClassUniqueness", "--fix", "--info", "-Pcom.palantir.baseline-class-uniqueness.aggregate=true")
+                .build()
+
+        then:
+        result.output.contains("Reusing class uniqueness results for an identical classpath")
+        File expected = new File("src/test/resources/com/palantir/baseline/baseline-class-uniqueness.expected.lock")
+        new File(foo, 'baseline-class-uniqueness.lock').text == expected.text
+        new File(bar, 'baseline-class-uniqueness.lock').text == expected.text
+    }
+
     def 'detect duplicates in two external jars in non-standard configuration'() {
         when:
         buildFile << standardBuildFile
@@ -153,6 +251,32 @@ class BaselineClassUniquenessPluginIntegrationTest extends AbstractPluginTest {
         println result.getOutput()
     }
 
+    def 'ignores file dependencies'() {
+        File lockfile = new File(projectDir, 'baseline-class-uniqueness.lock')
+
+        when:
+        File libs = new File(projectDir, 'libs')
+        libs.mkdirs()
+        new JarOutputStream(new FileOutputStream(new File(libs, 'not-a-module.jar'))).withCloseable { jar ->
+            jar.putNextEntry(new JarEntry('javax/el/ArrayELResolver.class'))
+            jar.write('not the real class'.bytes)
+        }
+        buildFile << standardBuildFile
+        buildFile << """
+        dependencies {
+            api group: 'javax.el', name: 'javax.el-api', version: '3.0.0'
+            api group: 'javax.servlet.jsp', name: 'jsp-api', version: '2.1'
+            api files('libs/not-a-module.jar')
+            api fileTree('libs')
+        }
+        """.stripIndent()
+        with("checkClassUniqueness", "--fix", "-s").build()
+
+        then:
+        File expected = new File("src/test/resources/com/palantir/baseline/baseline-class-uniqueness.expected.lock")
+        lockfile.text == expected.text
+    }
+
     def 'ignores duplicates when the implementations are identical'() {
         when:
         buildFile << standardBuildFile
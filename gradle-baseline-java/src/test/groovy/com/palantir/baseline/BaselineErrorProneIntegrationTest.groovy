@@ -154,6 +154,17 @@ class BaselineErrorProneIntegrationTest extends AbstractPluginTest {
         result.task(":compileJava").outcome == TaskOutcome.SUCCESS
     }
 
+    def 'compileJava writes a safety summary when enabled using property'() {
+        when:
+        buildFile << standardBuildFile
+        file('src/main/java/test/Test.java') << validJavaFile
+
+        then:
+        BuildResult result = with('compileJava', '-Pcom.palantir.baseline.safety-summary=true').build()
+        result.task(":compileJava").outcome == TaskOutcome.SUCCESS
+        file('build/classes/java/main/META-INF/baseline/safety-summary.txt').text.contains('test.Test UNKNOWN')
+    }
+
     def 'compileJava applies patches when error-prone finds errors'() {
         when:
         buildFile << standardBuildFile
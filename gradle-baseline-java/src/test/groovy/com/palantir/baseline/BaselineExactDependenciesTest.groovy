@@ -304,6 +304,54 @@ class BaselineExactDependenciesTest extends AbstractPluginTest {
         result.task(':sub-project-no-deps:checkUnusedDependencies').outcome == TaskOutcome.UP_TO_DATE
     }
 
+    def 'both tasks share the referenced classes of a source set'() {
+        when:
+        buildFile << standardBuildFile
+        file('src/main/java/pkg/Foo.java') << minimalJavaFile
+
+        then:
+        BuildResult result = with('checkUnusedDependenciesMain', 'checkImplicitDependenciesMain').build()
+        result.tasks.count { it.path == ':computeReferencedClassesMain' } == 1
+        file('build/baseline-exact-dependencies/main/referenced-classes.txt').text.contains('java.lang.Object')
+    }
+
+    def 'deprecated setSourceClasses replaces the analyzed class files'() {
+        when:
+        buildFile << standardBuildFile
+        buildFile << """
+            tasks.named('checkImplicitDependenciesMain') {
+                sourceClasses = files()
+            }
+        """.stripIndent()
+        file('src/main/java/pkg/Foo.java') << minimalJavaFile
+
+        then:
+        with('checkImplicitDependenciesMain').build()
+        file('build/baseline-exact-dependencies/main/referenced-classes.txt').text.isEmpty()
+    }
+
+    def 'only analyzes changed class files'() {
+        when:
+        buildFile << standardBuildFile
+        file('src/main/java/pkg/Foo.java') << minimalJavaFile
+        file('src/main/java/pkg/Bar.java') << '''
+        package pkg;
+        public class Bar { java.util.List<String> bar() { return null; } }
+        '''.stripIndent()
+        with('computeReferencedClassesMain').build()
+        file('src/main/java/pkg/Bar.java').text = '''
+        package pkg;
+        public class Bar { java.util.Set<String> bar() { return null; } }
+        '''.stripIndent()
+
+        then:
+        BuildResult result = with('computeReferencedClassesMain', '--info').build()
+        result.output.contains('Analyzed 1 changed class files')
+        String referencedClasses = file('build/baseline-exact-dependencies/main/referenced-classes.txt').text
+        referencedClasses.contains('java.util.Set')
+        !referencedClasses.contains('java.util.List')
+    }
+
     def 'checkUnusedDependencies fails when a redundant project dep is present'() {
         when:
         setupMultiProject()
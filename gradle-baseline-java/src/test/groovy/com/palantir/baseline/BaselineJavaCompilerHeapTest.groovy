@@ -59,4 +59,34 @@ class BaselineJavaCompilerHeapTest extends Specification {
         JavaCompile compileTask = project.tasks.getByName('compileJava').asType(JavaCompile.class)
         compileTask.options.forkOptions.memoryMaximumSize == "768m"
     }
+
+    def 'adaptive heap measures full compiles'() {
+        when:
+        JavaCompile compileTask = adaptiveCompileTask()
+        compileTask.actions.first().execute(compileTask)
+
+        then:
+        compileTask.options.forkOptions.jvmArgs.any { it.startsWith('-Xlog:gc') }
+    }
+
+    def 'adaptive heap does not measure incremental compiles'() {
+        when:
+        JavaCompile compileTask = adaptiveCompileTask()
+        File destinationDir = compileTask.destinationDirectory.get().asFile
+        destinationDir.mkdirs()
+        new File(destinationDir, 'Foo.class').bytes = new byte[0]
+        compileTask.actions.first().execute(compileTask)
+
+        then:
+        !compileTask.options.forkOptions.jvmArgs.any { it.startsWith('-Xlog:gc') }
+    }
+
+    private static JavaCompile adaptiveCompileTask() {
+        def project = ProjectBuilder.builder().build()
+        project.ext.set('com.palantir.baseline.adaptive-compiler-heap', 'true')
+        project.plugins.apply 'java'
+        project.plugins.apply BaselineJavaCompilerHeap
+        project.evaluate()
+        return project.tasks.getByName('compileJava').asType(JavaCompile.class)
+    }
 }
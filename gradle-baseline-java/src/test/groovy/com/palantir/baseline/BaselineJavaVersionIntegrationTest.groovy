@@ -26,6 +26,8 @@ import java.nio.file.Paths
 import nebula.test.IntegrationSpec
 import nebula.test.functional.ExecutionResult
 import org.assertj.core.api.Assumptions
+import java.util.jar.JarEntry
+import java.util.jar.JarOutputStream
 import java.util.regex.Matcher
 import java.util.regex.Pattern
 
@@ -622,6 +624,82 @@ class BaselineJavaVersionIntegrationTest extends IntegrationSpec {
         gradleVersionNumber << GRADLE_TEST_VERSIONS
     }
 
+    def '#gradleVersionNumber: checkRuntimeClasspathCompatible fails when a local jar has too high a bytecode version'() {
+        fork = false
+        writeJar('libs/too-new.jar', ['foo/Old.class': JAVA_8_BYTECODE, 'foo/New.class': JAVA_17_BYTECODE])
+
+        // language=gradle
+        buildFile << '''
+            javaVersions {
+                libraryTarget = 11
+                runtime = 11
+            }
+            
+            dependencies {
+                implementation files('libs/too-new.jar')
+            }
+        '''.stripIndent(true)
+
+        when:
+        def rootCause = Throwables.getRootCause(runTasksWithFailure('checkRuntimeClasspathCompatible').failure).message
+
+        then:
+        rootCause.contains('too-new.jar: foo/New.class has bytecode major version 61')
+        !rootCause.contains('foo/Old.class')
+
+        where:
+        gradleVersionNumber << GRADLE_TEST_VERSIONS
+    }
+
+    def '#gradleVersionNumber: checkRuntimeClasspathCompatible ignores newer classes of a multi-release jar'() {
+        fork = false
+        writeJar('libs/multi-release.jar', [
+                'foo/Foo.class': JAVA_11_BYTECODE,
+                'META-INF/versions/17/foo/Foo.class': JAVA_17_BYTECODE])
+
+        when:
+        // language=gradle
+        buildFile << '''
+            javaVersions {
+                libraryTarget = 11
+                runtime = 11
+            }
+            
+            dependencies {
+                implementation files('libs/multi-release.jar')
+            }
+        '''.stripIndent(true)
+
+        then:
+        runTasksSuccessfully('checkRuntimeClasspathCompatible')
+
+        where:
+        gradleVersionNumber << GRADLE_TEST_VERSIONS
+    }
+
+    def '#gradleVersionNumber: checkClasspathCompatible still checks jars on its deprecated classpath'() {
+        fork = false
+        writeJar('libs/too-new.jar', ['foo/New.class': JAVA_17_BYTECODE])
+
+        // language=gradle
+        buildFile << '''
+            tasks.register('checkLegacyClasspathCompatible', com.palantir.baseline.plugins.javaversions.CheckClasspathCompatible) {
+                classpathName = 'legacy'
+                javaVersion = com.palantir.baseline.plugins.javaversions.ChosenJavaVersion.of(11)
+                classpath.from(file('libs/too-new.jar'))
+            }
+        '''.stripIndent(true)
+
+        when:
+        def rootCause = Throwables.getRootCause(runTasksWithFailure('checkLegacyClasspathCompatible').failure).message
+
+        then:
+        rootCause.contains('too-new.jar: foo/New.class has bytecode major version 61')
+
+        where:
+        gradleVersionNumber << GRADLE_TEST_VERSIONS
+    }
+
     def '#gradleVersionNumber: checkRuntimeClasspathCompatible succeeds when there is only jars of the compatible java runtime versions on the runtimeClasspath'() {
         fork = false
 
@@ -692,6 +770,23 @@ class BaselineJavaVersionIntegrationTest extends IntegrationSpec {
 
     private static final int BYTECODE_IDENTIFIER = (int) 0xCAFEBABE
 
+    /** Writes a jar whose entries only contain the header of a class file with the given bytecode major version. */
+    private void writeJar(String path, Map<String, Integer> majorBytecodeVersionByEntry) {
+        File jar = file(path)
+        jar.parentFile.mkdirs()
+        new JarOutputStream(new FileOutputStream(jar)).withCloseable { JarOutputStream out ->
+            majorBytecodeVersionByEntry.each { String entry, Integer majorBytecodeVersion ->
+                out.putNextEntry(new JarEntry(entry))
+                DataOutputStream classFile = new DataOutputStream(out)
+                classFile.writeInt(BYTECODE_IDENTIFIER)
+                classFile.writeShort(0)
+                classFile.writeShort(majorBytecodeVersion)
+                classFile.flush()
+                out.closeEntry()
+            }
+        }
+    }
+
     // See http://illegalargumentexception.blogspot.com/2009/07/java-finding-class-versions.html
     private static void assertBytecodeVersion(File file, int expectedMajorBytecodeVersion,
                                               int expectedMinorBytecodeVersion) {
@@ -60,4 +60,41 @@ class BaselineTestHeapTest extends Specification {
         Test testTask = project.tasks.getByName('test')
         testTask.getMaxHeapSize() == '1024m'
     }
+
+    def testAdaptiveHeapIsSizedFromLastRun() {
+        when:
+        def project = ProjectBuilder.builder().build()
+        project.extensions.extraProperties.set('com.palantir.baseline.adaptive-test-heap', 'true')
+        project.plugins.apply 'java'
+        project.plugins.apply BaselineTestHeap
+        project.evaluate()
+
+        Test testTask = project.tasks.getByName('test')
+        new File(testTask.temporaryDir, 'heap.properties').text = "peakBytes=${200 * 1024 * 1024}\ninputBytes=0\n"
+        testTask.actions.first().execute(testTask)
+
+        then:
+        testTask.getMaxHeapSize() == '512m'
+        testTask.jvmArgs.any { it.startsWith('-Xlog:gc:file=') }
+        project.tasks.findByName('testHeapReport') != null
+    }
+
+    def testAdaptiveHeapKeepsOverrides() {
+        when:
+        def project = ProjectBuilder.builder().build()
+        project.extensions.extraProperties.set('com.palantir.baseline.adaptive-test-heap', 'true')
+        project.plugins.apply 'java'
+        project.test {
+            maxHeapSize = '1024m'
+        }
+        project.plugins.apply BaselineTestHeap
+        project.evaluate()
+
+        Test testTask = project.tasks.getByName('test')
+        new File(testTask.temporaryDir, 'heap.properties').text = "peakBytes=${200 * 1024 * 1024}\ninputBytes=0\n"
+        testTask.actions.first().execute(testTask)
+
+        then:
+        testTask.getMaxHeapSize() == '1024m'
+    }
 }
@@ -180,6 +180,47 @@ class BaselineTestingIntegrationTest extends IntegrationSpec {
         result.failure.cause.cause.message.contains 'Some tests mention JUnit5, but the \'test\' task does not have useJUnitPlatform() enabled'
     }
 
+    def 'checkJUnitDependencies detects fully qualified JUnit4 annotations'() {
+        when:
+        buildFile << standardBuildFile
+        buildFile << '''
+        dependencies {
+            testImplementation "org.junit.jupiter:junit-jupiter:5.4.2"
+        }
+        '''.stripIndent(true)
+        file('src/test/java/test/TestClass4.java') << '''
+        package test;
+        
+        public class TestClass4 { 
+            @org.junit.Test
+            public void test() {}
+        }
+        '''.stripIndent(true)
+        file('src/test/java/test/TestClass5.java') << junit5Test
+
+        then:
+        ExecutionResult result = runTasksWithFailure('checkJUnitDependencies')
+        result.failure.cause.cause.message.contains 'Some tests still use JUnit4, but Gradle has been set to use JUnit Platform'
+    }
+
+    def 'checkJUnitDependencies checks sources edited since its last run again'() {
+        when:
+        buildFile << standardBuildFile
+        buildFile << '''
+        dependencies {
+            testImplementation "org.junit.jupiter:junit-jupiter:5.4.2"
+        }
+        '''.stripIndent(true)
+        File testClass = file('src/test/java/test/TestClass5.java')
+        testClass << junit5Test
+        runTasksSuccessfully('checkJUnitDependencies')
+        testClass.text = junit5Test.replace('public void test() {}', 'public void test() {}\n\n    @org.junit.Test\n    public void test4() {}')
+
+        then:
+        ExecutionResult result = runTasksWithFailure('checkJUnitDependencies')
+        result.failure.cause.cause.message.contains 'Some tests still use JUnit4, but Gradle has been set to use JUnit Platform'
+    }
+
     def 'checkJUnitDependencies ensures nebula test => vintage must be present'() {
         when:
         buildFile << standardBuildFile
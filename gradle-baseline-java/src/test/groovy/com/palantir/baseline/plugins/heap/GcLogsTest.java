@@ -0,0 +1,57 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.heap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GcLogsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reads_peak_heap_usage_after_collections() throws IOException {
+        Path gcLog = Files.writeString(
+                tempDir.resolve("gc.log"),
+                String.join(
+                        "\n",
+                        "[0.011s][info][gc] Using G1",
+                        "[0.532s][info][gc] GC(0) Pause Young (Normal) (G1 Evacuation Pause) 24M->3M(256M) 3.456ms",
+                        "[1.204s][info][gc] GC(1) Pause Young (Normal) (G1 Evacuation Pause) 1500M->1G(2G) 9.123ms",
+                        "[1.872s][info][gc] GC(2) Pause Full (System.gc()) 1200M->512M(2G) 40.001ms"));
+
+        assertThat(GcLogs.peakBytesAfterGc(gcLog.toFile())).hasValue(1024 * HeapSizes.MEGABYTE);
+    }
+
+    @Test
+    void peak_is_unknown_without_collections() throws IOException {
+        Path gcLog = Files.writeString(tempDir.resolve("gc.log"), "[0.011s][info][gc] Using G1\n");
+
+        assertThat(GcLogs.peakBytesAfterGc(gcLog.toFile())).isEmpty();
+    }
+
+    @Test
+    void peak_is_unknown_without_log() {
+        assertThat(GcLogs.peakBytesAfterGc(tempDir.resolve("missing.log").toFile())).isEmpty();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.heap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.gradle.api.Project;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HeapMeasurementTest {
+    private static final String COLLECTION =
+            "[0.532s][info][gc] GC(0) Pause Young (Normal) (G1 Evacuation Pause) 24M->3M(256M) 3.456ms\n";
+    private static final String NO_COLLECTION = "[0.011s][info][gc] Using G1\n";
+
+    @TempDir
+    Path projectDir;
+
+    @Test
+    void records_peak_of_all_forks() throws IOException {
+        HeapMeasurement measurement = measurement();
+        Path gcLog = gcLog(measurement.beginMeasuring(100));
+        writeFork(gcLog, 1, COLLECTION);
+        writeFork(gcLog, 2, COLLECTION.replace("->3M", "->5M"));
+        measurement.succeeded();
+
+        assertThat(measurement.previous())
+                .hasValueSatisfying(observation -> assertThat(observation.peakBytes())
+                        .isEqualTo(5 * HeapSizes.MEGABYTE));
+    }
+
+    @Test
+    void keeps_previous_observation_when_a_fork_never_collected() throws IOException {
+        HeapMeasurement measurement = measurement();
+        new HeapObservation(512 * HeapSizes.MEGABYTE, 100).write(measurement.observationFile());
+        Path gcLog = gcLog(measurement.beginMeasuring(100));
+        writeFork(gcLog, 1, COLLECTION);
+        writeFork(gcLog, 2, NO_COLLECTION);
+        measurement.succeeded();
+
+        assertThat(measurement.previous())
+                .hasValueSatisfying(observation -> assertThat(observation.peakBytes())
+                        .isEqualTo(512 * HeapSizes.MEGABYTE));
+    }
+
+    @Test
+    void records_nothing_when_no_fork_collected() throws IOException {
+        HeapMeasurement measurement = measurement();
+        Path gcLog = gcLog(measurement.beginMeasuring(100));
+        writeFork(gcLog, 1, NO_COLLECTION);
+        measurement.succeeded();
+
+        assertThat(measurement.previous()).isEmpty();
+    }
+
+    private HeapMeasurement measurement() {
+        Project project = ProjectBuilder.builder().withProjectDir(projectDir.toFile()).build();
+        return HeapMeasurement.of(project.getTasks().register("compute").get());
+    }
+
+    /** The log file of the JVM argument returned when a measured run begins, which contains {@code %p}. */
+    private static Path gcLog(String jvmArg) {
+        return Paths.get(jvmArg.substring(jvmArg.indexOf('"') + 1, jvmArg.lastIndexOf('"')));
+    }
+
+    private static void writeFork(Path gcLog, int pid, String contents) throws IOException {
+        String fileName = gcLog.getFileName().toString().replace("%p", Integer.toString(pid));
+        Files.writeString(gcLog.resolveSibling(fileName), contents);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.heap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class HeapSizesTest {
+
+    private static final long MEGABYTE = HeapSizes.MEGABYTE;
+
+    @Test
+    void parses_jvm_notation() {
+        assertThat(HeapSizes.parse("512m")).isEqualTo(512 * MEGABYTE);
+        assertThat(HeapSizes.parse("2G")).isEqualTo(2048 * MEGABYTE);
+        assertThat(HeapSizes.parse("1024")).isEqualTo(1024);
+        assertThatThrownBy(() -> HeapSizes.parse("2gb")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rounds_up_to_powers_of_two_within_bounds() {
+        assertThat(HeapSizes.round(300 * MEGABYTE, 256 * MEGABYTE, 4096 * MEGABYTE))
+                .isEqualTo(512 * MEGABYTE);
+        assertThat(HeapSizes.round(1024 * MEGABYTE, 256 * MEGABYTE, 4096 * MEGABYTE))
+                .isEqualTo(1024 * MEGABYTE);
+        assertThat(HeapSizes.round(10 * MEGABYTE, 256 * MEGABYTE, 4096 * MEGABYTE))
+                .isEqualTo(256 * MEGABYTE);
+        assertThat(HeapSizes.round(9000 * MEGABYTE, 256 * MEGABYTE, 4096 * MEGABYTE))
+                .isEqualTo(4096 * MEGABYTE);
+    }
+
+    @Test
+    void formats_whole_megabytes() {
+        assertThat(HeapSizes.format(512 * MEGABYTE)).isEqualTo("512m");
+        assertThat(HeapSizes.format(512 * MEGABYTE + 1)).isEqualTo("513m");
+    }
+}
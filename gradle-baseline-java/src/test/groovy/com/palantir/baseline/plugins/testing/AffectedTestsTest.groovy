@@ -0,0 +1,141 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.testing
+
+import javax.tools.ToolProvider
+import org.gradle.api.tasks.testing.Test
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+import spock.lang.TempDir
+
+class AffectedTestsTest extends Specification {
+
+    @TempDir
+    File projectDir
+
+    def 'records a successful run of all tests'() {
+        when:
+        Test test = testTask()
+        runActions(test)
+
+        then:
+        lastSuccessfulSnapshot(test).isFile()
+    }
+
+    def 'does not record a run restricted by filter patterns'() {
+        when:
+        Test test = testTask()
+        test.filter.includeTestsMatching('com.palantir.FooTest')
+        runActions(test)
+
+        then:
+        !lastSuccessfulSnapshot(test).exists()
+    }
+
+    def 'does not record a run restricted by exclude filter patterns'() {
+        when:
+        Test test = testTask()
+        test.filter.excludeTestsMatching('com.palantir.FooTest')
+        runActions(test)
+
+        then:
+        !lastSuccessfulSnapshot(test).exists()
+    }
+
+    def 'does not record a run restricted by command line patterns'() {
+        when:
+        Test test = testTask(['test', '--tests', 'com.palantir.FooTest'])
+        runActions(test)
+
+        then:
+        !lastSuccessfulSnapshot(test).exists()
+    }
+
+    def 'only runs the tests referencing a changed class'() {
+        when:
+        Test test = testTaskWithClasses()
+        runActions(test)
+        compile('main', 'package foo; public class Foo { public int value() { return 2; } }')
+        boolean runs = test.getOnlyIf().isSatisfiedBy(test)
+
+        then:
+        runs
+        test.includes == ['foo/FooTest.class', 'foo/FooTest$*.class'] as Set
+    }
+
+    def 'skips the task and records the run when no tests reference a changed class'() {
+        when:
+        Test test = testTaskWithClasses()
+        runActions(test)
+        compile('main', 'package foo; public class Unused {}')
+        byte[] previousSnapshot = lastSuccessfulSnapshot(test).bytes
+        boolean runs = test.getOnlyIf().isSatisfiedBy(test)
+
+        then:
+        !runs
+        test.includes.isEmpty()
+        lastSuccessfulSnapshot(test).bytes != previousSnapshot
+    }
+
+    private Test testTask(List<String> taskNames = ['test']) {
+        def project = ProjectBuilder.builder().withProjectDir(projectDir).build()
+        project.gradle.startParameter.setTaskNames(taskNames)
+        project.plugins.apply 'java'
+        Test test = project.tasks.getByName('test') as Test
+        AffectedTests.configure(test, Optional.empty())
+        return test
+    }
+
+    private Test testTaskWithClasses() {
+        compile('main', 'package foo; public class Foo { public int value() { return 1; } }')
+        compile('main', 'package foo; public class Bar {}')
+        compile('test', 'package foo; public class FooTest { int test() { return new Foo().value(); } }')
+        compile('test', 'package foo; public class BarTest { Object test() { return new Bar(); } }')
+        Test test = testTask()
+        test.classpath = test.project.files(classesDir('main'), classesDir('test'))
+        test.testClassesDirs = test.project.files(classesDir('test'))
+        return test
+    }
+
+    private void compile(String sourceSet, String source) {
+        String className = (source =~ /class (\w+)/)[0][1]
+        File sourceFile = new File(projectDir, "src/${sourceSet}/java/foo/${className}.java")
+        sourceFile.parentFile.mkdirs()
+        sourceFile.text = source
+        classesDir(sourceSet).mkdirs()
+        int result = ToolProvider.systemJavaCompiler.run(
+                null, null, null,
+                '-cp', classesDir('main').path,
+                '-d', classesDir(sourceSet).path,
+                sourceFile.path)
+        assert result == 0
+    }
+
+    private File classesDir(String sourceSet) {
+        return new File(projectDir, "build/classes/java/${sourceSet}")
+    }
+
+    /** Runs the checks and actions added by {@link AffectedTests}, without running any tests in between. */
+    private static void runActions(Test test) {
+        assert test.getOnlyIf().isSatisfiedBy(test)
+        test.actions.last().execute(test)
+    }
+
+    private static File lastSuccessfulSnapshot(Test test) {
+        return new File(test.temporaryDir, 'affected-tests.snapshot')
+    }
+}
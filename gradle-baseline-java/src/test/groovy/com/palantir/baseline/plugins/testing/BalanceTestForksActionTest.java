@@ -0,0 +1,63 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.testing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BalanceTestForksActionTest {
+
+    @Test
+    void uses_fewer_forks_when_the_longest_fork_is_no_longer() {
+        // With 2 forks, the long class shares its fork only with classes which are not tests
+        assertThat(BalanceTestForksAction.fewestForks(ImmutableList.of(10.0, 1.0, 0.0, 1.0, 0.0), 4))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void keeps_forks_when_round_robin_would_put_long_classes_together() {
+        // Longest first, 2 forks would take 10s as well, but round-robin puts both 5s classes with the 10s class
+        assertThat(BalanceTestForksAction.fewestForks(ImmutableList.of(5.0, 5.0, 10.0), 3))
+                .isEqualTo(3);
+    }
+
+    @Test
+    void never_lengthens_the_longest_fork() {
+        Random random = new Random(0);
+        for (int run = 0; run < 1_000; run++) {
+            List<Double> secondsInScanOrder = new ArrayList<>();
+            int classes = random.nextInt(30);
+            for (int i = 0; i < classes; i++) {
+                // Mostly short classes with the occasional long one, and some classes which are not tests
+                secondsInScanOrder.add(
+                        random.nextInt(4) == 0 ? 0.0 : random.nextDouble() * (random.nextInt(10) == 0 ? 100 : 5));
+            }
+            int maxForks = 2 + random.nextInt(8);
+
+            int forks = BalanceTestForksAction.fewestForks(secondsInScanOrder, maxForks);
+
+            assertThat(forks).isBetween(1, maxForks);
+            assertThat(TestPartitions.roundRobinLongestSeconds(secondsInScanOrder, forks))
+                    .isLessThanOrEqualTo(TestPartitions.roundRobinLongestSeconds(secondsInScanOrder, maxForks));
+        }
+    }
+}
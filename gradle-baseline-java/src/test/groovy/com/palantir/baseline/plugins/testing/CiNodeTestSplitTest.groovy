@@ -0,0 +1,84 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.testing
+
+import org.gradle.api.tasks.testing.Test
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+import spock.lang.TempDir
+
+class CiNodeTestSplitTest extends Specification {
+
+    @TempDir
+    File timingsDir
+
+    def 'splits test classes with known durations between nodes'() {
+        given:
+        writeReport('test', 'com.palantir.SlowTest', 10)
+        writeReport('test', 'com.palantir.MediumTest', 6)
+        writeReport('test', 'com.palantir.FastTest', 3)
+        // New test classes of ':test' run on the node that excludes the classes of the other node
+        int nodeRunningNewClasses = Math.floorMod(':test'.hashCode(), 2)
+
+        when:
+        Test node0 = testTaskOnNode(0)
+        Test node1 = testTaskOnNode(1)
+        Test nodeRunningNewTests = nodeRunningNewClasses == 0 ? node0 : node1
+        Test otherNode = nodeRunningNewClasses == 0 ? node1 : node0
+
+        then:
+        node0.filter.includePatterns + node0.filter.excludePatterns == ['com.palantir.SlowTest'] as Set
+        node1.filter.includePatterns + node1.filter.excludePatterns ==
+                ['com.palantir.MediumTest', 'com.palantir.FastTest'] as Set
+        nodeRunningNewTests.filter.includePatterns.isEmpty()
+        otherNode.filter.excludePatterns.isEmpty()
+    }
+
+    def 'skips test tasks without classes on this node'() {
+        when:
+        writeReport('test', 'com.palantir.OnlyTest', 1)
+        int nodeRunningNewClasses = Math.floorMod(':test'.hashCode(), 3)
+        int emptyNode = (0..2).find { it != 0 && it != nodeRunningNewClasses }
+
+        then:
+        !testTaskOnNode(emptyNode, 3).enabled
+    }
+
+    def 'splits only by task without previous reports'() {
+        when:
+        int nodeRunningNewClasses = Math.floorMod(':test'.hashCode(), 2)
+
+        then:
+        testTaskOnNode(nodeRunningNewClasses).enabled
+        !testTaskOnNode(1 - nodeRunningNewClasses).enabled
+    }
+
+    private Test testTaskOnNode(int nodeIndex, int nodeCount = 2) {
+        def project = ProjectBuilder.builder().build()
+        project.plugins.apply 'java'
+        Test test = project.tasks.getByName('test') as Test
+        CiNodeTestSplit.fromReports(Optional.of(timingsDir), nodeIndex, nodeCount).configure(test)
+        return test
+    }
+
+    private void writeReport(String taskDir, String className, double seconds) {
+        def dir = new File(timingsDir, taskDir)
+        dir.mkdirs()
+        new File(dir, "TEST-${className}.xml").text =
+                "<testsuite name=\"${className}\" tests=\"1\" time=\"${seconds}\"></testsuite>"
+    }
+}
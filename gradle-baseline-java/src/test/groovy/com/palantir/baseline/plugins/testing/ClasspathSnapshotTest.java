@@ -0,0 +1,124 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.testing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ClasspathSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path classesDir;
+    private Path packageDir;
+
+    @BeforeEach
+    void before() throws IOException, URISyntaxException {
+        // The compiled classes of this package reference each other, so they make a small dependency graph
+        Path compiledPackage = Path.of(TestTimings.class
+                        .getResource(TestTimings.class.getSimpleName() + ".class")
+                        .toURI())
+                .getParent();
+        classesDir = tempDir.resolve("classes");
+        packageDir = Files.createDirectories(classesDir.resolve("com/palantir/baseline/plugins/testing"));
+        try (Stream<Path> classFiles = Files.list(compiledPackage)) {
+            for (Path classFile : (Iterable<Path>) classFiles::iterator) {
+                Files.copy(classFile, packageDir.resolve(classFile.getFileName()));
+            }
+        }
+    }
+
+    @Test
+    void nothing_changes_between_identical_snapshots() {
+        File snapshotFile = tempDir.resolve("snapshot").toFile();
+        take().write(snapshotFile);
+
+        assertThat(take().changedClassesSince(ClasspathSnapshot.read(snapshotFile).orElseThrow()))
+                .hasValue(Set.of());
+    }
+
+    @Test
+    void detects_changed_and_removed_classes() throws IOException {
+        ClasspathSnapshot previous = take();
+        Files.write(packageDir.resolve("TestTimings.class"), new byte[] {0}, StandardOpenOption.APPEND);
+        Files.delete(packageDir.resolve("TestPartitions.class"));
+
+        assertThat(take().changedClassesSince(previous))
+                .hasValue(Set.of(TestTimings.class.getName(), TestPartitions.class.getName()));
+    }
+
+    @Test
+    void anything_may_change_when_resources_change() throws IOException {
+        ClasspathSnapshot previous = take();
+        Files.writeString(classesDir.resolve("application.properties"), "key=value");
+
+        assertThat(take().changedClassesSince(previous)).isEmpty();
+    }
+
+    @Test
+    void anything_may_change_when_configuration_changes() {
+        ClasspathSnapshot previous = take();
+
+        assertThat(take("-Xmx1g").changedClassesSince(previous)).isEmpty();
+    }
+
+    @Test
+    void finds_classes_transitively_depending_on_changed_classes() {
+        assertThat(take().topLevelClassesDependingOn(Set.of(TestTimings.class.getName())))
+                .contains(
+                        TestTimings.class.getName(),
+                        BalanceTestForksAction.class.getName(),
+                        CiNodeTestSplit.class.getName())
+                .doesNotContain(TestPartitions.class.getName());
+    }
+
+    @Test
+    void changes_to_nested_classes_affect_their_enclosing_class() {
+        assertThat(take().topLevelClassesDependingOn(Set.of(TestPartitions.Partition.class.getName())))
+                .contains(TestPartitions.class.getName(), BalanceTestForksAction.class.getName());
+    }
+
+    @Test
+    void unreadable_snapshots_are_ignored() throws IOException {
+        Path snapshotFile = Files.writeString(tempDir.resolve("snapshot"), "not a snapshot");
+
+        assertThat(ClasspathSnapshot.read(snapshotFile.toFile())).isEqualTo(Optional.empty());
+    }
+
+    private ClasspathSnapshot take() {
+        return take("");
+    }
+
+    private ClasspathSnapshot take(String configuration) {
+        return ClasspathSnapshot.take(
+                ImmutableList.of(classesDir.toFile()), jar -> true, ImmutableList.of(), configuration);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.testing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.palantir.baseline.plugins.testing.TestPartitions.Partition;
+import org.junit.jupiter.api.Test;
+
+class TestPartitionsTest {
+
+    @Test
+    void places_longest_tests_in_separate_partitions() {
+        ImmutableList<Partition<String>> partitions = TestPartitions.partition(
+                ImmutableMap.of("Slow", 10.0, "Medium", 6.0, "FastA", 3.0, "FastB", 2.0, "FastC", 1.0), 2);
+
+        assertThat(partitions.get(0).tests()).containsExactly("Slow", "FastC");
+        assertThat(partitions.get(1).tests()).containsExactly("Medium", "FastA", "FastB");
+        assertThat(TestPartitions.longestSeconds(partitions)).isEqualTo(11.0);
+    }
+
+    @Test
+    void leaves_extra_partitions_empty() {
+        ImmutableList<Partition<String>> partitions = TestPartitions.partition(ImmutableMap.of("Only", 1.0), 3);
+
+        assertThat(partitions).hasSize(3);
+        assertThat(partitions.get(0).tests()).containsExactly("Only");
+        assertThat(partitions.get(1).tests()).isEmpty();
+        assertThat(partitions.get(2).tests()).isEmpty();
+    }
+
+    @Test
+    void hands_out_tests_round_robin() {
+        assertThat(TestPartitions.roundRobinLongestSeconds(ImmutableList.of(10.0, 1.0, 1.0, 10.0), 2))
+                .isEqualTo(11.0);
+        assertThat(TestPartitions.roundRobinLongestSeconds(ImmutableList.of(10.0, 1.0, 1.0, 10.0), 3))
+                .isEqualTo(20.0);
+        assertThat(TestPartitions.roundRobinLongestSeconds(ImmutableList.of(), 3)).isEqualTo(0.0);
+    }
+}
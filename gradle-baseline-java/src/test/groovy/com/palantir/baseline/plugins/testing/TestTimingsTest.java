@@ -0,0 +1,50 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.plugins.testing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TestTimingsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reads_class_durations_from_junit_reports() throws IOException {
+        Path reports = Files.createDirectories(tempDir.resolve("test"));
+        Files.writeString(
+                reports.resolve("TEST-com.palantir.FooTest.xml"),
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                        + "<testsuite name=\"com.palantir.FooTest\" tests=\"2\" time=\"1.5\">\n"
+                        + "  <testcase name=\"test\" classname=\"com.palantir.FooTest\" time=\"1.5\"/>\n"
+                        + "</testsuite>\n",
+                StandardCharsets.UTF_8);
+        Files.writeString(reports.resolve("TEST-com.palantir.Broken.xml"), "<testsuite", StandardCharsets.UTF_8);
+        Files.writeString(reports.resolve("output.bin"), "ignored", StandardCharsets.UTF_8);
+
+        assertThat(TestTimings.readReports(reports.toFile()).secondsByClass())
+                .isEqualTo(ImmutableMap.of("com.palantir.FooTest", 1.5));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableSet;
+import java.io.File;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.services.BuildServiceParameters;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class ClassUniquenessAnalysisCacheTest {
+    private static final Logger log = LoggerFactory.getLogger(ClassUniquenessAnalysisCacheTest.class);
+
+    private static final ImmutableSet<ClassUniquenessArtifact> GUAVA = classpath("guava");
+    private static final ImmutableSet<ClassUniquenessArtifact> JACKSON = classpath("jackson");
+
+    private final ClassUniquenessAnalysisCache cache = new TestClassUniquenessAnalysisCache();
+
+    @Test
+    void analyzes_each_classpath_once() {
+        AtomicInteger analyses = new AtomicInteger();
+
+        assertThat(cache.getOrAnalyze(GUAVA, () -> result(analyses, "guava"), log)).hasValue("guava");
+        assertThat(cache.getOrAnalyze(classpath("guava"), () -> result(analyses, "other"), log))
+                .hasValue("guava");
+        assertThat(analyses).hasValue(1);
+    }
+
+    @Test
+    void analyses_of_other_classpaths_are_not_blocked() throws Exception {
+        CountDownLatch guavaStarted = new CountDownLatch(1);
+        CountDownLatch jacksonFinished = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<String>> guava = executor.submit(() -> cache.getOrAnalyze(
+                    GUAVA,
+                    () -> {
+                        guavaStarted.countDown();
+                        await(jacksonFinished);
+                        return Optional.of("guava");
+                    },
+                    log));
+            await(guavaStarted);
+
+            assertThat(cache.getOrAnalyze(JACKSON, () -> Optional.of("jackson"), log)).hasValue("jackson");
+            jacksonFinished.countDown();
+            assertThat(guava.get(10, TimeUnit.SECONDS)).hasValue("guava");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrent_requests_wait_for_the_first_analysis() throws Exception {
+        CountDownLatch analysisStarted = new CountDownLatch(1);
+        CountDownLatch analysisMayFinish = new CountDownLatch(1);
+        AtomicInteger analyses = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<String>> first = executor.submit(() -> cache.getOrAnalyze(
+                    GUAVA,
+                    () -> {
+                        analysisStarted.countDown();
+                        await(analysisMayFinish);
+                        return result(analyses, "first");
+                    },
+                    log));
+            await(analysisStarted);
+            analysisMayFinish.countDown();
+
+            assertThat(cache.getOrAnalyze(GUAVA, () -> result(analyses, "second"), log)).hasValue("first");
+            assertThat(first.get(10, TimeUnit.SECONDS)).hasValue("first");
+            assertThat(analyses).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failed_analyses_are_retried() {
+        assertThatThrownBy(() -> cache.getOrAnalyze(
+                        GUAVA,
+                        () -> {
+                            throw new IllegalStateException("Failed to read jar");
+                        },
+                        log))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Failed to read jar");
+
+        assertThat(cache.getOrAnalyze(GUAVA, Optional::empty, log)).isEmpty();
+    }
+
+    private static Optional<String> result(AtomicInteger analyses, String result) {
+        analyses.incrementAndGet();
+        return Optional.of(result);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static ImmutableSet<ClassUniquenessArtifact> classpath(String name) {
+        ClassUniquenessArtifactIdentifier identifier = ImmutableClassUniquenessArtifactIdentifier.builder()
+                .moduleVersionIdentifier(DefaultModuleVersionIdentifier.newId("com.example", name, "1.0"))
+                .build();
+        return ImmutableSet.of(ClassUniquenessArtifact.of(identifier, new File(name + ".jar")));
+    }
+
+    private static final class TestClassUniquenessAnalysisCache extends ClassUniquenessAnalysisCache {
+        @Override
+        public BuildServiceParameters.None getParameters() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.MoreCollectors;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class JarClassHashIndexTest {
+    private static final Logger log = LoggerFactory.getLogger(JarClassHashIndexTest.class);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void round_trips_class_hashes() {
+        JarClassHashIndex index = new JarClassHashIndex(tempDir, Long.MAX_VALUE);
+        ImmutableSetMultimap<String, HashCode> hashes = ImmutableSetMultimap.of(
+                "com.palantir.Foo", hash("foo"),
+                "com.palantir.Foo$Inner", hash("inner"),
+                "com.palantir.Foo$Inner", hash("duplicate"),
+                "org.other.Bar", hash("bar"));
+
+        assertThat(index.read(hash("jar"), log)).isEmpty();
+        index.write(hash("jar"), hashes, log);
+
+        assertThat(index.read(hash("jar"), log)).hasValue(hashes);
+        assertThat(new JarClassHashIndex(tempDir, Long.MAX_VALUE).read(hash("jar"), log)).hasValue(hashes);
+    }
+
+    @Test
+    void ignores_and_removes_corrupt_entries() throws IOException {
+        JarClassHashIndex index = new JarClassHashIndex(tempDir, Long.MAX_VALUE);
+        index.write(hash("jar"), ImmutableSetMultimap.of("com.palantir.Foo", hash("foo")), log);
+        Path entry = singleEntry();
+        Files.write(entry, new byte[] {1, 2, 3});
+
+        assertThat(index.read(hash("jar"), log)).isEmpty();
+        assertThat(entry).doesNotExist();
+    }
+
+    @Test
+    void evicts_least_recently_used_entries() throws IOException {
+        JarClassHashIndex index = new JarClassHashIndex(tempDir, 1);
+        index.write(hash("old"), ImmutableSetMultimap.of("com.palantir.Foo", hash("foo")), log);
+        Path oldEntry = singleEntry();
+        Files.setLastModifiedTime(oldEntry, FileTime.fromMillis(0));
+        index.write(hash("new"), ImmutableSetMultimap.of("com.palantir.Bar", hash("bar")), log);
+
+        new JarClassHashIndex(tempDir, Files.size(oldEntry) + 1).evictToMaxSize(log);
+
+        assertThat(index.read(hash("old"), log)).isEmpty();
+        assertThat(index.read(hash("new"), log)).isPresent();
+    }
+
+    private Path singleEntry() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.collect(MoreCollectors.onlyElement());
+        }
+    }
+
+    private static HashCode hash(String value) {
+        return Hashing.sha256().hashString(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Bytes;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class JarClassHasherResultTest {
+
+    private static final ImmutableSetMultimap<String, HashCode> HASHES = ImmutableSetMultimap
+            .<String, HashCode>builder()
+            .put("com.palantir.Foo", HashCode.fromLong(1))
+            .put("com.palantir.Foo$Inner", HashCode.fromLong(2))
+            .put("com.palantir.Foo$Inner", HashCode.fromLong(3))
+            .put("com.palantir.Bar", HashCode.fromLong(4))
+            .put("com.palantir.nested.Bar", HashCode.fromLong(5))
+            .put("DefaultPackage", HashCode.fromLong(6))
+            .build();
+
+    @Test
+    void answers_the_same_queries_as_a_multimap() {
+        JarClassHasher.Result result = JarClassHasher.Result.of(HASHES);
+
+        assertThat(result.size()).isEqualTo(HASHES.size());
+        assertThat(result.getHashesByClassName()).isEqualTo(HASHES);
+        HASHES.keySet().forEach(className -> {
+            assertThat(result.containsClass(className)).isTrue();
+            assertThat(result.getHashes(className)).isEqualTo(HASHES.get(className));
+        });
+    }
+
+    @Test
+    void does_not_find_missing_classes() {
+        JarClassHasher.Result result = JarClassHasher.Result.of(HASHES);
+
+        assertThat(result.containsClass("com.palantir.Baz")).isFalse();
+        assertThat(result.containsClass("com.other.Foo")).isFalse();
+        assertThat(result.getHashes("com.palantir.nested.Foo")).isEmpty();
+        assertThat(JarClassHasher.Result.empty().getHashesByClassName()).isEmpty();
+    }
+
+    @Test
+    void compares_the_first_64_bits_of_each_hash() {
+        HashCode original = Hashing.sha256().hashString("class Foo {}", StandardCharsets.UTF_8);
+        HashCode changed = Hashing.sha256().hashString("class Foo { int bar; }", StandardCharsets.UTF_8);
+        HashCode sameFirst64Bits = HashCode.fromBytes(Bytes.concat(
+                Arrays.copyOf(original.asBytes(), Long.BYTES), Arrays.copyOf(changed.asBytes(), Long.BYTES * 3)));
+
+        JarClassHasher.Result jar = JarClassHasher.Result.of(ImmutableSetMultimap.of("com.palantir.Foo", original));
+        JarClassHasher.Result identical =
+                JarClassHasher.Result.of(ImmutableSetMultimap.of("com.palantir.Foo", original));
+        JarClassHasher.Result different =
+                JarClassHasher.Result.of(ImmutableSetMultimap.of("com.palantir.Foo", changed));
+
+        assertThat(jar.getHashes("com.palantir.Foo")).containsExactly(HashCode.fromLong(original.asLong()));
+        assertThat(identical.getHashes("com.palantir.Foo")).isEqualTo(jar.getHashes("com.palantir.Foo"));
+        assertThat(different.getHashes("com.palantir.Foo")).isNotEqualTo(jar.getHashes("com.palantir.Foo"));
+        // a jar containing both versions of the class still reports two hashes for it
+        assertThat(JarClassHasher.Result.of(ImmutableSetMultimap.of(
+                                "com.palantir.Foo", original,
+                                "com.palantir.Foo", changed))
+                        .getHashes("com.palantir.Foo"))
+                .hasSize(2);
+        // only the first 64 bits are kept, which is plenty to tell classes apart
+        assertThat(JarClassHasher.Result.of(ImmutableSetMultimap.of("com.palantir.Foo", sameFirst64Bits))
+                        .getHashes("com.palantir.Foo"))
+                .isEqualTo(jar.getHashes("com.palantir.Foo"));
+    }
+}
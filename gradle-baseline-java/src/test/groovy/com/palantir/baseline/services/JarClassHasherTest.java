@@ -0,0 +1,121 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.MoreCollectors;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import org.gradle.api.Project;
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JarClassHasherTest {
+    private static final Logger log = Logging.getLogger(JarClassHasherTest.class);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reads_jars_hashed_by_an_earlier_build_from_the_index() throws IOException {
+        ClassUniquenessArtifact jar = jar("guava", "com/google/Foo.class", "com/google/Bar.class");
+        Project project = project();
+
+        JarClassHasher.Result first = hasher(project, "first", Long.MAX_VALUE).hashClasses(jar, log);
+        Path entry = singleIndexEntry();
+        Object entryKey = Files.readAttributes(entry, BasicFileAttributes.class).fileKey();
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(0));
+        JarClassHasher.Result second = hasher(project, "second", Long.MAX_VALUE).hashClasses(jar, log);
+
+        assertThat(second.getHashesByClassName().keySet())
+                .containsExactlyInAnyOrder("com.google.Foo", "com.google.Bar");
+        assertThat(second.getHashesByClassName()).isEqualTo(first.getHashesByClassName());
+        // Reading an entry bumps its modification time, while writing it again would replace the file
+        assertThat(singleIndexEntry()).isEqualTo(entry);
+        assertThat(Files.readAttributes(entry, BasicFileAttributes.class).fileKey()).isEqualTo(entryKey);
+        assertThat(Files.getLastModifiedTime(entry)).isGreaterThan(FileTime.fromMillis(0));
+    }
+
+    @Test
+    void evicts_the_index_to_its_maximum_size_on_close() throws IOException {
+        JarClassHasher hasher = hasher(project(), "hasher", 1);
+        hasher.hashClasses(jar("guava", "com/google/Foo.class"), log);
+        assertThat(singleIndexEntry()).exists();
+
+        hasher.close();
+
+        try (Stream<Path> entries = Files.list(indexDirectory())) {
+            assertThat(entries).isEmpty();
+        }
+    }
+
+    private Project project() {
+        return ProjectBuilder.builder()
+                .withProjectDir(tempDir.resolve("project").toFile())
+                .build();
+    }
+
+    /** Every build service registered under a different name is a separate instance, like in a later build. */
+    private JarClassHasher hasher(Project project, String name, long maxIndexSizeBytes) {
+        return project.getGradle()
+                .getSharedServices()
+                .registerIfAbsent(name, JarClassHasher.class, spec -> {
+                    spec.getParameters().getIndexDirectory().set(indexDirectory().toFile());
+                    spec.getParameters().getMaxIndexSizeBytes().set(maxIndexSizeBytes);
+                })
+                .get();
+    }
+
+    private Path indexDirectory() {
+        return tempDir.resolve("index");
+    }
+
+    private Path singleIndexEntry() throws IOException {
+        try (Stream<Path> entries = Files.list(indexDirectory())) {
+            return entries.collect(MoreCollectors.onlyElement());
+        }
+    }
+
+    private ClassUniquenessArtifact jar(String name, String... classFiles) throws IOException {
+        Path jar = tempDir.resolve(name + ".jar");
+        try (OutputStream out = Files.newOutputStream(jar);
+                JarOutputStream jarOut = new JarOutputStream(out)) {
+            for (String classFile : classFiles) {
+                jarOut.putNextEntry(new JarEntry(classFile));
+                jarOut.write(classFile.getBytes(StandardCharsets.UTF_8));
+                jarOut.closeEntry();
+            }
+        }
+        ClassUniquenessArtifactIdentifier identifier = ImmutableClassUniquenessArtifactIdentifier.builder()
+                .moduleVersionIdentifier(DefaultModuleVersionIdentifier.newId("com.example", name, "1.0"))
+                .build();
+        return ClassUniquenessArtifact.of(identifier, jar.toFile());
+    }
+}
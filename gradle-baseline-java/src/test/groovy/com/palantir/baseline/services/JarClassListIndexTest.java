@@ -0,0 +1,53 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class JarClassListIndexTest {
+    private static final Logger log = LoggerFactory.getLogger(JarClassListIndexTest.class);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void round_trips_class_names() {
+        JarClassListIndex index = new JarClassListIndex(tempDir, Long.MAX_VALUE);
+        ImmutableSortedSet<String> classes =
+                ImmutableSortedSet.of("com.palantir.Foo", "com.palantir.Foo$Inner", "com.palantir.Bar", "org.Baz");
+
+        assertThat(index.read(hash("jar"), log)).isEmpty();
+        index.write(hash("jar"), classes, log);
+
+        assertThat(new JarClassListIndex(tempDir, Long.MAX_VALUE).read(hash("jar"), log))
+                .hasValue(classes);
+    }
+
+    private static HashCode hash(String value) {
+        return Hashing.sha256().hashString(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * (c) Copyright 2026 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.baseline.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.gradle.api.services.BuildServiceParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JarManifestCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void looks_up_attribute_names_case_insensitively() throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Add-exports", "jdk.compiler/com.sun.tools.javac.api");
+        File jar = jar(manifest);
+
+        JarManifestCache cache = new TestJarManifestCache();
+        assertThat(cache.mainAttributes(jar).getValue("Add-Exports")).isEqualTo("jdk.compiler/com.sun.tools.javac.api");
+        // served from the cache
+        assertThat(cache.mainAttributes(jar).getValue("ADD-EXPORTS")).isEqualTo("jdk.compiler/com.sun.tools.javac.api");
+    }
+
+    @Test
+    void jars_without_a_manifest_have_no_attributes() throws IOException {
+        File jar = tempDir.resolve("empty.jar").toFile();
+        try (OutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath()))) {
+            out.flush();
+        }
+
+        assertThat(new TestJarManifestCache().mainAttributes(jar)).isEmpty();
+    }
+
+    private File jar(Manifest manifest) throws IOException {
+        File jar = tempDir.resolve("test.jar").toFile();
+        try (OutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath()), manifest)) {
+            out.flush();
+        }
+        return jar;
+    }
+
+    private static final class TestJarManifestCache extends JarManifestCache {
+        @Override
+        public BuildServiceParameters.None getParameters() {
+            return null;
+        }
+    }
+}